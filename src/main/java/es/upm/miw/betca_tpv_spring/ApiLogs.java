@@ -1,81 +1,208 @@
 package es.upm.miw.betca_tpv_spring;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.*;
-import org.springframework.context.annotation.Profile;
+import org.apache.logging.log4j.Logger;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-@Profile("dev")
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.time.temporal.Temporal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One structured event per sampled resource call (arguments and result or exception), handed to a ring buffer.
+ * A single background thread formats them as JSON lines, with reused buffers, and logs them; a full ring drops
+ * the event, so the requests never wait for the logs. Only simple values are written, DTOs and other objects are
+ * logged by their class name, they may carry personal data (emails, DNIs, addresses). Texts are written only for
+ * the parameters listed as non-personal, mobiles or gift references are redacted.
+ */
 @Component
 @Aspect
+@Order(0) // Ahead of the reactive method security, which proceeds once the result is subscribed
 public class ApiLogs {
 
-    private StringBuilder log = new StringBuilder();
+    private static final String THREAD_NAME = "api-logs";
+    private static final int MAX_LENGTH = 1000;
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long DROPPED_REPORT_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final String REDACTED = "***";
+
+    private final Logger logger = LogManager.getLogger(this.getClass());
+    private final ObjectMapper objectMapper;
+    private final double sampling;
+    private final Set<String> parameters;
+    private final Map<Method, boolean[]> loggableArgs = new ConcurrentHashMap<>();
+    private final RingBuffer<ApiLogEvent> ringBuffer;
+    private final LongAdder dropped = new LongAdder();
+    private final StringWriter line = new StringWriter(MAX_LENGTH);
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public ApiLogs(ObjectMapper objectMapper, @Value("${miw.api.logs.sampling}") double sampling,
+                   @Value("${miw.api.logs.buffer}") int buffer, @Value("${miw.api.logs.parameters}") String[] parameters) {
+        this.objectMapper = objectMapper;
+        this.sampling = sampling;
+        this.parameters = new HashSet<>(Arrays.asList(parameters));
+        this.ringBuffer = new RingBuffer<>(buffer);
+        this.writer = new Thread(this::write, THREAD_NAME);
+        this.writer.setDaemon(true);
+    }
 
     @Pointcut("@within(org.springframework.web.bind.annotation.RestController)")
     public void allResources() {
         // don't need code
     }
 
-    private String addLog(String newLog) {
-        this.log.append(newLog);
-        int length = this.log.length();
-        if (length > 1000) {
-            this.log.delete(900, length);
-            this.log.append(log.length()).append(" characters");
+    @Around("allResources()")
+    public Object apiLog(ProceedingJoinPoint jp) throws Throwable {
+        if (!this.sampled()) {
+            return jp.proceed();
+        }
+        Method method = ((MethodSignature) jp.getSignature()).getMethod();
+        ApiLogEvent event = new ApiLogEvent(method.getName(), jp.getArgs(),
+                this.loggableArgs.computeIfAbsent(method, key -> loggable(key, this.parameters)));
+        try {
+            event.result = jp.proceed();
+            return event.result;
+        } catch (Throwable exception) {
+            event.exception = exception;
+            throw exception;
+        } finally {
+            if (!this.ringBuffer.offer(event)) {
+                this.dropped.increment();
+            }
         }
-        return this.log.toString();
     }
 
-    private void resetLog() {
-        this.log.setLength(0);
+    private boolean sampled() {
+        return this.sampling > 0 && this.logger.isInfoEnabled()
+                && (this.sampling >= 1 || ThreadLocalRandom.current().nextDouble() < this.sampling);
     }
 
-    @Before("allResources()")
-    public void apiRequestLog(JoinPoint jp) {
-        LogManager.getLogger(this.getClass())
-                .debug("--------------------------- o ---------------------------");
-        this.resetLog();
-        this.addLog(jp.getSignature().getName());
-        this.addLog(" >>>");
-        for (Object arg : jp.getArgs()) {
-            this.addLog(String.format(" ARG: %s", arg));
-        }
-        LogManager.getLogger(this.getClass()).debug(() -> this.log);
+    @PostConstruct
+    public void start() {
+        this.writer.start();
     }
 
-    @AfterReturning(pointcut = "allResources()", returning = "returnValue")
-    public void apiResponseLog(JoinPoint jp, Object returnValue) {
-        this.resetLog();
-        this.addLog("<<< Return << ");
-        this.addLog(jp.getSignature().getName());
-        this.addLog(" << ");
-        if (returnValue != null) {
-            String className = returnValue.getClass().getSimpleName();
-            if (className.startsWith("Flux") || className.startsWith("Mono")) {
-                this.addLog(className);
+    private void write() {
+        long droppedReport = System.nanoTime() + DROPPED_REPORT_NANOS;
+        while (this.running) {
+            ApiLogEvent event = this.ringBuffer.poll();
+            if (event != null) {
+                this.log(event);
             } else {
-                try {
-                    this.addLog(new ObjectMapper().writeValueAsString(returnValue));
-                } catch (JsonProcessingException e) {
-                    this.addLog(returnValue.toString());
+                if (System.nanoTime() - droppedReport > 0) {
+                    this.reportDropped();
+                    droppedReport = System.nanoTime() + DROPPED_REPORT_NANOS;
                 }
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+        for (ApiLogEvent event = this.ringBuffer.poll(); event != null; event = this.ringBuffer.poll()) {
+            this.log(event);
+        }
+        this.reportDropped();
+    }
+
+    private void log(ApiLogEvent event) {
+        this.line.getBuffer().setLength(0);
+        try (JsonGenerator json = this.objectMapper.getFactory().createGenerator(this.line)) {
+            json.writeStartObject();
+            json.writeNumberField("time", event.time);
+            json.writeStringField("thread", event.thread);
+            json.writeStringField("method", event.method);
+            json.writeArrayFieldStart("args");
+            for (int i = 0; i < event.args.length; i++) {
+                json.writeString(value(event.args[i], event.loggable[i]));
             }
-            LogManager.getLogger(this.getClass()).debug(() -> this.log);
-        } else {
-            LogManager.getLogger(this.getClass()).debug(() -> this.addLog("null"));
+            json.writeEndArray();
+            if (event.exception != null) {
+                json.writeStringField("exception",
+                        event.exception.getClass().getSimpleName() + ": " + event.exception.getMessage());
+            } else {
+                json.writeStringField("return", value(event.result, false));
+            }
+            json.writeEndObject();
+        } catch (IOException | RuntimeException exception) {
+            this.logger.warn("API log of " + event.method + " not written: " + exception.getMessage());
+            return;
         }
+        this.logger.info(this.line.toString());
     }
 
-    @AfterThrowing(pointcut = "allResources()", throwing = "exception")
-    public void apiResponseExceptionLog(JoinPoint jp, Exception exception) {
-        this.resetLog();
-        this.addLog(String.format("<<< EXCEPTION << %s: %s"
-                , exception.getClass().getSimpleName(), exception.getMessage()));
-        LogManager.getLogger(this.getClass()).debug(() -> log);
+    static boolean[] loggable(Method method, Set<String> parameters) {
+        Parameter[] methodParameters = method.getParameters();
+        boolean[] loggable = new boolean[methodParameters.length];
+        for (int i = 0; i < methodParameters.length; i++) {
+            loggable[i] = methodParameters[i].isNamePresent() && parameters.contains(methodParameters[i].getName());
+        }
+        return loggable;
+    }
+
+    static String value(Object value, boolean loggableText) {
+        if (value instanceof CharSequence) {
+            return loggableText ? truncate(value.toString()) : REDACTED;
+        }
+        if (value == null || value instanceof Number || value instanceof Boolean
+                || value instanceof Enum || value instanceof Temporal) {
+            return truncate(String.valueOf(value));
+        }
+        return value.getClass().getSimpleName();
+    }
+
+    private static String truncate(String text) {
+        return text.length() <= MAX_LENGTH ? text : text.substring(0, MAX_LENGTH) + "... " + text.length() + " characters";
+    }
+
+    private void reportDropped() {
+        long dropped = this.dropped.sumThenReset();
+        if (dropped > 0) {
+            this.logger.warn(dropped + " API log events dropped, ring buffer full");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        this.running = false;
+        this.writer.join(TimeUnit.SECONDS.toMillis(1));
+    }
+
+    private static final class ApiLogEvent {
+
+        private final long time = System.currentTimeMillis();
+        private final String thread = Thread.currentThread().getName();
+        private final String method;
+        private final Object[] args;
+        private final boolean[] loggable;
+        private Object result;
+        private Throwable exception;
+
+        private ApiLogEvent(String method, Object[] args, boolean[] loggable) {
+            this.method = method;
+            this.args = args;
+            this.loggable = loggable;
+        }
     }
 
 }
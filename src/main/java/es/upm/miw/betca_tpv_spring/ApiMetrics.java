@@ -0,0 +1,118 @@
+package es.upm.miw.betca_tpv_spring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers, with their counts, of the business controllers, the reactive repositories and the PDF generation, tagged
+ * by class, method, outcome and exception. A reactive result is timed from its subscription to its termination,
+ * so a repository query is measured when it runs, not when it is assembled. Served at /actuator/prometheus.
+ */
+@Component
+@Aspect
+public class ApiMetrics {
+
+    static final String CONTROLLER = "miw.controller";
+    static final String REPOSITORY = "miw.repository";
+    static final String PDF = "miw.pdf";
+    static final String SUCCESS = "SUCCESS";
+    static final String ERROR = "ERROR";
+    static final String CANCELLED = "CANCELLED";
+    static final String NONE = "None";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public ApiMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Pointcut("execution(public * es.upm.miw.betca_tpv_spring.business_controllers..*.*(..))")
+    public void allControllers() {
+        // don't need code
+    }
+
+    @Pointcut("execution(public * *(..)) && target(org.springframework.data.repository.reactive.ReactiveCrudRepository)")
+    public void allReactRepositories() {
+        // don't need code
+    }
+
+    @Pointcut("execution(public * es.upm.miw.betca_tpv_spring.business_services.PdfService.generate*(..))")
+    public void allPdfs() {
+        // don't need code
+    }
+
+    @Around("allControllers()")
+    public Object controllerMetrics(ProceedingJoinPoint jp) throws Throwable {
+        return this.timed(jp, CONTROLLER, jp.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    @Around("allReactRepositories()")
+    public Object repositoryMetrics(ProceedingJoinPoint jp) throws Throwable {
+        return this.timed(jp, REPOSITORY, this.repositoryNames.computeIfAbsent(jp.getTarget().getClass(),
+                proxy -> AopProxyUtils.proxiedUserInterfaces(jp.getTarget())[0].getSimpleName()));
+    }
+
+    @Around("allPdfs()")
+    public Object pdfMetrics(ProceedingJoinPoint jp) throws Throwable {
+        return this.timed(jp, PDF, jp.getSignature().getDeclaringType().getSimpleName());
+    }
+
+    private Object timed(ProceedingJoinPoint jp, String name, String className) throws Throwable {
+        String method = jp.getSignature().getName();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = jp.proceed();
+        } catch (Throwable exception) {
+            this.record(name, className, method, start, ERROR, exception);
+            throw exception;
+        }
+        if (result instanceof Mono) {
+            return Mono.defer(() -> {
+                long subscribed = System.nanoTime();
+                return ((Mono<?>) result)
+                        .doOnError(exception -> this.record(name, className, method, subscribed, ERROR, exception))
+                        .doFinally(signal -> this.recordFinally(name, className, method, subscribed, signal));
+            });
+        } else if (result instanceof Flux) {
+            return Flux.defer(() -> {
+                long subscribed = System.nanoTime();
+                return ((Flux<?>) result)
+                        .doOnError(exception -> this.record(name, className, method, subscribed, ERROR, exception))
+                        .doFinally(signal -> this.recordFinally(name, className, method, subscribed, signal));
+            });
+        }
+        this.record(name, className, method, start, SUCCESS, null);
+        return result;
+    }
+
+    private void recordFinally(String name, String className, String method, long start, SignalType signal) {
+        if (signal != SignalType.ON_ERROR) {
+            this.record(name, className, method, start, signal == SignalType.CANCEL ? CANCELLED : SUCCESS, null);
+        }
+    }
+
+    private void record(String name, String className, String method, long start, String outcome, Throwable exception) {
+        Timer.builder(name)
+                .tags(Tags.of("class", className, "method", method, "outcome", outcome,
+                        "exception", exception == null ? NONE : exception.getClass().getSimpleName()))
+                .register(this.meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+}
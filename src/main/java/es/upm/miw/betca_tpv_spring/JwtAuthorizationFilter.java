@@ -34,11 +34,11 @@ public class JwtAuthorizationFilter extends BasicAuthenticationFilter {
             throws IOException, ServletException {
         String authHeader = request.getHeader(AUTHORIZATION);
         if (jwtService.isBearer(authHeader)) {
-            List<GrantedAuthority> authorities;
-            authorities = jwtService.roles(authHeader).stream()
+            JwtService.Claims claims = jwtService.claims(authHeader);
+            List<GrantedAuthority> authorities = claims.getRoles().stream()
                     .map(role -> new SimpleGrantedAuthority(Role.valueOf(role).roleName())).collect(Collectors.toList());
             UsernamePasswordAuthenticationToken authentication =
-                    new UsernamePasswordAuthenticationToken(jwtService.user(authHeader), null, authorities);
+                    new UsernamePasswordAuthenticationToken(claims.getUser(), null, authorities);
             SecurityContextHolder.getContext().setAuthentication(authentication);
         }
         chain.doFilter(request, response);
@@ -0,0 +1,33 @@
+package es.upm.miw.betca_tpv_spring;
+
+import com.mongodb.connection.netty.NettyStreamFactoryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MongoConfig {
+
+    @Value("${miw.mongo.pool.size}")
+    private int poolSize;
+
+    @Value("${miw.mongo.pool.wait-queue}")
+    private int waitQueue;
+
+    @Value("${miw.mongo.netty}")
+    private boolean netty;
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer reactiveMongoPoolCustomizer() {
+        return builder -> {
+            builder.applyToConnectionPoolSettings(pool -> pool
+                    .maxSize(this.poolSize)
+                    .maxWaitQueueSize(this.waitQueue));
+            if (this.netty) {
+                builder.streamFactoryFactory(NettyStreamFactoryFactory.builder().build());
+            }
+        };
+    }
+
+}
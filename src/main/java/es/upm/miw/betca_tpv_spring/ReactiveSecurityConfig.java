@@ -0,0 +1,93 @@
+package es.upm.miw.betca_tpv_spring;
+
+import es.upm.miw.betca_tpv_spring.business_services.JwtService;
+import es.upm.miw.betca_tpv_spring.documents.Role;
+import es.upm.miw.betca_tpv_spring.exceptions.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authorization.HttpStatusServerAccessDeniedHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
+import reactor.core.publisher.Mono;
+
+import java.util.stream.Collectors;
+
+/**
+ * Reactive counterpart of {@link SecurityConfig}: basic authentication to get the token and a JWT
+ * {@link AuthenticationWebFilter} for the rest, both stateless. Roles are checked by the resources' @PreAuthorize,
+ * and the actuator endpoints are for ADMIN.
+ */
+@Profile("reactive")
+@Configuration
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
+public class ReactiveSecurityConfig {
+
+    @Autowired
+    private ReactiveUserDetailsService reactiveUserDetailsService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        UserDetailsRepositoryReactiveAuthenticationManager basicAuthenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(this.reactiveUserDetailsService);
+        basicAuthenticationManager.setPasswordEncoder(this.passwordEncoder());
+        return http.csrf().disable()
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .requestCache().requestCache(NoOpServerRequestCache.getInstance())
+                .and().httpBasic().authenticationManager(basicAuthenticationManager)
+                .and().exceptionHandling()
+                .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED))
+                .accessDeniedHandler(new HttpStatusServerAccessDeniedHandler(HttpStatus.UNAUTHORIZED))
+                .and().addFilterAt(this.jwtAuthenticationWebFilter(), SecurityWebFiltersOrder.AUTHENTICATION)
+                .authorizeExchange().matchers(EndpointRequest.toAnyEndpoint()).hasRole(Role.ADMIN.name())
+                .anyExchange().permitAll()
+                .and().build();
+    }
+
+    private AuthenticationWebFilter jwtAuthenticationWebFilter() {
+        AuthenticationWebFilter filter = new AuthenticationWebFilter(this.jwtAuthenticationManager());
+        filter.setServerAuthenticationConverter(exchange -> Mono
+                .justOrEmpty(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION))
+                .filter(this.jwtService::isBearer)
+                .map(authorization -> new UsernamePasswordAuthenticationToken(null, authorization)));
+        filter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+        return filter;
+    }
+
+    private ReactiveAuthenticationManager jwtAuthenticationManager() {
+        return authentication -> Mono
+                .fromCallable(() -> this.jwtService.claims((String) authentication.getCredentials()))
+                .onErrorMap(JwtException.class, exception -> new BadCredentialsException(exception.getMessage()))
+                .map(claims -> new UsernamePasswordAuthenticationToken(claims.getUser(), null, claims.getRoles().stream()
+                        .map(role -> new SimpleGrantedAuthority(Role.valueOf(role).roleName())).collect(Collectors.toList())));
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+
+}
@@ -0,0 +1,69 @@
+package es.upm.miw.betca_tpv_spring;
+
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.config.CorsRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tomcat is also on the classpath, so Netty is declared explicitly. WebFlux has no context path:
+ * requests under server.servlet.contextPath are given it, as the servlet container does, and the rest are not found.
+ */
+@Profile("reactive")
+@Configuration
+public class WebFluxConfig implements WebFluxConfigurer {
+
+    @Value("${server.servlet.contextPath}")
+    private String contextPath;
+
+    @Override
+    public void addCorsMappings(CorsRegistry registry) {
+        registry.addMapping("/**").allowedMethods("*").allowedOrigins("*")
+                .exposedHeaders(KeysetPage.NEXT_CURSOR).maxAge(3600);
+    }
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public WebFilter contextPathWebFilter() {
+        return new ContextPathWebFilter(this.contextPath);
+    }
+
+    private static class ContextPathWebFilter implements WebFilter, Ordered {
+
+        private final String contextPath;
+
+        ContextPathWebFilter(String contextPath) {
+            this.contextPath = contextPath;
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+            if (!exchange.getRequest().getURI().getRawPath().startsWith(this.contextPath + "/")) {
+                exchange.getResponse().setStatusCode(HttpStatus.NOT_FOUND);
+                return exchange.getResponse().setComplete();
+            }
+            return chain.filter(exchange.mutate()
+                    .request(exchange.getRequest().mutate().contextPath(this.contextPath).build()).build());
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+
+}
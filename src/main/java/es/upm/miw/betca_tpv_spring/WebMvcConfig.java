@@ -1,15 +1,19 @@
 package es.upm.miw.betca_tpv_spring;
 
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+@Profile("!reactive")
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
     @Override
     public void addCorsMappings(CorsRegistry registry) {
-        registry.addMapping("/**").allowedMethods("*").allowedOrigins("*").maxAge(3600);
+        registry.addMapping("/**").allowedMethods("*").allowedOrigins("*")
+                .exposedHeaders(KeysetPage.NEXT_CURSOR).maxAge(3600);
     }
 
 }
@@ -1,12 +1,17 @@
 package es.upm.miw.betca_tpv_spring.api_rest_controllers;
 
 import es.upm.miw.betca_tpv_spring.business_controllers.AdminController;
+import es.upm.miw.betca_tpv_spring.dtos.ArticleCacheStatsDto;
+import es.upm.miw.betca_tpv_spring.dtos.PdfRenderStatsDto;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @PreAuthorize("hasRole('ADMIN')")
 @RestController
@@ -15,6 +20,13 @@ public class AdminResource {
 
     public static final String ADMINS = "/admins";
     public static final String DB = "/db";
+    public static final String PDF_RENDER = "/pdf-render";
+    public static final String ARTICLE_CACHE = "/article-cache";
+    public static final String VAT_ROLLUPS = "/vat-rollups";
+    public static final String SHOPPING_TAX_MIGRATION = "/shopping-tax-migration";
+    public static final String SALES_DAILY = "/sales-daily";
+    public static final String TICKET_SEARCH_MIGRATION = "/ticket-search-migration";
+    public static final String PENDING_DELIVERIES = "/pending-deliveries";
 
     private AdminController adminController;
 
@@ -24,12 +36,49 @@ public class AdminResource {
     }
 
     @DeleteMapping(value = DB)
-    public void deleteDb() {
-        this.adminController.deleteDb();
+    public Mono<Void> deleteDb() {
+        return Mono.fromRunnable(this.adminController::deleteDb)
+                .subscribeOn(Schedulers.elastic()).then();
     }
 
     @PostMapping(value = DB)
-    public void seedDb() {
-        this.adminController.seedDataBaseJava();
+    public Mono<Void> seedDb() {
+        return Mono.fromRunnable(this.adminController::seedDataBaseJava)
+                .subscribeOn(Schedulers.elastic()).then();
+    }
+
+    @GetMapping(value = PDF_RENDER)
+    public Mono<PdfRenderStatsDto> readPdfRenderStats() {
+        return Mono.fromSupplier(this.adminController::readPdfRenderStats);
+    }
+
+    @GetMapping(value = ARTICLE_CACHE)
+    public Mono<ArticleCacheStatsDto> readArticleCacheStats() {
+        return Mono.fromSupplier(this.adminController::readArticleCacheStats);
+    }
+
+    @PostMapping(value = VAT_ROLLUPS)
+    public Mono<Void> rebuildVatRollups() {
+        return this.adminController.rebuildVatRollups();
+    }
+
+    @PostMapping(value = SHOPPING_TAX_MIGRATION)
+    public Mono<Long> migrateShoppingTax() {
+        return this.adminController.migrateShoppingTax();
+    }
+
+    @PostMapping(value = SALES_DAILY)
+    public Mono<Void> rebuildSalesDaily() {
+        return this.adminController.rebuildSalesDaily();
+    }
+
+    @PostMapping(value = TICKET_SEARCH_MIGRATION)
+    public Mono<Long> migrateTicketSearch() {
+        return this.adminController.migrateTicketSearch();
+    }
+
+    @PostMapping(value = PENDING_DELIVERIES)
+    public Mono<Void> rebuildPendingDeliveries() {
+        return this.adminController.rebuildPendingDeliveries();
     }
 }
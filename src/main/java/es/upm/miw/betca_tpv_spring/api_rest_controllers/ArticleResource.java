@@ -1,11 +1,14 @@
 package es.upm.miw.betca_tpv_spring.api_rest_controllers;
 
 import es.upm.miw.betca_tpv_spring.business_controllers.ArticleController;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
 import es.upm.miw.betca_tpv_spring.dtos.ArticleAdvancedSearchDto;
 import es.upm.miw.betca_tpv_spring.dtos.ArticleDto;
 import es.upm.miw.betca_tpv_spring.dtos.ArticleSearchDto;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
@@ -13,6 +16,7 @@ import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
 import java.math.BigDecimal;
+import java.util.List;
 
 @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('OPERATOR')")
 @RestController
@@ -24,6 +28,7 @@ public class ArticleResource {
     public static final String SEARCH = "/search";
     public static final String ADVANCEDSEARCH = "/advancedSearch";
     public static final String SEARCH_INCOMPLETED_ARTICLES = "/searchIncompletedArticles";
+    public static final String STREAM = "/stream";
     private ArticleController articleController;
 
     @Autowired
@@ -38,9 +43,16 @@ public class ArticleResource {
     }
 
     @GetMapping
-    public Flux<ArticleDto> readAll() {
-        return this.articleController.readAll()
-                .doOnNext(log -> LogManager.getLogger(this.getClass()).debug(log));
+    public Mono<ResponseEntity<List<ArticleDto>>> readAll(@RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = KeysetPage.DEFAULT_LIMIT) int limit) {
+        return this.articleController.readPage(cursor, limit)
+                .doOnNext(log -> LogManager.getLogger(this.getClass()).debug(log))
+                .map(KeysetResponse::of);
+    }
+
+    @GetMapping(value = STREAM, produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<ArticleDto> readAllStream() {
+        return this.articleController.readAll();
     }
 
     @PostMapping
@@ -10,7 +10,6 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
-import java.io.IOException;
 import java.util.List;
 
 @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('OPERATOR')")
@@ -28,17 +27,17 @@ public class ArticlesFamilyResource {
     private ArticlesFamilyController articlesFamilyController;
 
     @GetMapping(value = FAMILY_COMPOSITE)
-    public List<ArticleFamilyCompleteDto> readInFamilyComposite(@Valid @RequestParam String description) {
+    public Mono<List<ArticleFamilyCompleteDto>> readInFamilyComposite(@Valid @RequestParam String description) {
         return articlesFamilyController.readFamilyCompositeArticlesList(description);
     }
 
     @GetMapping(value = SIZES)
-    public List<String> readSizes() throws IOException {
-        return articlesFamilyController.readSizes();
+    public Mono<List<String>> readSizes() {
+        return Mono.just(articlesFamilyController.readSizes());
     }
 
     @PostMapping
-    public Mono<ArticlesFamilyDto> createArticleFamily(@Valid @RequestBody FamilyCompleteDto articleFamilyDto) throws IOException {
+    public Mono<ArticlesFamilyDto> createArticleFamily(@Valid @RequestBody FamilyCompleteDto articleFamilyDto) {
         return articlesFamilyController.createArticleFamily(articleFamilyDto);
     }
 
@@ -1,11 +1,14 @@
 package es.upm.miw.betca_tpv_spring.api_rest_controllers;
 
 import es.upm.miw.betca_tpv_spring.business_controllers.InvoiceController;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
 import es.upm.miw.betca_tpv_spring.dtos.InvoiceNegativeCreationInputDto;
 import es.upm.miw.betca_tpv_spring.dtos.InvoiceOutputDto;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
@@ -13,6 +16,7 @@ import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
 import java.time.LocalDate;
+import java.util.List;
 
 @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('OPERATOR')")
 @RestController
@@ -24,6 +28,7 @@ public class InvoiceResource {
     public static final String PRINT = "/print";
     public static final String NEGATIVE = "/negative";
     public static final String SEARCH = "/search";
+    public static final String STREAM = "/stream";
 
     private InvoiceController invoiceController;
 
@@ -51,9 +56,16 @@ public class InvoiceResource {
     }
 
     @GetMapping()
-    public Flux<InvoiceOutputDto> getAll() {
-        return this.invoiceController.getAll()
-                .doOnNext(log -> LogManager.getLogger(this.getClass()).debug(log));
+    public Mono<ResponseEntity<List<InvoiceOutputDto>>> getAll(@RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = KeysetPage.DEFAULT_LIMIT) int limit) {
+        return this.invoiceController.readPage(cursor, limit)
+                .doOnNext(log -> LogManager.getLogger(this.getClass()).debug(log))
+                .map(KeysetResponse::of);
+    }
+
+    @GetMapping(value = STREAM, produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<InvoiceOutputDto> getAllStream() {
+        return this.invoiceController.getAll();
     }
 
     @GetMapping(value = SEARCH)
@@ -0,0 +1,22 @@
+package es.upm.miw.betca_tpv_spring.api_rest_controllers;
+
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+final class KeysetResponse {
+
+    private KeysetResponse() {
+        // static class
+    }
+
+    static <T> ResponseEntity<List<T>> of(KeysetPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNext() != null) {
+            response.header(KeysetPage.NEXT_CURSOR, page.getNext());
+        }
+        return response.body(page.getContent());
+    }
+
+}
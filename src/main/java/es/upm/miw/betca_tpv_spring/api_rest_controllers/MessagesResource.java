@@ -1,10 +1,13 @@
 package es.upm.miw.betca_tpv_spring.api_rest_controllers;
 
 import es.upm.miw.betca_tpv_spring.business_controllers.MessagesController;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
 import es.upm.miw.betca_tpv_spring.dtos.MessagesCreationDto;
 import es.upm.miw.betca_tpv_spring.dtos.MessagesOutputDto;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
@@ -13,6 +16,7 @@ import reactor.core.publisher.Mono;
 import javax.validation.Valid;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('OPERATOR')")
 @RestController
@@ -24,6 +28,7 @@ public class MessagesResource {
     public static final String UNREAD = "/unread";
     public static final String TO_USER = "/to-user";
     public static final String MOBILE = "/{toUserMobile}";
+    public static final String STREAM = "/stream";
 
     private MessagesController messagesController;
 
@@ -33,9 +38,16 @@ public class MessagesResource {
     }
 
     @GetMapping
-    public Flux<MessagesOutputDto> readAll() {
-        return this.messagesController.readAll()
-                .doOnEach(log -> LogManager.getLogger(this.getClass()).debug(log));
+    public Mono<ResponseEntity<List<MessagesOutputDto>>> readAll(@RequestParam(required = false) String cursor,
+                                                                 @RequestParam(defaultValue = KeysetPage.DEFAULT_LIMIT) int limit) {
+        return this.messagesController.readPage(cursor, limit)
+                .doOnNext(log -> LogManager.getLogger(this.getClass()).debug(log))
+                .map(KeysetResponse::of);
+    }
+
+    @GetMapping(value = STREAM, produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<MessagesOutputDto> readAllStream() {
+        return this.messagesController.readAll();
     }
 
     @GetMapping(value = MESSAGES_ID)
@@ -1,17 +1,21 @@
 package es.upm.miw.betca_tpv_spring.api_rest_controllers;
 
 import es.upm.miw.betca_tpv_spring.business_controllers.ProviderController;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
 import es.upm.miw.betca_tpv_spring.dtos.ProviderCreationDto;
 import es.upm.miw.betca_tpv_spring.dtos.ProviderDto;
 import es.upm.miw.betca_tpv_spring.dtos.ProviderSearchDto;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
+import java.util.List;
 
 @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('OPERATOR')")
 @RestController
@@ -20,6 +24,7 @@ public class ProviderResource {
 
     public static final String PROVIDERS = "/providers";
     public static final String ID = "/{id}";
+    public static final String STREAM = "/stream";
 
     private ProviderController providerController;
 
@@ -29,19 +34,29 @@ public class ProviderResource {
     }
 
     @GetMapping
-    public Flux<ProviderDto> search(@RequestParam(required = false) String company,
-                                    @RequestParam(required = false) String nif,
-                                    @RequestParam(required = false) String phone) {
+    public Mono<ResponseEntity<List<ProviderDto>>> search(@RequestParam(required = false) String company,
+                                                          @RequestParam(required = false) String nif,
+                                                          @RequestParam(required = false) String phone,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = KeysetPage.DEFAULT_LIMIT) int limit) {
         ProviderSearchDto providerSearchDto = new ProviderSearchDto(company, nif, phone);
         if (company == null && nif == null && phone == null) {
-            return this.providerController.readAll()
-                    .doOnEach(log -> LogManager.getLogger(this.getClass()).debug(log));
+            return this.providerController.readPage(cursor, limit)
+                    .doOnNext(log -> LogManager.getLogger(this.getClass()).debug(log))
+                    .map(KeysetResponse::of);
         } else {
             return this.providerController.search(providerSearchDto)
-                    .doOnEach(log -> LogManager.getLogger(this.getClass()).debug(log));
+                    .doOnEach(log -> LogManager.getLogger(this.getClass()).debug(log))
+                    .collectList()
+                    .map(ResponseEntity::ok);
         }
     }
 
+    @GetMapping(value = STREAM, produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<ProviderDto> readAllStream() {
+        return this.providerController.readAll();
+    }
+
     @PostMapping(produces = {"application/json"})
     public Mono<ProviderDto> create(@RequestBody ProviderCreationDto providerCreationDto) {
         return this.providerController.create(providerCreationDto)
@@ -3,9 +3,12 @@ package es.upm.miw.betca_tpv_spring.api_rest_controllers;
 import es.upm.miw.betca_tpv_spring.business_controllers.StockAlarmController;
 import es.upm.miw.betca_tpv_spring.dtos.StockAlarmCreationDto;
 import es.upm.miw.betca_tpv_spring.dtos.StockAlarmDto;
+import es.upm.miw.betca_tpv_spring.dtos.StockAlarmEventDto;
 import es.upm.miw.betca_tpv_spring.dtos.StockAlarmSearchDto;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
@@ -20,6 +23,7 @@ public class StockAlarmResource {
     public static final String STOCK_ALARMS = "/stock-alarms";
     public static final String STOCK_ALARMS_ID = "/{stockAlarmId}";
     public static final String STOCK_ALARMS_SEARCH = "/{searchArticleState}";
+    public static final String EVENTS = "/events";
 
     private StockAlarmController stockAlarmController;
 
@@ -52,6 +56,12 @@ public class StockAlarmResource {
                 .doOnNext(log -> LogManager.getLogger(this.getClass()).debug(log));
     }
 
+    @GetMapping(value = EVENTS, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<StockAlarmEventDto>> readEvents() {
+        return this.stockAlarmController.readEvents()
+                .map(event -> ServerSentEvent.builder(event).id(event.getCode()).event(event.getLevel().name()).build());
+    }
+
     @GetMapping(value = STOCK_ALARMS_SEARCH)
     public Flux<StockAlarmSearchDto> searchWarning(@PathVariable String searchArticleState) {
         return this.stockAlarmController.getAllArticlesInStockAlarm(searchArticleState)
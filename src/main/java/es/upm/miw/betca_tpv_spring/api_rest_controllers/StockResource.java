@@ -18,6 +18,7 @@ import java.time.format.DateTimeFormatter;
 public class StockResource {
     public static final String STOCK = "/stock";
     public static final String CODE_ID = "/{code}";
+    public static final String BEST_SELLERS = "/best-sellers";
 
     private StockController stockController;
 
@@ -27,11 +28,18 @@ public class StockResource {
     }
 
     @GetMapping
-    public Flux<ArticleStockDto> readAll(@RequestParam(required = false) Integer minimumStock, @RequestParam(required = false) String initDate, @RequestParam(required = false) String endDate) {
+    public Flux<ArticleStockDto> readAll(@RequestParam(required = false) Integer minimumStock, @RequestParam(required = false) String initDate, @RequestParam(required = false) String endDate,
+                                         @RequestParam(required = false) String afterCode, @RequestParam(required = false) Integer limit) {
         LocalDateTime initDateTime = initDate == null || initDate.isEmpty() ? null : LocalDateTime.parse(initDate, DateTimeFormatter.ISO_DATE_TIME);
         LocalDateTime endDateTime = endDate == null || endDate.isEmpty() ? null : LocalDateTime.parse(endDate, DateTimeFormatter.ISO_DATE_TIME).plusDays(1);
 
-        return this.stockController.readAll(minimumStock, initDateTime, endDateTime)
+        return this.stockController.readAll(minimumStock, initDateTime, endDateTime, afterCode, limit)
+                .doOnNext(log -> LogManager.getLogger(this.getClass()).debug(log));
+    }
+
+    @GetMapping(value = BEST_SELLERS)
+    public Flux<ArticleStockDto> readBestSellers(@RequestParam(defaultValue = "30") int days, @RequestParam(defaultValue = "10") int limit) {
+        return this.stockController.readBestSellers(days, limit)
                 .doOnNext(log -> LogManager.getLogger(this.getClass()).debug(log));
     }
 
@@ -1,6 +1,7 @@
 package es.upm.miw.betca_tpv_spring.api_rest_controllers;
 
 import es.upm.miw.betca_tpv_spring.business_controllers.TicketController;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
 import es.upm.miw.betca_tpv_spring.documents.Ticket;
 import es.upm.miw.betca_tpv_spring.dtos.TicketCreationInputDto;
 import es.upm.miw.betca_tpv_spring.dtos.TicketOutputDto;
@@ -9,15 +10,17 @@ import es.upm.miw.betca_tpv_spring.dtos.TicketSearchDto;
 import es.upm.miw.betca_tpv_spring.exceptions.BadRequestException;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('OPERATOR')")
 @RestController
@@ -27,6 +30,7 @@ public class TicketResource {
     public static final String TICKETS = "/tickets";
     public static final String TICKET_ID = "/{id}";
     public static final String PDF = "/pdf";
+    public static final String STREAM = "/stream";
     public static final String SEARCH = "/search";
     public static final String SEARCH_BY_ARTICLE = SEARCH + "/article/{articleId}";
     public static final String SEARCH_BY_ORDER = SEARCH + "/order/{orderId}";
@@ -47,13 +51,20 @@ public class TicketResource {
     }
 
     @GetMapping
-    public Flux<TicketOutputDto> readAll() {
-        return this.ticketController.readAll()
-                .doOnEach(log -> LogManager.getLogger(this.getClass()).debug(log));
+    public Mono<ResponseEntity<List<TicketOutputDto>>> readAll(@RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = KeysetPage.DEFAULT_LIMIT) int limit) {
+        return this.ticketController.readPage(cursor, limit)
+                .doOnNext(log -> LogManager.getLogger(this.getClass()).debug(log))
+                .map(KeysetResponse::of);
+    }
+
+    @GetMapping(value = STREAM, produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<TicketOutputDto> readAllStream() {
+        return this.ticketController.readAll();
     }
 
     @GetMapping(value = TICKET_ID + PDF)
-    public byte[] getPdf(@PathVariable String id) throws IOException {
+    public Mono<byte[]> getPdf(@PathVariable String id) {
         return this.ticketController.getTicketPdf(id);
     }
 
@@ -1,19 +1,23 @@
 package es.upm.miw.betca_tpv_spring.api_rest_controllers;
 
 import es.upm.miw.betca_tpv_spring.business_controllers.UserController;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
 import es.upm.miw.betca_tpv_spring.dtos.*;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
+import java.util.List;
 import java.util.stream.Collectors;
 
 @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('OPERATOR')")
@@ -25,6 +29,7 @@ public class UserResource {
     public static final String TOKEN = "/token";
     public static final String MOBILE_ID = "/{mobile}";
     public static final String SEARCH = "/search";
+    public static final String STREAM = "/stream";
 
     private UserController userController;
 
@@ -47,17 +52,24 @@ public class UserResource {
     }
 
     @GetMapping(value = MOBILE_ID)
-    public Mono<UserDto> read(@PathVariable String mobile) {
-        return this.userController.readUser(mobile, SecurityContextHolder.getContext().getAuthentication().getName(),
-                SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
+    public Mono<UserDto> read(@PathVariable String mobile, Authentication authentication) {
+        return this.userController.readUser(mobile, authentication.getName(),
+                authentication.getAuthorities().stream()
                         .map(GrantedAuthority::getAuthority).collect(Collectors.toList()))
                 .doOnNext(log -> LogManager.getLogger(this.getClass()).debug(log));
     }
 
     @GetMapping
-    public Flux<UserMinimumDto> readAll() {
-        return this.userController.readAll()
-                .doOnEach(log -> LogManager.getLogger(this.getClass()).debug(log));
+    public Mono<ResponseEntity<List<UserMinimumDto>>> readAll(@RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = KeysetPage.DEFAULT_LIMIT) int limit) {
+        return this.userController.readPage(cursor, limit)
+                .doOnNext(log -> LogManager.getLogger(this.getClass()).debug(log))
+                .map(KeysetResponse::of);
+    }
+
+    @GetMapping(value = STREAM, produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<UserMinimumDto> readAllStream() {
+        return this.userController.readAll();
     }
 
     @PutMapping(value = MOBILE_ID)
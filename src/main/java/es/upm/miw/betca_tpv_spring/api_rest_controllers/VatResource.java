@@ -7,9 +7,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping(VatResource.VAT)
 public class VatResource {
@@ -25,7 +28,7 @@ public class VatResource {
     }
 
     @GetMapping(value = QUARTER)
-    public Mono<QuarterVATDto> readVatFromQuarter(@PathVariable Quarter quarter) {
-        return this.invoiceController.readQuarterlyVat(quarter);
+    public Mono<QuarterVATDto> readVatFromQuarter(@PathVariable Quarter quarter, @RequestParam(required = false) Integer year) {
+        return this.invoiceController.readQuarterlyVat(year == null ? LocalDate.now().getYear() : year, quarter);
     }
 }
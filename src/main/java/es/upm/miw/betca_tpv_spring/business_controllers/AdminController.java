@@ -1,17 +1,44 @@
 package es.upm.miw.betca_tpv_spring.business_controllers;
 
+import es.upm.miw.betca_tpv_spring.business_services.PdfRenderer;
+import es.upm.miw.betca_tpv_spring.data_services.ArticleCache;
 import es.upm.miw.betca_tpv_spring.data_services.DatabaseSeederService;
+import es.upm.miw.betca_tpv_spring.data_services.PendingDeliveryService;
+import es.upm.miw.betca_tpv_spring.data_services.SalesDailyService;
+import es.upm.miw.betca_tpv_spring.data_services.ShoppingTaxMigration;
+import es.upm.miw.betca_tpv_spring.data_services.TicketSearchMigration;
+import es.upm.miw.betca_tpv_spring.data_services.VatRollupService;
+import es.upm.miw.betca_tpv_spring.dtos.ArticleCacheStatsDto;
+import es.upm.miw.betca_tpv_spring.dtos.PdfRenderStatsDto;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
 
 @Controller
 public class AdminController {
 
     private final DatabaseSeederService databaseSeederService;
+    private final PdfRenderer pdfRenderer;
+    private final ArticleCache articleCache;
+    private final VatRollupService vatRollupService;
+    private final ShoppingTaxMigration shoppingTaxMigration;
+    private final SalesDailyService salesDailyService;
+    private final TicketSearchMigration ticketSearchMigration;
+    private final PendingDeliveryService pendingDeliveryService;
 
     @Autowired
-    public AdminController(DatabaseSeederService databaseSeederService) {
+    public AdminController(DatabaseSeederService databaseSeederService, PdfRenderer pdfRenderer,
+                           ArticleCache articleCache, VatRollupService vatRollupService,
+                           ShoppingTaxMigration shoppingTaxMigration, SalesDailyService salesDailyService,
+                           TicketSearchMigration ticketSearchMigration, PendingDeliveryService pendingDeliveryService) {
         this.databaseSeederService = databaseSeederService;
+        this.pdfRenderer = pdfRenderer;
+        this.articleCache = articleCache;
+        this.vatRollupService = vatRollupService;
+        this.shoppingTaxMigration = shoppingTaxMigration;
+        this.salesDailyService = salesDailyService;
+        this.ticketSearchMigration = ticketSearchMigration;
+        this.pendingDeliveryService = pendingDeliveryService;
     }
 
     public void deleteDb() {
@@ -22,4 +49,32 @@ public class AdminController {
         this.databaseSeederService.seedDataBaseJava();
     }
 
+    public PdfRenderStatsDto readPdfRenderStats() {
+        return this.pdfRenderer.stats();
+    }
+
+    public ArticleCacheStatsDto readArticleCacheStats() {
+        return this.articleCache.stats();
+    }
+
+    public Mono<Void> rebuildVatRollups() {
+        return this.vatRollupService.rebuild();
+    }
+
+    public Mono<Long> migrateShoppingTax() {
+        return this.shoppingTaxMigration.migrate();
+    }
+
+    public Mono<Void> rebuildSalesDaily() {
+        return this.salesDailyService.rebuild();
+    }
+
+    public Mono<Long> migrateTicketSearch() {
+        return this.ticketSearchMigration.migrate();
+    }
+
+    public Mono<Void> rebuildPendingDeliveries() {
+        return this.pendingDeliveryService.rebuild();
+    }
+
 }
@@ -1,6 +1,10 @@
 package es.upm.miw.betca_tpv_spring.business_controllers;
 
 import es.upm.miw.betca_tpv_spring.business_services.Barcode;
+import es.upm.miw.betca_tpv_spring.data_services.ArticleCache;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPager;
+import es.upm.miw.betca_tpv_spring.data_services.StockAlarmIndex;
 import es.upm.miw.betca_tpv_spring.documents.Article;
 import es.upm.miw.betca_tpv_spring.documents.Provider;
 import es.upm.miw.betca_tpv_spring.dtos.ArticleAdvancedSearchDto;
@@ -10,14 +14,16 @@ import es.upm.miw.betca_tpv_spring.exceptions.BadRequestException;
 import es.upm.miw.betca_tpv_spring.exceptions.ConflictException;
 import es.upm.miw.betca_tpv_spring.exceptions.NotFoundException;
 import es.upm.miw.betca_tpv_spring.repositories.ArticleReactRepository;
-import es.upm.miw.betca_tpv_spring.repositories.ArticleRepository;
 import es.upm.miw.betca_tpv_spring.repositories.ProviderReactRepository;
-import es.upm.miw.betca_tpv_spring.repositories.ProviderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collections;
+import java.util.Optional;
+
 @Controller
 public class ArticleController {
 
@@ -25,17 +31,20 @@ public class ArticleController {
 
     private ArticleReactRepository articleReactRepository;
     private ProviderReactRepository providerReactRepository;
-    private ProviderRepository providerRepository;
-    private ArticleRepository articleRepository;
+    private ArticleCache articleCache;
+    private StockAlarmIndex stockAlarmIndex;
+    private KeysetPager keysetPager;
     private long eanCode;
 
     @Autowired
     public ArticleController(ArticleReactRepository articleReactRepository,
-                             ProviderReactRepository providerReactRepository, ProviderRepository providerRepository, ArticleRepository articleRepository) {
+                             ProviderReactRepository providerReactRepository,
+                             ArticleCache articleCache, StockAlarmIndex stockAlarmIndex, KeysetPager keysetPager) {
         this.articleReactRepository = articleReactRepository;
         this.providerReactRepository = providerReactRepository;
-        this.providerRepository = providerRepository;
-        this.articleRepository = articleRepository;
+        this.articleCache = articleCache;
+        this.stockAlarmIndex = stockAlarmIndex;
+        this.keysetPager = keysetPager;
         this.eanCode = FIRST_CODE_ARTICLE;
     }
 
@@ -51,6 +60,10 @@ public class ArticleController {
                 .map(ArticleDto::new);
     }
 
+    public Mono<KeysetPage<ArticleDto>> readPage(String cursor, int limit) {
+        return this.keysetPager.page(new Query(), Article.class, "_id", Article::getCode, ArticleDto::new, cursor, limit);
+    }
+
     private Mono<Void> noExistsByIdAssured(String id) {
         return this.articleReactRepository.existsById(id)
                 .handle((result, sink) -> {
@@ -62,12 +75,22 @@ public class ArticleController {
                 });
     }
 
-    public Mono<ArticleDto> createArticle(ArticleDto articleDto) {
-        String code = articleDto.getCode();
-        if (code == null || !code.substring(0,6).equals("840000")) {
-            System.out.println(code.substring(0,6).equals("840000"));
-            code = new Barcode().generateEan13code(Long.parseLong(this.articleRepository.findFirstByOrderByCodeDesc().getCode().substring(0, 12)) + 1);
+    private Mono<String> articleCode(String code) {
+        if (code != null && code.startsWith("840000")) {
+            return Mono.just(code);
         }
+        return this.articleReactRepository.findFirstByOrderByCodeDesc()
+                .map(last -> Long.parseLong(last.getCode().substring(0, 12)) + 1)
+                .defaultIfEmpty(FIRST_CODE_ARTICLE)
+                .map(new Barcode()::generateEan13code);
+    }
+
+    public Mono<ArticleDto> createArticle(ArticleDto articleDto) {
+        return this.articleCode(articleDto.getCode())
+                .flatMap(code -> this.createArticle(code, articleDto));
+    }
+
+    private Mono<ArticleDto> createArticle(String code, ArticleDto articleDto) {
         if (code.length() > 13 || Long.parseLong(code.substring(6, 12)) > 99999L) {
             return Mono.error(new BadRequestException("Index out of range"));
         }
@@ -77,26 +100,30 @@ public class ArticleController {
                 .retailPrice(articleDto.getRetailPrice()).reference(articleDto.getReference()).stock(stock).build();
         if (articleDto.getTax() != null)
             article.setTax(articleDto.getTax());
-        Mono<Void> provider;
-        if (articleDto.getProvider() == null) {
-            provider = Mono.empty();
-        } else {
-            provider = this.providerReactRepository.findById(articleDto.getProvider())
-                    .switchIfEmpty(Mono.error(new NotFoundException("Provider (" + articleDto.getProvider() + ")")))
-                    .doOnNext(article::setProvider).then();
-        }
+        Mono<Void> provider = this.provider(articleDto.getProvider())
+                .doOnNext(article::setProvider).then();
         return Mono
                 .when(noExistsByIdAssured, provider)
                 .then(this.articleReactRepository.save(article))
+                .doOnNext(saved -> this.articleCache.invalidate(saved.getCode()))
                 .map(ArticleDto::new);
     }
 
+    private Mono<Provider> provider(String id) {
+        if (id == null) {
+            return Mono.empty();
+        }
+        return this.providerReactRepository.findById(id)
+                .switchIfEmpty(Mono.error(new NotFoundException("Provider (" + id + ")")));
+    }
+
     public Mono<ArticleDto> updateArticle(String code, ArticleDto articleDto) {
-        Provider provider = this.providerRepository.findById(articleDto.getProvider()).get();
-        Mono<Article> article = this.articleReactRepository.findById(code).
-                switchIfEmpty(Mono.error(new NotFoundException("Article id " + articleDto.getCode())))
-                .map(article1 -> {
-                    article1.setProvider(provider);
+        Mono<Article> article = this.articleReactRepository.findById(code)
+                .switchIfEmpty(Mono.error(new NotFoundException("Article id " + articleDto.getCode())));
+        return Mono.zip(article, this.provider(articleDto.getProvider()).map(Optional::of).defaultIfEmpty(Optional.empty()))
+                .map(articleAndProvider -> {
+                    Article article1 = articleAndProvider.getT1();
+                    articleAndProvider.getT2().ifPresent(article1::setProvider);
                     article1.setDescription(articleDto.getDescription());
                     article1.setStock(articleDto.getStock());
                     article1.setDiscontinued(articleDto.getDiscontinued());
@@ -105,13 +132,11 @@ public class ArticleController {
                     if (articleDto.getTax() != null)
                         article1.setTax(articleDto.getTax());
                     return article1;
-                });
-
-        return Mono.
-                when(article).
-                then(this.articleReactRepository.saveAll(article).next().map(ArticleDto::new));
-
-
+                })
+                .flatMap(this.articleReactRepository::save)
+                .doOnNext(saved -> this.articleCache.invalidate(saved.getCode()))
+                .flatMap(saved -> this.stockAlarmIndex.evaluate(Collections.singletonList(saved.getCode())).thenReturn(saved))
+                .map(ArticleDto::new);
     }
 
     public Flux<ArticleDto> searchArticleByDescriptionOrProvider(ArticleSearchDto articleSearchDto) {
@@ -18,71 +18,68 @@ import java.util.*;
 @Controller
 public class ArticlesFamilyController {
 
-    @Autowired
-    private FamilyCompositeRepository familyCompositeRepository;
-
-    @Autowired
-    private ArticleRepository articleRepository;
-
-    @Autowired
+    private FamilyCompositeReactRepository familyCompositeReactRepository;
     private ArticlesFamilyReactRepository articlesFamilyReactRepository;
-
-    @Autowired
-    private ProviderRepository providerRepository;
-
-    @Autowired
-    private ArticlesFamilyRepository articlesFamilyRepository;
-
-    @Autowired
     private ArticleReactRepository articleReactRepository;
+    private ProviderReactRepository providerReactRepository;
+    private List<String> sizes;
 
     @Autowired
-    private ProviderReactRepository providerReactRepository;
+    public ArticlesFamilyController(FamilyCompositeReactRepository familyCompositeReactRepository,
+                                    ArticlesFamilyReactRepository articlesFamilyReactRepository,
+                                    ArticleReactRepository articleReactRepository,
+                                    ProviderReactRepository providerReactRepository) throws IOException {
+        this.familyCompositeReactRepository = familyCompositeReactRepository;
+        this.articlesFamilyReactRepository = articlesFamilyReactRepository;
+        this.articleReactRepository = articleReactRepository;
+        this.providerReactRepository = providerReactRepository;
+        this.sizes = this.loadSizes();
+    }
 
-    private List<String> getSizes() throws IOException {
+    private List<String> loadSizes() throws IOException {
         String propFileName = "config.properties";
-        InputStream inputStream = getClass().getClassLoader().getResourceAsStream(propFileName);
-        Properties prop = new Properties();
-        prop.load(inputStream);
-        return Arrays.asList(prop.getProperty("sizes").split(","));
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(propFileName)) {
+            Properties prop = new Properties();
+            prop.load(inputStream);
+            return Collections.unmodifiableList(Arrays.asList(prop.getProperty("sizes").split(",")));
+        }
+    }
+
+    public Mono<List<ArticleFamilyCompleteDto>> readFamilyCompositeArticlesList(String description) {
+        return this.familyCompositeReactRepository.findFirstByDescription(description)
+                .single()
+                .flatMapMany(familyComplete -> Flux.fromIterable(familyComplete.getArticlesFamilyList())
+                        .concatMap(articlesFamily -> this.readFamilyCompleteDto(familyComplete.getFamilyType(), articlesFamily)))
+                .collectList();
     }
 
-    public List<ArticleFamilyCompleteDto> readFamilyCompositeArticlesList(String description) {
-        FamilyComposite familyComplete = familyCompositeRepository.findFirstByDescription(description);
-        List<ArticleFamilyCompleteDto> dtos = new ArrayList<>();
-
-        if (familyComplete.getFamilyType() == FamilyType.ARTICLES) {
-            for (ArticlesFamily articlesFamily : familyComplete.getArticlesFamilyList()) {
-                if (articlesFamily.getFamilyType() == FamilyType.ARTICLES) {
-                    dtos.add(new ArticleFamilyCompleteDto(articlesFamily.getFamilyType(), articlesFamily.getDescription(), articlesFamily.getArticlesFamilyList()));
-                }
-                if (articlesFamily.getFamilyType() == FamilyType.ARTICLE) {
-                    Article article = articleRepository.findByCode(articlesFamily.getArticleIdList().get(0));
-                    dtos.add(new ArticleFamilyCompleteDto(articlesFamily.getFamilyType(), article.getCode(), article.getDescription(), article.getRetailPrice()));
-                }
-                if (articlesFamily.getFamilyType() == FamilyType.SIZES) {
-                    dtos.add(new ArticleFamilyCompleteDto(articlesFamily.getFamilyType(), articlesFamily.getReference(), articlesFamily.getDescription()));
-                }
+    private Mono<ArticleFamilyCompleteDto> readFamilyCompleteDto(FamilyType familyType, ArticlesFamily articlesFamily) {
+        if (familyType == FamilyType.ARTICLES) {
+            if (articlesFamily.getFamilyType() == FamilyType.ARTICLES) {
+                return Mono.just(new ArticleFamilyCompleteDto(articlesFamily.getFamilyType(), articlesFamily.getDescription(), articlesFamily.getArticlesFamilyList()));
+            }
+            if (articlesFamily.getFamilyType() == FamilyType.ARTICLE) {
+                return this.articleReactRepository.findById(articlesFamily.getArticleIdList().get(0))
+                        .map(article -> new ArticleFamilyCompleteDto(articlesFamily.getFamilyType(), article.getCode(), article.getDescription(), article.getRetailPrice()));
             }
-        } else if (familyComplete.getFamilyType() == FamilyType.SIZES) {
-            for (ArticlesFamily articlesFamily : familyComplete.getArticlesFamilyList()) {
-                Article article = articleRepository.findByCode(articlesFamily.getArticleIdList().get(0));
-                dtos.add(new ArticleFamilyCompleteDto(article.getReference().split("T")[1], article.getStock(), article.getRetailPrice(), article.getCode()));
+            if (articlesFamily.getFamilyType() == FamilyType.SIZES) {
+                return Mono.just(new ArticleFamilyCompleteDto(articlesFamily.getFamilyType(), articlesFamily.getReference(), articlesFamily.getDescription()));
             }
+        } else if (familyType == FamilyType.SIZES) {
+            return this.articleReactRepository.findById(articlesFamily.getArticleIdList().get(0))
+                    .map(article -> new ArticleFamilyCompleteDto(article.getReference().split("T")[1], article.getStock(), article.getRetailPrice(), article.getCode()));
         }
-        return dtos;
-
+        return Mono.empty();
     }
 
-    public List<String> readSizes() throws IOException {
-        return getSizes();
+    public List<String> readSizes() {
+        return this.sizes;
     }
 
-    public Mono<ArticlesFamilyDto> createArticleFamily(FamilyCompleteDto articlesFamilyDto) throws IOException {
-        List<String> sizes = getSizes();
+    public Mono<ArticlesFamilyDto> createArticleFamily(FamilyCompleteDto articlesFamilyDto) {
         Flux<Provider> provider =  this.providerReactRepository.findById(articlesFamilyDto.getProvider())
         .switchIfEmpty(Mono.error(new NotFoundException("Provider (" + articlesFamilyDto.getProvider() + ")"))).flux();
-        Flux<Article> fluxArticles = provider.flatMap(s-> createArticles(s,articlesFamilyDto,sizes));
+        Flux<Article> fluxArticles = provider.flatMap(s-> createArticles(s,articlesFamilyDto,this.sizes));
         Flux<ArticlesFamily> articlesFamilyFlux = fluxArticles.flatMap(this::createLeaf);
         ArticlesFamily familyCompositeSizesList = new FamilyComposite(FamilyType.SIZES, articlesFamilyDto.getReference(), articlesFamilyDto.getDescription());
         Mono<Void> finalFlux = articlesFamilyFlux.doOnNext(familyCompositeSizesList::add).then();
@@ -140,63 +137,63 @@ public class ArticlesFamilyController {
                 .map(ArticlesFamilyCrudDto::new);
     }
 
+    private Flux<ArticlesFamily> readArticlesFamilyList(String[] articlesFamilyListId) {
+        if (articlesFamilyListId == null) {
+            return Flux.empty();
+        }
+        return Flux.fromArray(articlesFamilyListId)
+                .concatMap(this.articlesFamilyReactRepository::findById);
+    }
+
     public Mono<ArticlesFamilyCrudDto> createArticlesFamily(ArticlesFamilyCreationDto articlesFamilyCreationDto) {
-        ArticlesFamily articlesFamily;
+        Mono<ArticlesFamily> articlesFamily;
 
         if (articlesFamilyCreationDto.getFamilyType() == FamilyType.ARTICLE) {
-
-            Article article = this.articleRepository.findById(articlesFamilyCreationDto.getArticle()).get();
-            articlesFamily = new FamilyArticle(article);
-
+            articlesFamily = this.articleReactRepository.findById(articlesFamilyCreationDto.getArticle())
+                    .single()
+                    .map(FamilyArticle::new);
         } else {
             FamilyComposite familyComposite = new FamilyComposite(articlesFamilyCreationDto.getFamilyType(),
                     articlesFamilyCreationDto.getReference(),
                     articlesFamilyCreationDto.getDescription());
-            if (articlesFamilyCreationDto.getArticlesFamilyListId() != null && articlesFamilyCreationDto.getArticlesFamilyListId().length > 0) {
-                for (int i = 0; i < articlesFamilyCreationDto.getArticlesFamilyListId().length; i++) {
-                    String articleFamilyId = articlesFamilyCreationDto.getArticlesFamilyListId()[i];
-                    if (this.articlesFamilyRepository.findById(articleFamilyId).isPresent()) {
-                        familyComposite.add(this.articlesFamilyRepository.findById(articleFamilyId).get());
-                    }
-                }
-            }
-            articlesFamily = familyComposite;
+            articlesFamily = this.readArticlesFamilyList(articlesFamilyCreationDto.getArticlesFamilyListId())
+                    .doOnNext(familyComposite::add)
+                    .then(Mono.just(familyComposite));
         }
 
-        return this.articlesFamilyReactRepository.save(articlesFamily)
+        return articlesFamily
+                .flatMap(this.articlesFamilyReactRepository::save)
                 .map(ArticlesFamilyCrudDto::new);
 
     }
 
     public Mono<ArticlesFamilyCrudDto> updateArticlesFamily(String id, ArticlesFamilyCreationDto articlesFamilyCreationDto) {
-        Mono<ArticlesFamily> articlesFamily = this.articlesFamilyReactRepository.findById(id)
+        return this.articlesFamilyReactRepository.findById(id)
                 .switchIfEmpty(Mono.error(new NotFoundException("ArticlesFamily id " + articlesFamilyCreationDto.getId())))
-                .map(articlesFamily1 -> {
-                    articlesFamily1.setFamilyType(articlesFamilyCreationDto.getFamilyType());
-                    articlesFamily1.setReference(articlesFamilyCreationDto.getReference());
-                    if(articlesFamilyCreationDto.getDescription() != null)articlesFamily1.setDescription(articlesFamilyCreationDto.getDescription());
+                .flatMap(articlesFamily -> {
+                    articlesFamily.setFamilyType(articlesFamilyCreationDto.getFamilyType());
+                    articlesFamily.setReference(articlesFamilyCreationDto.getReference());
+                    if (articlesFamilyCreationDto.getDescription() != null)
+                        articlesFamily.setDescription(articlesFamilyCreationDto.getDescription());
                     if (articlesFamilyCreationDto.getFamilyType() != FamilyType.ARTICLE) {
-                        if (articlesFamilyCreationDto.getArticlesFamilyListId() != null && articlesFamilyCreationDto.getArticlesFamilyListId().length > 0) {
-                            articlesFamily1.clearArticleFamilyList();
-
-                            for (int i = 0; i < articlesFamilyCreationDto.getArticlesFamilyListId().length; i++) {
-                                String articleFamilyId = articlesFamilyCreationDto.getArticlesFamilyListId()[i];
-                                if (this.articlesFamilyRepository.findById(articleFamilyId).isPresent()) {
-                                    articlesFamily1.add(this.articlesFamilyRepository.findById(articleFamilyId).get());
-                                }
-                            }
+                        String[] articlesFamilyListId = articlesFamilyCreationDto.getArticlesFamilyListId();
+                        if (articlesFamilyListId == null || articlesFamilyListId.length == 0) {
+                            return Mono.just(articlesFamily);
                         }
+                        // Replaced, not cleared: the lazy DBRef list would be resolved just to be emptied
+                        articlesFamily.setArticlesFamilyList(new ArrayList<>());
+                        return this.readArticlesFamilyList(articlesFamilyListId)
+                                .doOnNext(articlesFamily::add)
+                                .then(Mono.just(articlesFamily));
                     } else {
-                        if (this.articleRepository.findById(articlesFamilyCreationDto.getArticle()).isPresent()) {
-                            articlesFamily1.setArticle(this.articleRepository.findById(articlesFamilyCreationDto.getArticle()).get());
-                        }
-
+                        return Mono.justOrEmpty(articlesFamilyCreationDto.getArticle())
+                                .flatMap(this.articleReactRepository::findById)
+                                .doOnNext(articlesFamily::setArticle)
+                                .thenReturn(articlesFamily);
                     }
-                    return articlesFamily1;
-                });
-        return Mono
-                .when(articlesFamily)
-                .then(this.articlesFamilyReactRepository.saveAll(articlesFamily).next().map(ArticlesFamilyCrudDto::new));
+                })
+                .flatMap(this.articlesFamilyReactRepository::save)
+                .map(ArticlesFamilyCrudDto::new);
     }
 
     public Mono<Void> deleteArticlesFamily(String articleFamilyId){
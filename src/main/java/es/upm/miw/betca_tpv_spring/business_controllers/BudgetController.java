@@ -1,6 +1,8 @@
 package es.upm.miw.betca_tpv_spring.business_controllers;
 
 import es.upm.miw.betca_tpv_spring.business_services.PdfService;
+import es.upm.miw.betca_tpv_spring.data_services.ArticleCache;
+import es.upm.miw.betca_tpv_spring.data_services.VatRollupService;
 import es.upm.miw.betca_tpv_spring.documents.Article;
 import es.upm.miw.betca_tpv_spring.documents.Budget;
 import es.upm.miw.betca_tpv_spring.documents.Shopping;
@@ -9,7 +11,6 @@ import es.upm.miw.betca_tpv_spring.dtos.BudgetCreationInputDto;
 import es.upm.miw.betca_tpv_spring.dtos.BudgetDto;
 import es.upm.miw.betca_tpv_spring.dtos.ShoppingDto;
 import es.upm.miw.betca_tpv_spring.exceptions.NotFoundException;
-import es.upm.miw.betca_tpv_spring.repositories.ArticleReactRepository;
 import es.upm.miw.betca_tpv_spring.repositories.BudgetReactRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
@@ -20,19 +21,24 @@ import reactor.core.publisher.Mono;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Controller
 public class BudgetController {
 
     private PdfService pdfService;
     private BudgetReactRepository budgetReactRepository;
-    private ArticleReactRepository articleReactRepository;
+    private ArticleCache articleCache;
+    private VatRollupService vatRollupService;
     @Autowired
-    public BudgetController(BudgetReactRepository budgetReactRepository, PdfService pdfService, ArticleReactRepository articleReactRepository) {
+    public BudgetController(BudgetReactRepository budgetReactRepository, PdfService pdfService, ArticleCache articleCache,
+                            VatRollupService vatRollupService) {
         this.budgetReactRepository = budgetReactRepository;
         this.pdfService = pdfService;
-        this.articleReactRepository = articleReactRepository;
+        this.articleCache = articleCache;
+        this.vatRollupService = vatRollupService;
     }
 
     public Mono<BudgetDto> readBudget(String code) {
@@ -61,7 +67,7 @@ public class BudgetController {
 
     private Mono<ShoppingDto> getActualArticle(ShoppingDto shDto){
         ShoppingDto shoppingDtoReturn = new ShoppingDto();
-        Mono<Article> shoppingDtoMono= this.articleReactRepository.findById(shDto.getCode()).doOnNext(articleFor -> {
+        Mono<Article> shoppingDtoMono= this.articleCache.findById(shDto.getCode()).doOnNext(articleFor -> {
             if (articleFor.getRetailPrice().compareTo(shDto.getRetailPrice()) < 0) {
                 shDto.setRetailPrice(articleFor.getRetailPrice());
                 shDto.setDiscount(BigDecimal.ZERO);
@@ -93,7 +99,13 @@ public class BudgetController {
                         shoppingDto.getCode(), shoppingDto.getDescription(), shoppingDto.getRetailPrice()))
                 .toArray(Shopping[]::new);
         Budget budget = new Budget(shoppingArray);
-        return this.budgetReactRepository.save(budget);
+        List<String> codes = Arrays.stream(shoppingArray).map(Shopping::getArticleId).collect(Collectors.toList());
+        return this.articleCache.findAllById(codes)
+                .collectMap(Article::getCode, Article::getTax)
+                .doOnNext(taxes -> Arrays.stream(shoppingArray)
+                        .filter(shopping -> taxes.containsKey(shopping.getArticleId()))
+                        .forEach(shopping -> this.vatRollupService.snapshotTax(shopping, taxes.get(shopping.getArticleId()))))
+                .then(this.budgetReactRepository.save(budget));
     }
 
     @Transactional
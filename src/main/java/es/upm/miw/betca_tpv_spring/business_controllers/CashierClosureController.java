@@ -1,5 +1,6 @@
 package es.upm.miw.betca_tpv_spring.business_controllers;
 
+import es.upm.miw.betca_tpv_spring.data_services.CashierSalesService;
 import es.upm.miw.betca_tpv_spring.documents.CashierClosure;
 import es.upm.miw.betca_tpv_spring.dtos.*;
 import es.upm.miw.betca_tpv_spring.exceptions.BadRequestException;
@@ -16,10 +17,13 @@ import java.time.LocalDateTime;
 public class CashierClosureController {
 
     private CashierClosureReactRepository cashierClosureReactRepository;
+    private CashierSalesService cashierSalesService;
 
     @Autowired
-    public CashierClosureController(CashierClosureReactRepository cashierClosureReactRepository) {
+    public CashierClosureController(CashierClosureReactRepository cashierClosureReactRepository,
+                                    CashierSalesService cashierSalesService) {
         this.cashierClosureReactRepository = cashierClosureReactRepository;
+        this.cashierSalesService = cashierSalesService;
     }
 
     private Mono<CashierClosure> lastCashierClosureStateAssure(boolean opened) {
@@ -37,7 +41,9 @@ public class CashierClosureController {
     public Mono<Void> createCashierClosureOpened() {
         Mono<CashierClosure> cashierClosure = this.lastCashierClosureStateAssure(false)
                 .map(cashier -> new CashierClosure(cashier.getFinalCash()));
-        return this.cashierClosureReactRepository.saveAll(cashierClosure).then();
+        return this.cashierClosureReactRepository.saveAll(cashierClosure)
+                .doOnNext(this.cashierSalesService::opened)
+                .then();
     }
 
     public Mono<CashierLastOutputDto> findCashierClosureLast() {
@@ -46,29 +52,32 @@ public class CashierClosureController {
     }
 
     public Mono<CashierStateOutputDto> readTotalsFromLast() {
-        return this.lastCashierClosureStateAssure(true).map(
-                last -> {
-                    BigDecimal salesTotal = last.getSalesCard().add(last.getSalesCash())
-                            .add(last.getUsedVouchers());
-                    BigDecimal finalCash = last.getInitialCash().add(last.getSalesCash())
+        return this.lastCashierClosureStateAssure(true).flatMap(
+                last -> this.cashierSalesService.sales(last).map(sales -> {
+                    BigDecimal salesTotal = sales.getSalesCard().add(sales.getSalesCash())
+                            .add(sales.getUsedVouchers());
+                    BigDecimal finalCash = last.getInitialCash().add(sales.getSalesCash())
                             .add(last.getDeposit()).subtract(last.getWithdrawal());
-                    return new CashierStateOutputDto(salesTotal, last.getSalesCard(), finalCash, last.getUsedVouchers());
-                }
+                    return new CashierStateOutputDto(salesTotal, sales.getSalesCard(), finalCash, sales.getUsedVouchers());
+                })
         );
     }
 
     public Mono<Void> close(CashierClosureInputDto cashierClosureInputDto) {
         Mono<CashierClosure> cashierClosure = this.lastCashierClosureStateAssure(true)
-                .map(last -> {
+                .flatMap(last -> this.cashierSalesService.close(last).map(sales -> {
+                    last.sales(sales.getSalesCard(), sales.getSalesCash(), sales.getUsedVouchers());
                     last.close(cashierClosureInputDto.getFinalCard(), cashierClosureInputDto.getFinalCash(),
                             cashierClosureInputDto.getComment());
                     return last;
-                });
-        return this.cashierClosureReactRepository.saveAll(cashierClosure).then();
+                }));
+        return this.cashierClosureReactRepository.saveAll(cashierClosure).then()
+                .doOnError(exception -> this.cashierSalesService.reset());
     }
 
     public Mono<Void> deposit(CashMovementInputDto cashMovementInputDto) {
         Mono<CashierClosure> cashierClosure = this.lastCashierClosureStateAssure(true)
+                .flatMap(this::withOpenSales)
                 .map(last -> {
                     last.deposit(cashMovementInputDto.getCashMovement(), cashMovementInputDto.getComment());
                     return last;
@@ -78,6 +87,7 @@ public class CashierClosureController {
 
     public Mono<Void> withdrawal(CashMovementInputDto cashMovementInputDto) {
         Mono<CashierClosure> cashierClosureMono = this.lastCashierClosureStateAssure(true)
+                .flatMap(this::withOpenSales)
                 .handle((last, sink) -> {
                     BigDecimal finalCash = last.getInitialCash().add(last.getSalesCash())
                             .add(last.getDeposit()).subtract(last.getWithdrawal());
@@ -95,6 +105,7 @@ public class CashierClosureController {
     public Flux<CashierClosureSearchDto> readAll() {
         return this.cashierClosureReactRepository.findAllByClosureDateNotNull()
                 .switchIfEmpty(Flux.error(new BadRequestException("Bad Request")))
+                .concatMap(this::withOpenSales)
                 .map(CashierClosureSearchDto::new);
     }
 
@@ -108,9 +119,23 @@ public class CashierClosureController {
         }
     }
 
+    private Mono<CashierClosure> withOpenSales(CashierClosure cashierClosure) {
+        if (cashierClosure.isClosed()) {
+            return Mono.just(cashierClosure);
+        }
+        // The sales of the open closure are written behind, its document is read and written with them flushed
+        return this.cashierSalesService.flush()
+                .then(this.cashierSalesService.sales(cashierClosure))
+                .map(sales -> {
+                    cashierClosure.sales(sales.getSalesCard(), sales.getSalesCash(), sales.getUsedVouchers());
+                    return cashierClosure;
+                });
+    }
+
     private Flux<CashierClosureSearchDto> readByFinalCash(CashierClosureSearchDto cashierClosureSearchDto) {
         return this.cashierClosureReactRepository.findByFinalCashGreaterThanEqual(cashierClosureSearchDto.getFinalCash())
                 .switchIfEmpty(Flux.error(new BadRequestException("Bad Request")))
+                .concatMap(this::withOpenSales)
                 .map(CashierClosureSearchDto::new);
     }
 
@@ -123,6 +148,7 @@ public class CashierClosureController {
                 cashierClosureSearchDto.getClosureDateF().getDayOfMonth(), 23, 59, 59);
         return this.cashierClosureReactRepository.findByClosureDateBetween(fxIni, fxFin)
                 .switchIfEmpty(Flux.error(new BadRequestException("Bad Request")))
+                .concatMap(this::withOpenSales)
                 .map(CashierClosureSearchDto::new);
     }
 
@@ -135,6 +161,7 @@ public class CashierClosureController {
                 cashierClosureSearchDto.getClosureDateF().getDayOfMonth(), 23, 59, 59);
         return this.cashierClosureReactRepository.findByClosureDateBetweenAndFinalCashGreaterThanEqual(fxIni, fxFin, cashierClosureSearchDto.getFinalCash())
                 .switchIfEmpty(Flux.error(new BadRequestException("Bad Request")))
+                .concatMap(this::withOpenSales)
                 .map(CashierClosureSearchDto::new);
     }
 
@@ -29,14 +29,10 @@ public class CustomerPointsController {
     }
 
     public Mono<Void> setCustomerPointsByUserMobile(String mobile, Integer points) {
-        Mono<User> user = this.findUserByMobile(mobile);
-        Mono<CustomerPoints> customerPointsMono = this.customerPointsReactRepository.findByUser(user)
+        return this.findUserByMobile(mobile)
+                .flatMap(user -> this.customerPointsReactRepository.setPoints(user, points))
                 .switchIfEmpty(Mono.error(new NotFoundException("Customer points by user mobile:" + mobile)))
-                .map(doc -> {
-                    doc.setPoints(points);
-                    return doc;
-                });
-        return this.customerPointsReactRepository.saveAll(customerPointsMono).then();
+                .then();
     }
 
     public Mono<String> createCustomerPointsByExistingUserMobile(String mobile) {
@@ -2,6 +2,10 @@ package es.upm.miw.betca_tpv_spring.business_controllers;
 
 import es.upm.miw.betca_tpv_spring.business_services.FileService;
 import es.upm.miw.betca_tpv_spring.business_services.PdfService;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPager;
+import es.upm.miw.betca_tpv_spring.data_services.SequenceService;
+import es.upm.miw.betca_tpv_spring.data_services.VatRollupService;
 import es.upm.miw.betca_tpv_spring.documents.*;
 import es.upm.miw.betca_tpv_spring.dtos.InvoiceNegativeCreationInputDto;
 import es.upm.miw.betca_tpv_spring.dtos.InvoiceOutputDto;
@@ -9,11 +13,12 @@ import es.upm.miw.betca_tpv_spring.dtos.QuarterVATDto;
 import es.upm.miw.betca_tpv_spring.dtos.TaxDto;
 import es.upm.miw.betca_tpv_spring.exceptions.BadRequestException;
 import es.upm.miw.betca_tpv_spring.exceptions.NotFoundException;
-import es.upm.miw.betca_tpv_spring.repositories.ArticleReactRepository;
 import es.upm.miw.betca_tpv_spring.repositories.InvoiceReactRepository;
 import es.upm.miw.betca_tpv_spring.repositories.TicketReactRepository;
+import es.upm.miw.betca_tpv_spring.repositories.VatRollupReactRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
@@ -24,38 +29,40 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Controller
 public class InvoiceController {
 
-    @Value("${miw.tax.general}")
-    private Double generalTax;
-    @Value("${miw.tax.reduced}")
-    private Double reducedTax;
-    @Value("${miw.tax.super.reduced}")
-    private Double superReducedTax;
+    private static final String INVOICE_SEQUENCE = "invoice-";
+    private static final int GAPLESS_LEASE = 1;
+
     @Value("${miw.invoices.filepath}")
     private String invoiceFilePath;
 
     private PdfService pdfService;
     private InvoiceReactRepository invoiceReactRepository;
     private TicketReactRepository ticketReactRepository;
-    private ArticleReactRepository articleReactRepository;
-
+    private SequenceService sequenceService;
+    private VatRollupService vatRollupService;
+    private VatRollupReactRepository vatRollupReactRepository;
+    private KeysetPager keysetPager;
 
     @Autowired
     public InvoiceController(PdfService pdfService,
                              InvoiceReactRepository invoiceReactRepository,
                              TicketReactRepository ticketReactRepository,
-                             ArticleReactRepository articleReactRepository,
-                             FileService fileService) {
+                             FileService fileService,
+                             SequenceService sequenceService,
+                             VatRollupService vatRollupService,
+                             VatRollupReactRepository vatRollupReactRepository,
+                             KeysetPager keysetPager) {
         this.pdfService = pdfService;
         this.invoiceReactRepository = invoiceReactRepository;
         this.ticketReactRepository = ticketReactRepository;
-        this.articleReactRepository = articleReactRepository;
+        this.sequenceService = sequenceService;
+        this.vatRollupService = vatRollupService;
+        this.vatRollupReactRepository = vatRollupReactRepository;
+        this.keysetPager = keysetPager;
     }
 
     private Mono<Invoice> createInvoice() {
@@ -82,7 +89,8 @@ public class InvoiceController {
                 });
         Mono<Invoice> calculateBaseAndTaxPublisher = this.calculateBaseAndTax(invoice, ticketPublisher);
         return Mono.when(calculateBaseAndTaxPublisher, nextId)
-                .then(invoiceReactRepository.save(invoice));
+                .then(invoiceReactRepository.save(invoice))
+                .flatMap(saved -> this.vatRollupService.increment(saved).thenReturn(saved));
     }
 
 
@@ -98,15 +106,13 @@ public class InvoiceController {
 
 
     private Mono<Integer> nextIdStartingYearly() {
+        return this.sequenceService.next(INVOICE_SEQUENCE + LocalDate.now().getYear(), GAPLESS_LEASE, this.lastIdOfYear());
+    }
+
+    private Mono<Integer> lastIdOfYear() {
         return invoiceReactRepository.findFirstByOrderByCreationDateDescIdDesc()
-                .map(invoice -> {
-                    if (invoice.getCreationDate().isAfter(LocalDateTime.of(LocalDate.now(), LocalTime.MIN))) {
-                        return invoice.simpleId() + 1;
-                    } else {
-                        return 1;
-                    }
-                })
-                .switchIfEmpty(Mono.just(1));
+                .filter(invoice -> invoice.getCreationDate().isAfter(LocalDateTime.of(LocalDate.now().withDayOfYear(1), LocalTime.MIN)))
+                .map(Invoice::simpleId);
     }
 
     @Transactional
@@ -122,19 +128,20 @@ public class InvoiceController {
     }
 
     private Mono<Invoice> calculateBaseAndTax(Invoice invoice, Shopping[] shoppingList) {
-        Stream<Shopping> ticketShoppingList = Arrays.stream(shoppingList);
-        List<Mono<Article>> articlePublishers = ticketShoppingList
-                .map(shopping -> this.articleReactRepository.findById(shopping.getArticleId())
-                        .switchIfEmpty(Mono.error(new NotFoundException("Article(" + shopping.getArticleId() + ")")))
-                        .filter(article -> article.getTax() != Tax.FREE)
-                        .doOnNext(article -> {
-                            BigDecimal articleTaxRate = article.getTax().getRate().divide(new BigDecimal("100"));
-                            BigDecimal articleTax = shopping.getShoppingTotal().multiply(articleTaxRate);
-                            invoice.setTax(invoice.getTax().add(articleTax));
-                            BigDecimal articleBaseTax = shopping.getShoppingTotal().subtract(articleTax);
-                            invoice.setBaseTax(invoice.getBaseTax().add(articleBaseTax));
-                        })).collect(Collectors.toList());
-        return Mono.when(articlePublishers).then(Mono.just(invoice));
+        return Flux.fromArray(shoppingList)
+                .flatMap(shopping -> this.vatRollupService.taxed(shopping)
+                        .switchIfEmpty(Mono.error(new NotFoundException("Article(" + shopping.getArticleId() + ")"))))
+                .doOnNext(shopping -> {
+                    BigDecimal total = shopping.getShoppingTotal();
+                    invoice.addVatLine(this.vatRollupService.vatLine(shopping));
+                    if (shopping.getTax() != Tax.FREE) {
+                        BigDecimal articleTax = total.multiply(shopping.getTaxRate());
+                        invoice.setTax(invoice.getTax().add(articleTax));
+                        BigDecimal articleBaseTax = total.subtract(articleTax);
+                        invoice.setBaseTax(invoice.getBaseTax().add(articleBaseTax));
+                    }
+                })
+                .then(Mono.just(invoice));
     }
 
     @Transactional
@@ -156,7 +163,9 @@ public class InvoiceController {
                 .doOnNext(ticket -> {
                     invoice.setUser(ticket.getUser());
                     invoice.setTicket(ticket);
-                });
+                    this.snapshotTaxesFromTicket(returnedShoppings, ticket);
+                })
+                .cache();
         Mono<Invoice> invoiceMono = invoiceReactRepository.findFirstByTicketAndTaxGreaterThanEqual(oldTicketPublisher, BigDecimal.ZERO)
                 .switchIfEmpty(Mono.error(new NotFoundException("Positive Invoice not found")));
 
@@ -170,17 +179,35 @@ public class InvoiceController {
                     if (shopping.getAmount() >= 0)
                         shoppingSynchronousSink.error(new BadRequestException("Shopping Amount not allowed (" + shopping.getAmount() + ")"));
                 });
-        Mono<Invoice> calculateBaseAndTaxPublisher = this.calculateBaseAndTax(invoice, returnedShoppings);
+        Mono<Invoice> calculateBaseAndTaxPublisher = oldTicketPublisher
+                .then(Mono.defer(() -> this.calculateBaseAndTax(invoice, returnedShoppings)));
         return Mono.when(calculateBaseAndTaxPublisher, nextId, invoiceMono, shoppingFlux)
-                .then(invoiceReactRepository.save(invoice));
+                .then(invoiceReactRepository.save(invoice))
+                .flatMap(saved -> this.vatRollupService.increment(saved).thenReturn(saved));
 
     }
 
+    private void snapshotTaxesFromTicket(Shopping[] returnedShoppings, Ticket ticket) {
+        for (Shopping returned : returnedShoppings) {
+            Arrays.stream(ticket.getShoppingList())
+                    .filter(sold -> sold.getTax() != null && sold.getArticleId().equals(returned.getArticleId()))
+                    .findFirst()
+                    .ifPresent(sold -> {
+                        returned.setTax(sold.getTax());
+                        returned.setTaxRate(sold.getTaxRate());
+                    });
+        }
+    }
+
     public Flux<InvoiceOutputDto> getAll() {
         return invoiceReactRepository.findAll()
                 .map(InvoiceOutputDto::new);
     }
 
+    public Mono<KeysetPage<InvoiceOutputDto>> readPage(String cursor, int limit) {
+        return this.keysetPager.page(new Query(), Invoice.class, "_id", Invoice::getId, InvoiceOutputDto::new, cursor, limit);
+    }
+
     public Flux<InvoiceOutputDto> readAllByFilters(String mobile, LocalDate fromDate, LocalDate toDate) {
         return invoiceReactRepository.findAll()
                 .filter(invoice -> ((mobile == null || mobile.equals("")) || invoice.getUser().getMobile().equals(mobile))
@@ -190,49 +217,27 @@ public class InvoiceController {
     }
 
     public Mono<QuarterVATDto> readQuarterlyVat(Quarter quarter) {
-        QuarterVATDto quarterVATDto = new QuarterVATDto(quarter, new TaxDto(Tax.GENERAL, generalTax), new TaxDto(Tax.REDUCED, reducedTax), new TaxDto(Tax.SUPER_REDUCED, superReducedTax));
-        Flux<Shopping[]> shoppingFlux = this.invoiceReactRepository.findAll()
-                .filter(invoice -> quarter.getQuarterFromDate(invoice.getCreationDate()).equals(quarter))
-                .map(invoice -> invoice.getTicket().getShoppingList());
-        Flux<ShoppingLine> shoppingLineFlux = shoppingFlux
-                .flatMap(shoppings -> this.convertShoppingArrayToShoppingLineFlux(shoppings));
-        Flux<ShoppingLine> finalFlux = shoppingLineFlux
-                .map(shoppingLine -> addVatToDtoFromShoppingLine(quarterVATDto, shoppingLine));
-        return Mono.when(finalFlux).then(Mono.just(quarterVATDto));
-    }
-
-    private ShoppingLine addVatToDtoFromShoppingLine(QuarterVATDto quarterVATDto, ShoppingLine shoppingLine) {
-        if (shoppingLine.getTax().compareTo(Tax.GENERAL) == 0) {
-            quarterVATDto.getTaxes().get(0).setTaxableAmount(quarterVATDto.getTaxes().get(0).getTaxableAmount().add(shoppingLine.getTaxableAmount()));
-            quarterVATDto.getTaxes().get(0).setVat(quarterVATDto.getTaxes().get(0).getVat().add(shoppingLine.getVat()));
-        } else if (shoppingLine.getTax().compareTo(Tax.REDUCED) == 0) {
-            quarterVATDto.getTaxes().get(1).setTaxableAmount(quarterVATDto.getTaxes().get(1).getTaxableAmount().add(shoppingLine.getTaxableAmount()));
-            quarterVATDto.getTaxes().get(1).setVat(quarterVATDto.getTaxes().get(1).getVat().add(shoppingLine.getVat()));
-        } else if (shoppingLine.getTax().compareTo(Tax.SUPER_REDUCED) == 0) {
-            quarterVATDto.getTaxes().get(2).setTaxableAmount(quarterVATDto.getTaxes().get(2).getTaxableAmount().add(shoppingLine.getTaxableAmount()));
-            quarterVATDto.getTaxes().get(2).setVat(quarterVATDto.getTaxes().get(2).getVat().add(shoppingLine.getVat()));
-        }
-        return shoppingLine;
+        return this.readQuarterlyVat(LocalDate.now().getYear(), quarter);
     }
 
-    private Flux<ShoppingLine> convertShoppingArrayToShoppingLineFlux(Shopping[] shoppings) {
-        Flux<ShoppingLine> shoppingLineFlux = Flux.empty();
-        for (Shopping shopping : shoppings) {
-            Mono<ShoppingLine> taxDtoMono = this.articleReactRepository.findById(shopping.getArticleId())
-                    .map(Article::getTax)
-                    .map(tax -> new ShoppingLine(tax, this.vatFromTax(tax), shopping.getShoppingTotal()));
-            shoppingLineFlux = shoppingLineFlux.mergeWith(taxDtoMono);
-        }
-        return shoppingLineFlux;
+    public Mono<QuarterVATDto> readQuarterlyVat(int year, Quarter quarter) {
+        QuarterVATDto quarterVATDto = new QuarterVATDto(year, quarter, this.taxDto(Tax.GENERAL),
+                this.taxDto(Tax.REDUCED), this.taxDto(Tax.SUPER_REDUCED));
+        return this.vatRollupReactRepository.findByYearAndQuarter(year, quarter.getNumber())
+                .doOnNext(vatRollup -> quarterVATDto.getTaxes().stream()
+                        .filter(taxDto -> taxDto.getTax() == vatRollup.getTax())
+                        .forEach(taxDto -> {
+                            taxDto.setTaxableAmount(BigDecimal.valueOf(vatRollup.getTaxable(), VatLine.SCALE));
+                            taxDto.setVat(BigDecimal.valueOf(vatRollup.getVat(), VatLine.SCALE));
+                        }))
+                .then(Mono.just(quarterVATDto));
+    }
+
+    private TaxDto taxDto(Tax tax) {
+        return new TaxDto(tax, this.vatRollupService.rate(tax).doubleValue());
     }
 
-    private BigDecimal vatFromTax(Tax tax) {
-        if (tax.equals(Tax.SUPER_REDUCED)) {
-            return BigDecimal.valueOf(this.superReducedTax);
-        } else if (tax.equals(Tax.REDUCED)) {
-            return BigDecimal.valueOf(this.reducedTax);
-        } else if (tax.equals(Tax.GENERAL)) {
-            return BigDecimal.valueOf(this.generalTax);
-        } else return BigDecimal.ZERO;
+    public Mono<Void> rebuildVatRollups() {
+        return this.vatRollupService.rebuild();
     }
 }
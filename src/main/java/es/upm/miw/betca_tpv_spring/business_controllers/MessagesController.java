@@ -1,5 +1,8 @@
 package es.upm.miw.betca_tpv_spring.business_controllers;
 
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPager;
+import es.upm.miw.betca_tpv_spring.data_services.SequenceService;
 import es.upm.miw.betca_tpv_spring.documents.Messages;
 import es.upm.miw.betca_tpv_spring.documents.User;
 import es.upm.miw.betca_tpv_spring.dtos.MessagesCreationDto;
@@ -8,6 +11,7 @@ import es.upm.miw.betca_tpv_spring.dtos.UserMinimumDto;
 import es.upm.miw.betca_tpv_spring.repositories.MessagesReactRepository;
 import es.upm.miw.betca_tpv_spring.repositories.UserReactRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -17,14 +21,22 @@ import java.time.LocalDateTime;
 @Controller
 public class MessagesController {
 
+    private static final String MESSAGES_SEQUENCE = "messages";
+
     private MessagesReactRepository messagesReactRepository;
     private UserReactRepository userReactRepository;
+    private SequenceService sequenceService;
+    private KeysetPager keysetPager;
 
     @Autowired
     public MessagesController(MessagesReactRepository messagesReactRepository,
-                              UserReactRepository userReactRepository) {
+                              UserReactRepository userReactRepository,
+                              SequenceService sequenceService,
+                              KeysetPager keysetPager) {
         this.messagesReactRepository = messagesReactRepository;
         this.userReactRepository = userReactRepository;
+        this.sequenceService = sequenceService;
+        this.keysetPager = keysetPager;
 
     }
 
@@ -32,6 +44,10 @@ public class MessagesController {
         return this.messagesReactRepository.findAll().map(MessagesOutputDto::new);
     }
 
+    public Mono<KeysetPage<MessagesOutputDto>> readPage(String cursor, int limit) {
+        return this.keysetPager.page(new Query(), Messages.class, "_id", Messages::getId, MessagesOutputDto::new, cursor, limit);
+    }
+
     public Mono<MessagesOutputDto> readById(String messagesId) {
         return this.messagesReactRepository.findById(messagesId).map(MessagesOutputDto::new);
     }
@@ -77,9 +93,8 @@ public class MessagesController {
     }
 
     private Mono<Integer> nextIdMessages() {
-        return messagesReactRepository.findFirstByOrderBySentDateDescIdDesc()
-                .map(messages -> messages.getIdParsedToInteger() + 1)
-                .switchIfEmpty(Mono.just(1));
+        return this.sequenceService.next(MESSAGES_SEQUENCE, messagesReactRepository.findFirstByOrderBySentDateDescIdDesc()
+                .map(Messages::getIdParsedToInteger));
     }
 
     public Mono<MessagesOutputDto> markMessageAsRead(String id, LocalDateTime ldtReadDate) {
@@ -1,5 +1,6 @@
 package es.upm.miw.betca_tpv_spring.business_controllers;
 
+import es.upm.miw.betca_tpv_spring.data_services.StockAlarmIndex;
 import es.upm.miw.betca_tpv_spring.documents.Article;
 import es.upm.miw.betca_tpv_spring.documents.Order;
 import es.upm.miw.betca_tpv_spring.documents.OrderLine;
@@ -15,7 +16,9 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Controller
 public class OrderController {
@@ -27,13 +30,16 @@ public class OrderController {
     private OrderReactRepository orderReactRepository;
     private ArticleReactRepository articleReactRepository;
     private ProviderReactRepository providerReactRepository;
+    private StockAlarmIndex stockAlarmIndex;
 
     @Autowired
     public OrderController(OrderReactRepository orderReactRepository, ArticleReactRepository articleReactRepository,
-                           ProviderReactRepository providerReactRepository) {
+                           ProviderReactRepository providerReactRepository,
+                           StockAlarmIndex stockAlarmIndex) {
         this.orderReactRepository = orderReactRepository;
         this.articleReactRepository = articleReactRepository;
         this.providerReactRepository = providerReactRepository;
+        this.stockAlarmIndex = stockAlarmIndex;
     }
 
     public Flux<OrderDto> searchOrder(OrderSearchDto orderSearchDto) {
@@ -162,6 +168,7 @@ public class OrderController {
                     });
             articlesFlux = articlesFlux.mergeWith(this.articleReactRepository.saveAll(articleReact));
         }
-        return articlesFlux.then();
+        return articlesFlux.then(Mono.defer(() -> this.stockAlarmIndex.evaluate(Arrays.stream(orderDto.getOrderLines())
+                .map(OrderLineDto::getArticleId).collect(Collectors.toList()))));
     }
 }
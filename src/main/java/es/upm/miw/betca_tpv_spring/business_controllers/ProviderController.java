@@ -1,5 +1,7 @@
 package es.upm.miw.betca_tpv_spring.business_controllers;
 
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPager;
 import es.upm.miw.betca_tpv_spring.documents.Provider;
 import es.upm.miw.betca_tpv_spring.dtos.ProviderCreationDto;
 import es.upm.miw.betca_tpv_spring.dtos.ProviderDto;
@@ -7,6 +9,7 @@ import es.upm.miw.betca_tpv_spring.dtos.ProviderSearchDto;
 import es.upm.miw.betca_tpv_spring.exceptions.NotFoundException;
 import es.upm.miw.betca_tpv_spring.repositories.ProviderReactRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -15,10 +18,12 @@ import reactor.core.publisher.Mono;
 public class ProviderController {
 
     private ProviderReactRepository providerReactRepository;
+    private KeysetPager keysetPager;
 
     @Autowired
-    public ProviderController(ProviderReactRepository providerReactRepository) {
+    public ProviderController(ProviderReactRepository providerReactRepository, KeysetPager keysetPager) {
         this.providerReactRepository = providerReactRepository;
+        this.keysetPager = keysetPager;
     }
 
     public Flux<ProviderDto> search(ProviderSearchDto providerSearchDto) {
@@ -35,6 +40,10 @@ public class ProviderController {
                 .map(ProviderDto::new);
     }
 
+    public Mono<KeysetPage<ProviderDto>> readPage(String cursor, int limit) {
+        return this.keysetPager.page(new Query(), Provider.class, "_id", Provider::getId, ProviderDto::new, cursor, limit);
+    }
+
     public Mono<ProviderDto> create(ProviderCreationDto providerCreationDto) {
         Provider provider = Provider.builder(providerCreationDto.getCompany())
                 .nif(providerCreationDto.getNif())
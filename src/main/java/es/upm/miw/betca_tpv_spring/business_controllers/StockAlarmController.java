@@ -1,11 +1,13 @@
 package es.upm.miw.betca_tpv_spring.business_controllers;
 
+import es.upm.miw.betca_tpv_spring.data_services.StockAlarmIndex;
 import es.upm.miw.betca_tpv_spring.documents.StockAlarmArticle;
 import es.upm.miw.betca_tpv_spring.documents.Article;
 import es.upm.miw.betca_tpv_spring.documents.StockAlarm;
 import es.upm.miw.betca_tpv_spring.dtos.StockAlarmArticleDto;
 import es.upm.miw.betca_tpv_spring.dtos.StockAlarmCreationDto;
 import es.upm.miw.betca_tpv_spring.dtos.StockAlarmDto;
+import es.upm.miw.betca_tpv_spring.dtos.StockAlarmEventDto;
 import es.upm.miw.betca_tpv_spring.dtos.StockAlarmSearchDto;
 import es.upm.miw.betca_tpv_spring.exceptions.BadRequestException;
 import es.upm.miw.betca_tpv_spring.exceptions.NotFoundException;
@@ -26,12 +28,15 @@ public class StockAlarmController {
     private ArticleReactRepository articleReactRepository;
     private ProviderReactRepository providerReactRepository;
     private StockAlarmReactRepository stockAlarmReactRepository;
+    private StockAlarmIndex stockAlarmIndex;
 
     @Autowired
-    public StockAlarmController(ArticleReactRepository articleReactRepository, StockAlarmReactRepository stockAlarmReactRepository,ProviderReactRepository providerReactRepository) {
+    public StockAlarmController(ArticleReactRepository articleReactRepository, StockAlarmReactRepository stockAlarmReactRepository,ProviderReactRepository providerReactRepository,
+                                StockAlarmIndex stockAlarmIndex) {
         this.articleReactRepository = articleReactRepository;
         this.providerReactRepository = providerReactRepository;
         this.stockAlarmReactRepository = stockAlarmReactRepository;
+        this.stockAlarmIndex = stockAlarmIndex;
     }
 
     public Flux<StockAlarmDto> readAll() {
@@ -66,6 +71,7 @@ public class StockAlarmController {
         }
         return Mono.when(provider,articles)
                 .then(this.stockAlarmReactRepository.save(stockAlarm))
+                .doOnNext(saved -> this.stockAlarmIndex.invalidate())
                 .map(StockAlarmDto::new);
     }
 
@@ -91,6 +97,7 @@ public class StockAlarmController {
                     return stockAlarmUpdate;
                 });
         return Mono.when(articles).then(stockAlarm).then(this.stockAlarmReactRepository.saveAll(stockAlarm).next()
+                .doOnNext(saved -> this.stockAlarmIndex.invalidate())
                 .map(StockAlarmDto::new));
     }
 
@@ -99,29 +106,26 @@ public class StockAlarmController {
                 .switchIfEmpty(Mono.error(new NotFoundException("StockAlarm (" + id + ")")));
         return Mono
                 .when(stockAlarmMono)
-                .then(this.stockAlarmReactRepository.deleteById(id));
+                .then(this.stockAlarmReactRepository.deleteById(id))
+                .doOnSuccess(deleted -> this.stockAlarmIndex.invalidate());
     }
 
     public Flux<StockAlarmSearchDto> getAllArticlesInStockAlarm(String searchArticleState) {
-        return this.getAllStockAlarmArticle()
-                .filter(stockAlarmArticle -> {
-                    if (searchArticleState.equals("warning")) {
-                         return stockAlarmArticle.getArticle().getStock() < stockAlarmArticle.getWarning();
-                    }else {
-                         return stockAlarmArticle.getArticle().getStock() < stockAlarmArticle.getCritical();
-                         }
-                })
-                .map(stockAlarmArticle -> {
-                    StockAlarmSearchDto stockAlarmSearchDto = new StockAlarmSearchDto();
-                    stockAlarmSearchDto.setCode(stockAlarmArticle.getArticle().getCode());
-                    stockAlarmSearchDto.setDescription(stockAlarmArticle.getArticle().getDescription());
-                    stockAlarmSearchDto.setStock(stockAlarmArticle.getArticle().getStock());
-                    stockAlarmSearchDto.setWarning(stockAlarmArticle.getWarning());
-                    stockAlarmSearchDto.setCritical(stockAlarmArticle.getCritical());
+        return this.stockAlarmIndex.readAll()
+                .filter(alarm -> searchArticleState.equals("warning") ? alarm.isWarning() : alarm.isCritical())
+                .map(alarm -> {
+                    StockAlarmSearchDto stockAlarmSearchDto = new StockAlarmSearchDto(alarm.getCode(), alarm.getDescription());
+                    stockAlarmSearchDto.setStock(alarm.getStock());
+                    stockAlarmSearchDto.setWarning(alarm.getWarning());
+                    stockAlarmSearchDto.setCritical(alarm.getCritical());
                     return stockAlarmSearchDto;
                 });
     }
 
+    public Flux<StockAlarmEventDto> readEvents() {
+        return this.stockAlarmIndex.events();
+    }
+
     public Flux<StockAlarmArticle> getAllStockAlarmArticle() {
         Flux<StockAlarm> stockAlarmFlux = this.stockAlarmReactRepository.findAll();
         return stockAlarmFlux
@@ -1,53 +1,74 @@
 package es.upm.miw.betca_tpv_spring.business_controllers;
 
+import es.upm.miw.betca_tpv_spring.data_services.SalesDailyService;
 import es.upm.miw.betca_tpv_spring.documents.Article;
 import es.upm.miw.betca_tpv_spring.documents.Ticket;
-import es.upm.miw.betca_tpv_spring.dtos.ArticleDto;
 import es.upm.miw.betca_tpv_spring.dtos.ArticleSalesInfoDto;
 import es.upm.miw.betca_tpv_spring.dtos.ArticleStockDto;
 import es.upm.miw.betca_tpv_spring.dtos.ShoppingDto;
 import es.upm.miw.betca_tpv_spring.exceptions.NotFoundException;
 import es.upm.miw.betca_tpv_spring.repositories.ArticleReactRepository;
+import es.upm.miw.betca_tpv_spring.repositories.SalesDailyReactRepository;
 import es.upm.miw.betca_tpv_spring.repositories.TicketReactRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Controller
 public class StockController {
+
     private ArticleReactRepository articleReactRepository;
     private TicketReactRepository ticketReactRepository;
+    private SalesDailyReactRepository salesDailyReactRepository;
+    private SalesDailyService salesDailyService;
 
     @Autowired
-    public StockController(ArticleReactRepository articleReactRepository, TicketReactRepository ticketReactRepository) {
+    public StockController(ArticleReactRepository articleReactRepository, TicketReactRepository ticketReactRepository,
+                           SalesDailyReactRepository salesDailyReactRepository, SalesDailyService salesDailyService) {
         this.articleReactRepository = articleReactRepository;
         this.ticketReactRepository = ticketReactRepository;
+        this.salesDailyReactRepository = salesDailyReactRepository;
+        this.salesDailyService = salesDailyService;
     }
 
     public Flux<ArticleStockDto> readAll(Integer minimumStock, LocalDateTime initDate, LocalDateTime endDate) {
-        Flux<ArticleStockDto> articleSoldUnits = this.getSoldUnits(initDate, endDate);
-        Flux<ArticleStockDto> articleInfo = this.getArticleInfo(minimumStock);
-        return Flux.merge(articleSoldUnits, articleInfo).groupBy(ArticleStockDto::getCode)
-                .flatMap(idFlux -> idFlux.reduce((article, article2) -> {
-                            ArticleStockDto articleStockDto = article.getStock() != null ? article : article2;
-                            articleStockDto.setSoldUnits(article.getSoldUnits() != null ? article.getSoldUnits() : article2.getSoldUnits());
-                            return articleStockDto;
-                        })
-                ).map(article -> {
-                    if (article.getSoldUnits() == null) {
-                        article.setSoldUnits(0);
+        return this.readAll(minimumStock, initDate, endDate, null, null);
+    }
+
+    public Flux<ArticleStockDto> readAll(Integer minimumStock, LocalDateTime initDate, LocalDateTime endDate,
+                                         String afterCode, Integer limit) {
+        if (initDate == null && endDate == null) {
+            return this.ticketReactRepository.soldUnits(null, null)
+                    .flatMapMany(soldUnits -> this.articleReactRepository.findStockPage(minimumStock, null, afterCode, limit)
+                            .map(article -> this.articleStockDto(article, soldUnits.getOrDefault(article.getCode(), 0))));
+        }
+        return this.ticketReactRepository.soldUnits(initDate, endDate)
+                .flatMapMany(soldUnits -> {
+                    soldUnits.values().removeIf(units -> units <= 0);
+                    if (soldUnits.isEmpty()) {
+                        return Flux.empty();
                     }
-                    return article;
-                }).filter(article -> {
-                    boolean filterDate = initDate != null || endDate != null;
-                    return article.getStock() != null && (!filterDate || article.getSoldUnits() > 0);
+                    return this.articleReactRepository.findStockPage(minimumStock, soldUnits.keySet(), afterCode, limit)
+                            .map(article -> this.articleStockDto(article, soldUnits.get(article.getCode())));
                 });
     }
 
+    private ArticleStockDto articleStockDto(Article article, Integer soldUnits) {
+        ArticleStockDto articleStockDto = new ArticleStockDto();
+        articleStockDto.setCode(article.getCode());
+        articleStockDto.setStock(article.getStock());
+        articleStockDto.setDescription(article.getDescription());
+        articleStockDto.setSoldUnits(soldUnits);
+        return articleStockDto;
+    }
+
     public Flux<ArticleStockDto> getArticleInfo(Integer minimumStock) {
         Flux<Article> articlesFlux = minimumStock == null ? this.articleReactRepository.findAll()
                 : this.articleReactRepository.findByStockLessThanEqual(minimumStock);
@@ -61,17 +82,14 @@ public class StockController {
     }
 
     public Flux<ArticleStockDto> getSoldUnits(LocalDateTime initDate, LocalDateTime endDate) {
-        return this.getShopping(initDate, endDate).groupBy(ShoppingDto::getCode)
-                .flatMap(idFlux -> idFlux.map(shopping -> {
-                            ArticleStockDto article = new ArticleStockDto();
-                            article.setCode(shopping.getCode());
-                            article.setSoldUnits(shopping.getAmount());
-                            return article;
-                        }).reduce((article, article2) -> {
-                            article.setSoldUnits(article.getSoldUnits() + article2.getSoldUnits());
-                            return article;
-                        })
-                );
+        return this.ticketReactRepository.soldUnits(initDate, endDate)
+                .flatMapIterable(Map::entrySet)
+                .map(soldUnits -> {
+                    ArticleStockDto article = new ArticleStockDto();
+                    article.setCode(soldUnits.getKey());
+                    article.setSoldUnits(soldUnits.getValue());
+                    return article;
+                });
     }
 
     public Flux<ShoppingDto> getShopping(LocalDateTime initDate, LocalDateTime endDate) {
@@ -89,46 +107,37 @@ public class StockController {
     }
 
     public Flux<ArticleSalesInfoDto> readArticleSalesInfo(String code) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        LocalDateTime initDate = LocalDateTime.parse(LocalDateTime.now().minusYears(1).getYear() + "-01-01 00:00", formatter);
-        LocalDateTime endDate = LocalDateTime.parse(LocalDateTime.now().minusYears(1).getYear() + "-12-31 00:00", formatter);
-        LocalDateTime firstDayYearDate = LocalDateTime.parse(LocalDateTime.now().getYear() + "-01-01 00:00", formatter);
-
-        Flux<ArticleSalesInfoDto> shoppingLastYearDtoFlux = this.getShoppingArticlePerYear(initDate, endDate, code);
-        Flux<ArticleSalesInfoDto> shoppingYearDtoFlux = this.getShoppingArticlePerYear(firstDayYearDate, null, code);
-        Mono articleDtoFlux = this.articleReactRepository.findById(code)
+        LocalDateTime initDate = LocalDate.now().minusYears(1).withDayOfYear(1).atStartOfDay();
+        return this.articleReactRepository.findById(code)
                 .switchIfEmpty(Mono.error(new NotFoundException("Article not found")))
-                .map(ArticleDto::new).then();
-
-        Flux<ArticleSalesInfoDto> articleSalesInfo = Flux.merge(shoppingLastYearDtoFlux, shoppingYearDtoFlux);
-
-        return Flux.concat(articleDtoFlux, articleSalesInfo);
-
-
+                .thenMany(this.getShoppingArticlePerYear(initDate, null, code));
     }
 
     public Flux<ArticleSalesInfoDto> getShoppingArticlePerYear(LocalDateTime initDate, LocalDateTime endDate, String code) {
+        LocalDate endDay = (endDate != null ? endDate : LocalDateTime.now()).toLocalDate();
+        return this.salesDailyReactRepository.findByArticleIdAndDayGreaterThanEqualOrderByDay(code, initDate.toLocalDate())
+                .takeWhile(salesDaily -> !salesDaily.getDay().isAfter(endDay))
+                .collect(LinkedHashMap<YearMonth, ArticleSalesInfoDto>::new, (months, salesDaily) -> {
+                    ArticleSalesInfoDto month = months.computeIfAbsent(YearMonth.from(salesDaily.getDay()), yearMonth -> {
+                        ArticleSalesInfoDto articleSalesInfo = new ArticleSalesInfoDto(code);
+                        articleSalesInfo.setYear(yearMonth.getYear());
+                        articleSalesInfo.setMonth(yearMonth.getMonthValue());
+                        articleSalesInfo.setAmount(0);
+                        return articleSalesInfo;
+                    });
+                    month.setAmount(month.getAmount() + salesDaily.getUnits());
+                })
+                .flatMapIterable(Map::values);
+    }
 
-        return this.ticketReactRepository.findByCreationDateBetween(initDate, endDate != null ? endDate : LocalDateTime.now())
-                .groupBy(ticket -> ticket.getCreationDate().getMonth())
-                .flatMap(idFlux -> idFlux
-                        .flatMap(ticket -> {
-                            ArticleSalesInfoDto[] articleSalesInfoDto = new ArticleSalesInfoDto[ticket.getShoppingList().length];
-                            for (int i = 0; i < ticket.getShoppingList().length; i++) {
-                                ArticleSalesInfoDto article = new ArticleSalesInfoDto(ticket.getShoppingList()[i].getArticleId());
-                                article.setMonth(ticket.getCreationDate().getMonth().getValue());
-                                article.setYear(ticket.getCreationDate().getYear());
-                                article.setAmount(ticket.getShoppingList()[i].getAmount());
-                                articleSalesInfoDto[i] = article;
-                            }
-                            return Flux.just(articleSalesInfoDto);
-                        })
-                        .filter(articleSalesInfo -> articleSalesInfo.getCode().equals(code))
-                        .reduce((articleSalesInfo, articleSalesInfo1) -> {
-                            articleSalesInfo.setAmount(articleSalesInfo.getAmount() + articleSalesInfo1.getAmount());
-                            return articleSalesInfo;
-                        })
-                );
+    public Flux<ArticleStockDto> readBestSellers(int days, int limit) {
+        return this.salesDailyService.bestSellers(LocalDate.now().minusDays(days), limit)
+                .map(salesDaily -> {
+                    ArticleStockDto articleStockDto = new ArticleStockDto();
+                    articleStockDto.setCode(salesDaily.getArticleId());
+                    articleStockDto.setSoldUnits(salesDaily.getUnits());
+                    return articleStockDto;
+                });
     }
 
 }
@@ -1,30 +1,47 @@
 package es.upm.miw.betca_tpv_spring.business_controllers;
 
 import es.upm.miw.betca_tpv_spring.business_services.PdfService;
+import es.upm.miw.betca_tpv_spring.data_services.ArticleCache;
+import es.upm.miw.betca_tpv_spring.data_services.CashierSalesService;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPager;
+import es.upm.miw.betca_tpv_spring.data_services.PendingDeliveryService;
+import es.upm.miw.betca_tpv_spring.data_services.SalesDailyService;
+import es.upm.miw.betca_tpv_spring.data_services.SequenceService;
+import es.upm.miw.betca_tpv_spring.data_services.StockAlarmIndex;
+import es.upm.miw.betca_tpv_spring.data_services.VatRollupService;
 import es.upm.miw.betca_tpv_spring.documents.*;
+import es.upm.miw.betca_tpv_spring.dtos.ShoppingDto;
 import es.upm.miw.betca_tpv_spring.dtos.TicketCreationInputDto;
 import es.upm.miw.betca_tpv_spring.dtos.TicketOutputDto;
 import es.upm.miw.betca_tpv_spring.dtos.TicketPatchDto;
 import es.upm.miw.betca_tpv_spring.dtos.TicketSearchDto;
+import es.upm.miw.betca_tpv_spring.exceptions.BadRequestException;
+import es.upm.miw.betca_tpv_spring.exceptions.ConflictException;
 import es.upm.miw.betca_tpv_spring.exceptions.NotFoundException;
 import es.upm.miw.betca_tpv_spring.exceptions.PdfException;
 import es.upm.miw.betca_tpv_spring.repositories.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.io.File;
-import java.io.IOException;
 import java.nio.file.Files;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Controller
@@ -33,88 +50,157 @@ public class TicketController {
     private ArticleReactRepository articleReactRepository;
     private TicketReactRepository ticketReactRepository;
     private UserReactRepository userReactRepository;
-    private CashierClosureReactRepository cashierClosureReactRepository;
+    private CashierSalesService cashierSalesService;
     private TagReactRepository tagReactRepository;
     private PdfService pdfService;
     private CustomerPointsReactRepository customerPointsReactRepository;
     private static final Integer EACH_TWO_UNIT_ONE_POINT = 2;
+    private static final String TICKET_SEQUENCE = "ticket-";
+    @Value("${miw.stock.negative.rejected}")
+    private boolean negativeStockRejected;
     private OrderReactRepository orderReactRepository;
     private GiftTicketReactRepository giftTicketReactRepository;
+    private SequenceService sequenceService;
+    private ArticleCache articleCache;
+    private VatRollupService vatRollupService;
+    private SalesDailyService salesDailyService;
+    private StockAlarmIndex stockAlarmIndex;
+    private PendingDeliveryService pendingDeliveryService;
+    private KeysetPager keysetPager;
 
     @Autowired
     public TicketController(TicketReactRepository ticketReactRepository, UserReactRepository userReactRepository,
-                            ArticleReactRepository articleReactRepository, CashierClosureReactRepository cashierClosureReactRepository,
+                            ArticleReactRepository articleReactRepository, CashierSalesService cashierSalesService,
                             PdfService pdfService, CustomerPointsReactRepository customerPointsReactRepository,
                             OrderReactRepository orderReactRepository, TagReactRepository tagReactRepository,
-                            GiftTicketReactRepository giftTicketReactRepository) {
+                            GiftTicketReactRepository giftTicketReactRepository, SequenceService sequenceService,
+                            ArticleCache articleCache, VatRollupService vatRollupService,
+                            SalesDailyService salesDailyService, StockAlarmIndex stockAlarmIndex,
+                            PendingDeliveryService pendingDeliveryService, KeysetPager keysetPager) {
         this.ticketReactRepository = ticketReactRepository;
         this.userReactRepository = userReactRepository;
         this.articleReactRepository = articleReactRepository;
-        this.cashierClosureReactRepository = cashierClosureReactRepository;
+        this.cashierSalesService = cashierSalesService;
         this.pdfService = pdfService;
         this.customerPointsReactRepository = customerPointsReactRepository;
         this.orderReactRepository = orderReactRepository;
         this.tagReactRepository = tagReactRepository;
         this.giftTicketReactRepository = giftTicketReactRepository;
+        this.sequenceService = sequenceService;
+        this.articleCache = articleCache;
+        this.vatRollupService = vatRollupService;
+        this.salesDailyService = salesDailyService;
+        this.stockAlarmIndex = stockAlarmIndex;
+        this.pendingDeliveryService = pendingDeliveryService;
+        this.keysetPager = keysetPager;
     }
 
     private Mono<Integer> nextIdStartingDaily() {
+        LocalDate today = LocalDate.now();
+        // The daily counter is kept one more day, for the tickets saved around midnight
+        return this.sequenceService.next(TICKET_SEQUENCE + today.format(DateTimeFormatter.BASIC_ISO_DATE),
+                this.lastIdOfDay(), today.plusDays(2).atStartOfDay());
+    }
+
+    private Mono<Integer> lastIdOfDay() {
         return ticketReactRepository.findFirstByOrderByCreationDateDescIdDesc()
-                .map(ticket -> {
-                    if (ticket.getCreationDate().isAfter(LocalDateTime.of(LocalDate.now(), LocalTime.MIN))) {
-                        return ticket.simpleId() + 1;
-                    } else {
-                        return 1;
-                    }
+                .filter(ticket -> ticket.getCreationDate().isAfter(LocalDateTime.of(LocalDate.now(), LocalTime.MIN)))
+                .map(Ticket::simpleId);
+    }
+
+    private Mono<Void> updateArticlesStockAssured(Shopping[] shoppingList) {
+        return this.articleReactRepository.decrementStock(shoppingList, this.negativeStockRejected)
+                .handle((stockUpdateResult, sink) -> {
+                    if (!stockUpdateResult.getNotFound().isEmpty())
+                        sink.error(new NotFoundException("Article (" + String.join(", ", stockUpdateResult.getNotFound()) + ")"));
+                    else if (!stockUpdateResult.getRejected().isEmpty())
+                        sink.error(new ConflictException("Not enough stock (" + String.join(", ", stockUpdateResult.getRejected()) + ")"));
+                    else
+                        sink.next(stockUpdateResult);
                 })
-                .switchIfEmpty(Mono.just(1));
+                .then();
     }
 
-    private Mono<Void> updateArticlesStockAssured(TicketCreationInputDto ticketCreationDto) {
-        List<Mono<Article>> articlePublishers = ticketCreationDto.getShoppingCart().stream()
-                .map(shoppingDto -> this.articleReactRepository.findById(shoppingDto.getCode())
-                        .switchIfEmpty(Mono.error(new NotFoundException("Article (" + shoppingDto.getCode() + ")")))
-                        .map(article -> {
-                            article.setStock(article.getStock() - shoppingDto.getAmount());
-                            return article;
-                        })
-                        .flatMap(article -> articleReactRepository.save(article))
-                ).collect(Collectors.toList());
-        return Mono.when(articlePublishers);
+    private Mono<ValidatedCart> validateCart(List<ShoppingDto> shoppingCart) {
+        Set<String> codes = shoppingCart.stream().map(ShoppingDto::getCode).collect(Collectors.toSet());
+        Flux<Article> cartArticles = this.negativeStockRejected ?
+                this.articleReactRepository.findAllById(codes) : this.articleCache.findAllById(codes);
+        return cartArticles
+                .collectMap(Article::getCode)
+                .handle((articles, sink) -> {
+                    List<String> errors = this.cartErrors(shoppingCart, articles);
+                    if (errors.isEmpty())
+                        sink.next(new ValidatedCart(this.pricedShoppingList(shoppingCart, articles), articles));
+                    else
+                        sink.error(new BadRequestException("Invalid cart: " + String.join("; ", errors)));
+                });
+    }
+
+    private List<String> cartErrors(List<ShoppingDto> shoppingCart, Map<String, Article> articles) {
+        List<String> errors = new ArrayList<>();
+        Map<String, Integer> committedAmounts = new HashMap<>();
+        for (ShoppingDto shoppingDto : shoppingCart) {
+            Article article = articles.get(shoppingDto.getCode());
+            if (article == null) {
+                errors.add("Article (" + shoppingDto.getCode() + ") not found");
+            } else if (shoppingDto.getAmount() > 0 && Boolean.TRUE.equals(article.isDiscontinued())) {
+                errors.add("Article (" + shoppingDto.getCode() + ") discontinued");
+            } else if (shoppingDto.isCommitted()) {
+                committedAmounts.merge(article.getCode(), shoppingDto.getAmount(), Integer::sum);
+            }
+        }
+        if (this.negativeStockRejected) {
+            committedAmounts.forEach((code, amount) -> {
+                if (amount > articles.get(code).getStock())
+                    errors.add("Article (" + code + ") not enough stock: " + articles.get(code).getStock());
+            });
+        }
+        return errors;
+    }
+
+    private Shopping[] pricedShoppingList(List<ShoppingDto> shoppingCart, Map<String, Article> articles) {
+        return shoppingCart.stream().map(shoppingDto -> {
+            Article article = articles.get(shoppingDto.getCode());
+            Shopping shopping = new Shopping(shoppingDto.getAmount(), shoppingDto.getDiscount(),
+                    shoppingDto.isCommitted() ? ShoppingState.COMMITTED : ShoppingState.NOT_COMMITTED,
+                    shoppingDto.getCode(),
+                    shoppingDto.getDescription() == null ? article.getDescription() : shoppingDto.getDescription(),
+                    shoppingDto.getRetailPrice() == null ? article.getRetailPrice() : shoppingDto.getRetailPrice());
+            this.vatRollupService.snapshotTax(shopping, article.getTax());
+            return shopping;
+        }).toArray(Shopping[]::new);
     }
 
     public Mono<Ticket> createTicket(TicketCreationInputDto ticketCreationDto) {
-        Shopping[] shoppingArray = ticketCreationDto.getShoppingCart().stream().map(shoppingDto ->
-                new Shopping(shoppingDto.getAmount(), shoppingDto.getDiscount(),
-                        shoppingDto.isCommitted() ? ShoppingState.COMMITTED : ShoppingState.NOT_COMMITTED,
-                        shoppingDto.getCode(), shoppingDto.getDescription(), shoppingDto.getRetailPrice()))
-                .toArray(Shopping[]::new);
+        return this.validateCart(ticketCreationDto.getShoppingCart())
+                .flatMap(validatedCart -> this.createTicket(ticketCreationDto, validatedCart));
+    }
+
+    private Mono<Ticket> createTicket(TicketCreationInputDto ticketCreationDto, ValidatedCart validatedCart) {
+        Shopping[] shoppingArray = validatedCart.getShoppingList();
         Ticket ticket = new Ticket(0, ticketCreationDto.getCard(), ticketCreationDto.getCash(),
                 ticketCreationDto.getVoucher(), shoppingArray, null,
                 ticketCreationDto.getNote(), null);
         Mono<User> user = this.userReactRepository.findByMobile(ticketCreationDto.getUserMobile())
-                .doOnNext(ticket::setUser);
+                .doOnNext(ticket::setUser)
+                .cache();
         Mono<Integer> nextId = this.nextIdStartingDaily()
                 .doOnNext(ticket::setId);
-        Mono<CashierClosure> cashierClosureReact = this.cashierClosureReactRepository.findFirstByOrderByOpeningDateDesc()
-                .map(cashierClosure -> {
-                    cashierClosure.voucher(ticketCreationDto.getVoucher());
-                    cashierClosure.cash(ticketCreationDto.getCash());
-                    cashierClosure.card(ticketCreationDto.getCard());
-                    return cashierClosure;
-                });
-        Mono<Void> cashierClosureUpdate = this.cashierClosureReactRepository.saveAll(cashierClosureReact).then();
-
-        Mono<CustomerPoints> customerPoints = this.customerPointsReactRepository.findByUser(user).map(customerPoints1 -> {
-            int points = (customerPoints1.getPoints() + (ticket.getTotal().intValue() / EACH_TWO_UNIT_ONE_POINT));
-            customerPoints1.setPoints(points < 0 ? 0 : points);
-            return customerPoints1;
-        }).doOnNext(cp -> ticket.setCustomerPoints(cp));
-
-        Mono<Void> customerPointsUpdate = this.customerPointsReactRepository.saveAll(customerPoints).then();
+        Mono<Void> customerPointsUpdate = user
+                .flatMap(customer -> this.customerPointsReactRepository
+                        .incrementPoints(customer, ticket.getTotal().intValue() / EACH_TWO_UNIT_ONE_POINT))
+                .doOnNext(ticket::setCustomerPoints)
+                .then();
 
-        return Mono.when(user, nextId, updateArticlesStockAssured(ticketCreationDto), customerPointsUpdate, cashierClosureUpdate)
-                .then(this.ticketReactRepository.save(ticket));
+        return this.cashierSalesService
+                .sale(Mono.when(user, nextId, updateArticlesStockAssured(shoppingArray))
+                        .then(customerPointsUpdate)
+                        .then(this.ticketReactRepository.save(ticket)))
+                .flatMap(saved -> this.salesDailyService.increment(saved)
+                        .then(this.pendingDeliveryService.sync(saved))
+                        .then(this.stockAlarmIndex.evaluate(Arrays.stream(shoppingArray)
+                                .map(Shopping::getArticleId).collect(Collectors.toList())))
+                        .thenReturn(saved));
     }
 
     @Transactional
@@ -126,9 +212,19 @@ public class TicketController {
         return this.ticketReactRepository.findAllTickets();
     }
 
+    public Mono<KeysetPage<TicketOutputDto>> readPage(String cursor, int limit) {
+        Query query = new Query();
+        query.fields().include("reference");
+        return this.keysetPager.page(query, Ticket.class, "_id", Ticket::getId,
+                ticket -> new TicketOutputDto(ticket.getId(), ticket.getReference()), cursor, limit);
+    }
+
 
-    public byte[] getTicketPdf(String ticketId) throws IOException {
-        return pdfService.getPdfFromTicketId(ticketId);
+    public Mono<byte[]> getTicketPdf(String ticketId) {
+        // The archived copy is written asynchronously, an early or lost one is rendered again
+        return this.pdfService.readTicketPdf(ticketId)
+                .switchIfEmpty(Mono.defer(() -> this.pdfService.generateTicket(this.ticketReactRepository.findById(ticketId)
+                        .switchIfEmpty(Mono.error(new NotFoundException("Ticket " + ticketId + " not found"))))));
     }
 
     public Mono<TicketOutputDto> getTicket(String id) {
@@ -144,62 +240,35 @@ public class TicketController {
     }
 
     public Flux<TicketOutputDto> searchByMobileDateOrAmount(TicketSearchDto ticketSearchDto) {
-        Flux<Ticket> ticketFlux = ticketSearchDto.getDate() == null ?
-                ticketReactRepository.findAll() :
-                ticketReactRepository.findByCreationDateBetween(ticketSearchDto.getDate(), ticketSearchDto.getDate().plusDays(1));
-        if (ticketSearchDto.getMobile() != null) {
-            ticketFlux = ticketFlux.filter(ticket -> {
-                User user = ticket.getUser();
-                return user != null && user.getMobile().equals(ticketSearchDto.getMobile());
-            });
-        }
-        if (ticketSearchDto.getAmount() != null) {
-            ticketFlux = ticketFlux.filter(ticket -> {
-                AtomicReference<Integer> numberOfItems = new AtomicReference<>(0);
-                Arrays.stream(ticket.getShoppingList()).forEach(item -> {
-                    numberOfItems.updateAndGet(v -> v + item.getAmount());
-                });
-                return numberOfItems.get().equals(ticketSearchDto.getAmount());
-            });
-        }
-        return ticketFlux.distinct()
-                .map(ticket -> new TicketOutputDto(ticket.getId(), ticket.getReference()));
+        LocalDateTime date = ticketSearchDto.getDate();
+        return this.ticketReactRepository.search(ticketSearchDto.getMobile(), date, date == null ? null : date.plusDays(1),
+                ticketSearchDto.getAmount());
     }
 
     public Flux<TicketOutputDto> searchNotCommittedByArticle(String articleId) {
-        return this.ticketReactRepository.findNotCommittedByArticleId(articleId)
-                .distinct()
-                .map(ticket -> new TicketOutputDto(ticket.getId(), ticket.getReference()));
-    }
-
-   public Flux<TicketOutputDto> searchNotCommittedByOrder(String orderId) {
-       List<Flux<Ticket>> tickets = new ArrayList<>();
-       return this.orderReactRepository.findById(orderId)
-               .map(order -> Arrays.stream(order.getOrderLines()).map(orderLine -> {
-                   Article article = orderLine.getArticle();
-                   tickets.add(this.ticketReactRepository.findNotCommittedByArticleId(article.getCode()));
-                   return article;
-               }).collect(Collectors.toList()))
-               .thenMany(Flux.merge(tickets))
-               .distinct()
-               .map(ticket -> new TicketOutputDto(ticket.getId(), ticket.getReference()));
-   }
-
-   public Flux<TicketOutputDto> searchNotCommittedByTag(String tagDescription) {
-        List<Flux<Ticket>> tickets = new ArrayList<>();
+        return this.pendingDeliveryService.findTickets(Collections.singletonList(articleId));
+    }
+
+    public Flux<TicketOutputDto> searchNotCommittedByOrder(String orderId) {
+        return this.orderReactRepository.findById(orderId)
+                .map(order -> Arrays.stream(order.getOrderLines())
+                        .map(orderLine -> orderLine.getArticle().getCode())
+                        .collect(Collectors.toSet()))
+                .flatMapMany(this.pendingDeliveryService::findTickets);
+    }
+
+    public Flux<TicketOutputDto> searchNotCommittedByTag(String tagDescription) {
         return this.tagReactRepository.findByDescription(tagDescription)
-                .map(tag -> Arrays.stream(tag.getArticleList()).map(article -> {
-                    tickets.add(ticketReactRepository.findNotCommittedByArticleId(article.getCode()));
-                    return tag;
-                }).collect(Collectors.toList()))
-                .thenMany(Flux.merge(tickets))
-                .distinct()
-                .map(ticket -> new TicketOutputDto(ticket.getId(), ticket.getReference()));
-   }
+                .map(tag -> Arrays.stream(tag.getArticleList())
+                        .map(Article::getCode)
+                        .collect(Collectors.toSet()))
+                .flatMapMany(this.pendingDeliveryService::findTickets);
+    }
 
     public Mono<TicketOutputDto> updateShoppingTicket(String id, TicketPatchDto shoppingPatchDto) {
-        Mono<Ticket> ticket = this.ticketReactRepository.findById(id)
-                .switchIfEmpty(Mono.error(new NotFoundException("Ticket " + id + " not found"))).map(ticket1 -> {
+        return this.ticketReactRepository.findById(id)
+                .switchIfEmpty(Mono.error(new NotFoundException("Ticket " + id + " not found"))).flatMap(ticket1 -> {
+                    Map<String, SalesDaily> previousSales = this.salesDailyService.rollup(ticket1);
                     Arrays.stream(ticket1.getShoppingList()).forEach(shopping -> {
                         shoppingPatchDto.getShoppingPatchDtoList().stream().forEach(shoppingPatchDto1 -> {
                             if (shopping.getArticleId().equals(shoppingPatchDto1.getArticleId())) {
@@ -208,8 +277,12 @@ public class TicketController {
                             }
                         });
                     });
-                    return ticket1;
-                });
-        return Mono.when(ticket).then(this.ticketReactRepository.saveAll(ticket).next().map(TicketOutputDto::new));
+                    ticket1.updateSearchFields();
+                    return this.ticketReactRepository.save(ticket1)
+                            .flatMap(saved -> this.salesDailyService.increment(saved, previousSales)
+                                    .then(this.pendingDeliveryService.sync(saved))
+                                    .thenReturn(saved));
+                })
+                .map(TicketOutputDto::new);
     }
 }
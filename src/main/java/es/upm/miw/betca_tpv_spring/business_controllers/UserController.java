@@ -1,14 +1,19 @@
 package es.upm.miw.betca_tpv_spring.business_controllers;
 
 import es.upm.miw.betca_tpv_spring.business_services.JwtService;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPager;
+import es.upm.miw.betca_tpv_spring.data_services.PendingDeliveryService;
 import es.upm.miw.betca_tpv_spring.documents.Role;
 import es.upm.miw.betca_tpv_spring.documents.User;
 import es.upm.miw.betca_tpv_spring.dtos.*;
 import es.upm.miw.betca_tpv_spring.exceptions.ConflictException;
 import es.upm.miw.betca_tpv_spring.exceptions.ForbiddenException;
 import es.upm.miw.betca_tpv_spring.exceptions.NotFoundException;
+import es.upm.miw.betca_tpv_spring.repositories.TicketReactRepository;
 import es.upm.miw.betca_tpv_spring.repositories.UserReactRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -22,11 +27,19 @@ public class UserController {
 
     private UserReactRepository userReactRepository;
     private JwtService jwtService;
+    private TicketReactRepository ticketReactRepository;
+    private PendingDeliveryService pendingDeliveryService;
+    private KeysetPager keysetPager;
 
     @Autowired
-    public UserController(UserReactRepository userReactRepository, JwtService jwtService) {
+    public UserController(UserReactRepository userReactRepository, JwtService jwtService,
+                          TicketReactRepository ticketReactRepository, PendingDeliveryService pendingDeliveryService,
+                          KeysetPager keysetPager) {
         this.userReactRepository = userReactRepository;
         this.jwtService = jwtService;
+        this.ticketReactRepository = ticketReactRepository;
+        this.pendingDeliveryService = pendingDeliveryService;
+        this.keysetPager = keysetPager;
     }
 
     public Mono<TokenOutputDto> login(String mobile) {
@@ -83,6 +96,13 @@ public class UserController {
         return this.userReactRepository.findAllUsers();
     }
 
+    public Mono<KeysetPage<UserMinimumDto>> readPage(String cursor, int limit) {
+        Query query = new Query();
+        query.fields().include("mobile").include("username").include("roles");
+        return this.keysetPager.page(query, User.class, "mobile", User::getMobile,
+                user -> new UserMinimumDto(user.getMobile(), user.getUsername(), user.getRoles()), cursor, limit);
+    }
+
     public Mono<UserDto> updateUser(String mobile, UserDto userDto) {
         Mono<User> user = this.userReactRepository.findByMobile(mobile)
                 .switchIfEmpty(Mono.error(new NotFoundException("User mobile:" + mobile)))
@@ -96,12 +116,18 @@ public class UserController {
                     return user1;
                 });
         Mono<Void> noExistByMobile;
+        Mono<Long> ticketsMobile;
         if (mobile.equals(userDto.getMobile())) {
             noExistByMobile = Mono.empty();
+            ticketsMobile = Mono.empty();
         } else {
             noExistByMobile = this.noExistByMobile(userDto.getMobile());
+            ticketsMobile = this.ticketReactRepository.updateUserMobile(mobile, userDto.getMobile())
+                    .then(this.pendingDeliveryService.updateUserMobile(mobile, userDto.getMobile()));
         }
-        return Mono.when(user, noExistByMobile).then(this.userReactRepository.saveAll(user).next()).map(UserDto::new);
+        return Mono.when(user, noExistByMobile).then(this.userReactRepository.saveAll(user).next())
+                .flatMap(saved -> ticketsMobile.thenReturn(saved))
+                .map(UserDto::new);
     }
 
     public Mono<UserDto> changePassword(String mobile, UserCredentialDto userCredentialDto) {
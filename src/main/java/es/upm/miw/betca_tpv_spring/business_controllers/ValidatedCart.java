@@ -0,0 +1,37 @@
+package es.upm.miw.betca_tpv_spring.business_controllers;
+
+import es.upm.miw.betca_tpv_spring.documents.Article;
+import es.upm.miw.betca_tpv_spring.documents.Shopping;
+
+import java.util.Arrays;
+import java.util.Map;
+
+public class ValidatedCart {
+    private Shopping[] shoppingList;
+    private Map<String, Article> articles;
+
+    public ValidatedCart(Shopping[] shoppingList, Map<String, Article> articles) {
+        this.shoppingList = shoppingList;
+        this.articles = articles;
+    }
+
+    public Shopping[] getShoppingList() {
+        return shoppingList;
+    }
+
+    public Article getArticle(String code) {
+        return articles.get(code);
+    }
+
+    public Map<String, Article> getArticles() {
+        return articles;
+    }
+
+    @Override
+    public String toString() {
+        return "ValidatedCart{" +
+                "shoppingList=" + Arrays.toString(shoppingList) +
+                ", articles=" + articles.keySet() +
+                '}';
+    }
+}
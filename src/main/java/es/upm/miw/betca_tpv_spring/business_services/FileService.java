@@ -1,15 +1,22 @@
 package es.upm.miw.betca_tpv_spring.business_services;
 
 import es.upm.miw.betca_tpv_spring.exceptions.FileException;
+import org.apache.logging.log4j.LogManager;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 @Service
 public class FileService {
 
+    private static final String PARTIAL = ".partial";
+
     public byte[] read(String path) throws FileException {
         try {
             return Files.readAllBytes(new File(path).toPath());
@@ -17,4 +24,23 @@ public class FileService {
             throw new FileException("Can’t read File");
         }
     }
+
+    public void write(String path, byte[] bytes) throws FileException {
+        File file = new File(path);
+        try {
+            file.getParentFile().mkdirs();
+            // Written aside and moved, the readers never see a partial file
+            Path partial = Files.write(Files.createTempFile(file.getParentFile().toPath(), file.getName(), PARTIAL), bytes);
+            Files.move(partial, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | SecurityException e) {
+            throw new FileException("Can’t write File (" + path + ")");
+        }
+    }
+
+    public void writeAsync(String path, byte[] bytes) {
+        Mono.fromRunnable(() -> this.write(path, bytes))
+                .subscribeOn(Schedulers.elastic())
+                .subscribe(null, error -> LogManager.getLogger(this.getClass())
+                        .error(String.format("FileService::writeAsync. %s", error.getMessage())));
+    }
 }
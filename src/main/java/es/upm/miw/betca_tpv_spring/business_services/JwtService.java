@@ -1,15 +1,29 @@
 package es.upm.miw.betca_tpv_spring.business_services;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import es.upm.miw.betca_tpv_spring.exceptions.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * The algorithm and the verifier are built once (both are thread-safe). Verified tokens are kept, by their
+ * SHA-256, in a bounded LRU of claims until they expire, so a token is checked once and not on every request.
+ */
 @Service
 public class JwtService {
 
@@ -21,6 +35,19 @@ public class JwtService {
     private static final int EXPIRES_IN_MILLISECOND = 3600000;
     private static final String SECRET = "secret-password-test";
 
+    private final Algorithm algorithm = Algorithm.HMAC256(SECRET);
+    private final JWTVerifier verifier = JWT.require(this.algorithm).withIssuer(ISSUER).build();
+    private Map<String, Claims> verified;
+
+    @Autowired
+    public JwtService(@Value("${miw.jwt.cache.size}") int cacheSize) {
+        this.verified = new LinkedHashMap<String, Claims>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                return this.size() > cacheSize;
+            }
+        };
+    }
 
     public String createToken(String user, String name, String[] roles) {
         return JWT.create()
@@ -31,7 +58,7 @@ public class JwtService {
                 .withClaim(USER, user)
                 .withClaim(NAME, name)
                 .withArrayClaim(ROLES, roles)
-                .sign(Algorithm.HMAC256(SECRET));
+                .sign(this.algorithm);
     }
 
     public boolean isBearer(String authorization) {
@@ -39,25 +66,86 @@ public class JwtService {
     }
 
     public String user(String authorization) {
-        return this.verify(authorization).getClaim(USER).asString();
+        return this.claims(authorization).getUser();
+    }
+
+    public List<String> roles(String authorization) {
+        return this.claims(authorization).getRoles();
     }
 
-    private DecodedJWT verify(String authorization) {
+    public Claims claims(String authorization) {
         if (!this.isBearer(authorization)) {
             throw new JwtException("It is not Bearer");
         }
+        String token = authorization.substring(BEARER.length());
+        String hash = hash(token);
+        Claims claims;
+        synchronized (this) {
+            claims = this.verified.get(hash);
+            if (claims != null && !claims.isValid()) {
+                this.verified.remove(hash);
+                claims = null;
+            }
+        }
+        if (claims == null) {
+            claims = new Claims(this.verify(token));
+            synchronized (this) {
+                this.verified.put(hash, claims);
+            }
+        }
+        return claims;
+    }
+
+    private DecodedJWT verify(String token) {
         try {
-            return JWT.require(Algorithm.HMAC256(SECRET))
-                    .withIssuer(ISSUER).build()
-                    .verify(authorization.substring(BEARER.length()));
+            return this.verifier.verify(token);
         } catch (Exception exception) {
             throw new JwtException("JWT is wrong. " + exception.getMessage());
         }
+    }
 
+    private static String hash(String token) {
+        try {
+            return Base64.getEncoder().encodeToString(
+                    MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
     }
 
-    public List<String> roles(String authorization) {
-        return Arrays.asList(this.verify(authorization).getClaim(ROLES).asArray(String.class));
+    public static class Claims {
+
+        private final String user;
+        private final List<String> roles;
+        private final long expiresAt;
+
+        Claims(DecodedJWT decodedJWT) {
+            this.user = decodedJWT.getClaim(USER).asString();
+            String[] tokenRoles = decodedJWT.getClaim(ROLES).asArray(String.class);
+            this.roles = tokenRoles == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(tokenRoles));
+            this.expiresAt = decodedJWT.getExpiresAt() == null ? Long.MAX_VALUE : decodedJWT.getExpiresAt().getTime();
+        }
+
+        public String getUser() {
+            return user;
+        }
+
+        public List<String> getRoles() {
+            return roles;
+        }
+
+        boolean isValid() {
+            return System.currentTimeMillis() < this.expiresAt;
+        }
+
+        @Override
+        public String toString() {
+            return "Claims{" +
+                    "user='" + user + '\'' +
+                    ", roles=" + roles +
+                    ", expiresAt=" + expiresAt +
+                    '}';
+        }
     }
 
 }
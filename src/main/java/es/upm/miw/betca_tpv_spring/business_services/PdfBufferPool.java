@@ -0,0 +1,30 @@
+package es.upm.miw.betca_tpv_spring.business_services;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+final class PdfBufferPool {
+
+    private static final int POOL_SIZE = 32;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private static final BlockingQueue<ByteArrayOutputStream> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private PdfBufferPool() {
+        // static class
+    }
+
+    static ByteArrayOutputStream acquire() {
+        ByteArrayOutputStream buffer = POOL.poll();
+        return buffer != null ? buffer : new ByteArrayOutputStream(INITIAL_CAPACITY);
+    }
+
+    static void release(ByteArrayOutputStream buffer) {
+        if (buffer.size() <= MAX_RETAINED_CAPACITY) {
+            buffer.reset();
+            POOL.offer(buffer);
+        }
+    }
+}
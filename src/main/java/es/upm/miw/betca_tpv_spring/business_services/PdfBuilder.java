@@ -4,7 +4,10 @@ import com.itextpdf.barcodes.Barcode128;
 import com.itextpdf.barcodes.BarcodeQRCode;
 import com.itextpdf.io.image.ImageDataFactory;
 import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.kernel.pdf.canvas.draw.DottedLine;
 import com.itextpdf.layout.Document;
@@ -17,6 +20,8 @@ import es.upm.miw.betca_tpv_spring.exceptions.PdfException;
 import org.apache.logging.log4j.LogManager;
 import org.springframework.core.io.ClassPathResource;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -41,13 +46,41 @@ public class PdfBuilder {
     private static final float THERMAL_PAGE_WIDTH = 227;
     private static final float THERMAL_PAGE_HEIGHT = 800;
 
+    private static final ThreadLocal<TemplateSource> TEMPLATE_SOURCES = new ThreadLocal<>();
+
     private String filename;
 
+    private ByteArrayOutputStream buffer;
+
     private Document document;
 
     public PdfBuilder(String path) {
         this.filename = System.getProperty(USER_HOME) + path + PDF_FILE_EXT;
         this.prepareDocument(new PageSize(THERMAL_PAGE_WIDTH, THERMAL_PAGE_HEIGHT));
+        this.setThermalFormat();
+    }
+
+    private PdfBuilder(String path, ByteArrayOutputStream buffer, PageSize pageSize) {
+        this.filename = System.getProperty(USER_HOME) + path + PDF_FILE_EXT;
+        this.buffer = buffer;
+        PdfWriter pdfWriter = new PdfWriter(buffer);
+        pdfWriter.setCloseStream(false);
+        this.document = new Document(new PdfDocument(pdfWriter), pageSize);
+        this.setThermalFormat();
+    }
+
+    public static PdfBuilder inMemory(String path) {
+        return new PdfBuilder(path, PdfBufferPool.acquire(), new PageSize(THERMAL_PAGE_WIDTH, THERMAL_PAGE_HEIGHT));
+    }
+
+    public static PdfBuilder template() {
+        PdfBuilder pdf = new PdfBuilder("", new ByteArrayOutputStream(),
+                new PageSize(THERMAL_PAGE_WIDTH - THERMAL_MARGIN_LEFT - THERMAL_MARGIN_RIGHT, THERMAL_PAGE_HEIGHT));
+        pdf.document.setMargins(0, 0, 0, 0);
+        return pdf;
+    }
+
+    private void setThermalFormat() {
         this.document.setMargins(THERMAL_MARGIN_TOP_BOTTOM, THERMAL_MARGIN_RIGHT, THERMAL_MARGIN_TOP_BOTTOM, THERMAL_MARGIN_LEFT);
         this.document.setFontSize(THERMAL_FONT_SIZE);
     }
@@ -128,12 +161,61 @@ public class PdfBuilder {
         return this;
     }
 
+    public PdfBuilder template(byte[] template) {
+        try {
+            this.document.add(new Image(templateSource(template).getFirstPage()
+                    .copyAsFormXObject(this.document.getPdfDocument())));
+        } catch (IOException ioe) {
+            LogManager.getLogger(this.getClass()).error(String.format("PdfBuilder::template. Error when add template to PDF. %s", ioe));
+            throw new PdfException("Can’t add template to PDF");
+        }
+        return this;
+    }
+
+    /**
+     * The parsed template is kept per thread (a PdfDocument is not thread safe) while the same bytes are given,
+     * each document still copies the page into its own form.
+     */
+    private static PdfDocument templateSource(byte[] template) throws IOException {
+        TemplateSource source = TEMPLATE_SOURCES.get();
+        if (source == null || source.template != template) {
+            if (source != null) {
+                source.document.close();
+            }
+            source = new TemplateSource(template, new PdfDocument(new PdfReader(new ByteArrayInputStream(template))));
+            TEMPLATE_SOURCES.set(source);
+        }
+        return source.document;
+    }
+
     public PdfTableBuilder table(float... widths) {
         return new PdfTableBuilder(this, this.document, widths);
     }
 
+    public String getFilename() {
+        return filename;
+    }
+
+    public boolean isInMemory() {
+        return this.buffer != null;
+    }
+
+    public byte[] buildTemplate() {
+        Rectangle free = this.document.getRenderer().getCurrentArea().getBBox();
+        PdfPage page = this.document.getPdfDocument().getFirstPage();
+        Rectangle pageSize = page.getPageSize();
+        page.setMediaBox(new Rectangle(0, free.getTop(), pageSize.getWidth(), pageSize.getHeight() - free.getTop()));
+        return this.build();
+    }
+
     public byte[] build() {
         this.document.close();
+        if (this.isInMemory()) {
+            byte[] bytes = this.buffer.toByteArray();
+            PdfBufferPool.release(this.buffer);
+            this.buffer = null;
+            return bytes;
+        }
         try {
             return Files.readAllBytes(new File(this.filename).toPath());
         } catch (IOException ioe) {
@@ -141,4 +223,15 @@ public class PdfBuilder {
             throw new PdfException("Can’t read PDF (" + this.filename + ")");
         }
     }
+
+    private static class TemplateSource {
+        private final byte[] template;
+        private final PdfDocument document;
+
+        TemplateSource(byte[] template, PdfDocument document) {
+            this.template = template;
+            this.document = document;
+        }
+    }
+
 }
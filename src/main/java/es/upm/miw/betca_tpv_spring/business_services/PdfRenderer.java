@@ -0,0 +1,116 @@
+package es.upm.miw.betca_tpv_spring.business_services;
+
+import es.upm.miw.betca_tpv_spring.dtos.PdfRenderStatsDto;
+import es.upm.miw.betca_tpv_spring.exceptions.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+@Service
+public class PdfRenderer {
+
+    private static final String THREAD_NAME = "pdf-render-";
+    private static final String RESERVED_THREAD_NAME = "pdf-render-reserved-";
+
+    private final ThreadPoolExecutor executor;
+    private final Scheduler scheduler;
+    private final ThreadPoolExecutor reservedExecutor;
+    private final Scheduler reservedScheduler;
+    private final LongAdder rendered = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public PdfRenderer(@Value("${miw.pdf.render.threads}") int threads, @Value("${miw.pdf.render.queue}") int queue,
+                       @Value("${miw.pdf.render.reserved.threads}") int reservedThreads,
+                       @Value("${miw.pdf.render.reserved.queue}") int reservedQueue) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queue),
+                threadFactory(THREAD_NAME), new ThreadPoolExecutor.AbortPolicy());
+        this.scheduler = Schedulers.fromExecutorService(this.executor);
+        this.reservedExecutor = new ThreadPoolExecutor(reservedThreads, reservedThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(reservedQueue), threadFactory(RESERVED_THREAD_NAME), new ThreadPoolExecutor.AbortPolicy());
+        this.reservedScheduler = Schedulers.fromExecutorService(this.reservedExecutor);
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public <T> Mono<byte[]> render(Mono<T> documentReact, Function<T, byte[]> pdf) {
+        return this.render(documentReact, pdf, this.scheduler);
+    }
+
+    /**
+     * On the reserved workers, with their own larger queue: for documents already committed, such as the ticket of a
+     * saved sale, that must not be rejected by a burst of the other renders. Only beyond that queue they are rejected.
+     */
+    public <T> Mono<byte[]> renderReserved(Mono<T> documentReact, Function<T, byte[]> pdf) {
+        return this.render(documentReact, pdf, this.reservedScheduler);
+    }
+
+    private <T> Mono<byte[]> render(Mono<T> documentReact, Function<T, byte[]> pdf, Scheduler workers) {
+        return documentReact.flatMap(document -> Mono.fromCallable(() -> this.timed(pdf, document))
+                .subscribeOn(workers)
+                .onErrorMap(RejectedExecutionException.class, exception -> {
+                    this.rejected.increment();
+                    return new ServiceUnavailableException("PDF rendering queue is full, try again later");
+                }));
+    }
+
+    private <T> byte[] timed(Function<T, byte[]> pdf, T document) {
+        long start = System.nanoTime();
+        try {
+            return pdf.apply(document);
+        } finally {
+            this.renderNanos.add(System.nanoTime() - start);
+            this.rendered.increment();
+        }
+    }
+
+    public int getQueueDepth() {
+        return this.executor.getQueue().size() + this.reservedExecutor.getQueue().size();
+    }
+
+    public int getActive() {
+        return this.executor.getActiveCount() + this.reservedExecutor.getActiveCount();
+    }
+
+    public long getRendered() {
+        return this.rendered.sum();
+    }
+
+    public long getRenderNanos() {
+        return this.renderNanos.sum();
+    }
+
+    public long getRejected() {
+        return this.rejected.sum();
+    }
+
+    public PdfRenderStatsDto stats() {
+        return new PdfRenderStatsDto(this.getQueueDepth(), this.getActive(), this.getRendered(),
+                TimeUnit.NANOSECONDS.toMillis(this.getRenderNanos()), this.getRejected());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.scheduler.dispose();
+        this.reservedScheduler.dispose();
+    }
+}
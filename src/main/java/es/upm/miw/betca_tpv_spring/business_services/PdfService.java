@@ -1,13 +1,13 @@
 package es.upm.miw.betca_tpv_spring.business_services;
 
 import es.upm.miw.betca_tpv_spring.documents.*;
-import es.upm.miw.betca_tpv_spring.exceptions.NotFoundException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import javax.annotation.PostConstruct;
 import java.io.File;
-import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.nio.file.Files;
@@ -26,6 +26,13 @@ public class PdfService {
 
     public static final String USER_HOME = "user.home";
     public static final String PDF_FILE_EXT = ".pdf";
+    private static final String TICKETS_PATH = "/tpv-pdfs/tickets/ticket-";
+
+    @Value("${miw.pdf.memory}")
+    private boolean inMemory;
+
+    @Value("${miw.pdf.archive}")
+    private boolean archive;
 
     @Value("${miw.company.logo}")
     private String logo;
@@ -50,11 +57,40 @@ public class PdfService {
 
     private FileService fileService;
 
-    public PdfService(FileService fileService) {
+    private PdfRenderer pdfRenderer;
+
+    private byte[] headTemplate;
+
+    public PdfService(FileService fileService, PdfRenderer pdfRenderer) {
         this.fileService = fileService;
+        this.pdfRenderer = pdfRenderer;
+    }
+
+    private PdfBuilder pdfBuilder(String path) {
+        return this.inMemory ? PdfBuilder.inMemory(path) : new PdfBuilder(path);
+    }
+
+    private byte[] build(PdfBuilder pdf) {
+        boolean inMemory = pdf.isInMemory(); // the buffer is released by build()
+        byte[] bytes = pdf.build();
+        if (inMemory && this.archive) {
+            this.fileService.writeAsync(pdf.getFilename(), bytes);
+        }
+        return bytes;
+    }
+
+    @PostConstruct
+    public void buildHeadTemplate() {
+        PdfBuilder pdf = PdfBuilder.template();
+        this.addCompanyHead(pdf);
+        this.headTemplate = pdf.buildTemplate();
     }
 
     private void addHead(PdfBuilder pdf) {
+        pdf.template(this.headTemplate);
+    }
+
+    private void addCompanyHead(PdfBuilder pdf) {
         pdf.image(this.logo).paragraphEmphasized(this.name).paragraphEmphasized("Tfn: " + this.phone)
                 .paragraph("NIF: " + this.nif + "   -   " + this.address)
                 .paragraph("Email: " + this.email + "  -  " + "Web: " + this.web);
@@ -98,9 +134,10 @@ public class PdfService {
     }
 
     public Mono<byte[]> generateTicket(Mono<Ticket> ticketReact) {
-        return ticketReact.map(ticket -> {
-            final String path = "/tpv-pdfs/tickets/ticket-" + ticket.getId();
-            PdfBuilder pdf = new PdfBuilder(path);
+        // The sale is saved by then, a full queue must not turn it into an error
+        return this.pdfRenderer.renderReserved(ticketReact, ticket -> {
+            final String path = TICKETS_PATH + ticket.getId();
+            PdfBuilder pdf = this.pdfBuilder(path);
             this.addHead(pdf);
             if (ticket.getCustomerPoints() != null)
                 pdf.paragraphEmphasized("Acummulated points: " + ticket.getCustomerPoints().getPoints());
@@ -135,14 +172,14 @@ public class PdfService {
             pdf.paragraph(ticket.getNote());
             this.addBookingDetails(pdf, notCommitted, ticket);
             this.addFoot(pdf);
-            return pdf.build();
+            return this.build(pdf);
         });
     }
 
     public Mono<byte[]> generateGiftTicket(Mono<GiftTicket> giftTicketReact) {
-        return giftTicketReact.map(giftTicket -> {
+        return this.pdfRenderer.render(giftTicketReact, giftTicket -> {
             final String path = "/tpv-pdfs/tickets/gift-ticket-" + giftTicket.getId();
-            PdfBuilder pdf = new PdfBuilder(path);
+            PdfBuilder pdf = this.pdfBuilder(path);
             Ticket myTicket = giftTicket.getTicket();
             this.addHead(pdf);
             pdf.paragraphEmphasized("GIFT TICKET");
@@ -157,14 +194,14 @@ public class PdfService {
             pdf.paragraph("Expiration date: " + giftTicket.getExpirationDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
             pdf.line().paragraphEmphasized("Message: " + giftTicket.getPersonalizedMessage())
                     .paragraphEmphasized(" ").line();
-            return pdf.build();
+            return this.build(pdf);
         });
     }
 
     public Mono<byte[]> generateBudget(Mono<Budget> budgetReact) {
-        return budgetReact.map(budget -> {
+        return this.pdfRenderer.render(budgetReact, budget -> {
             final String path = "/tpv-pdfs/budgets/budget-" + budget.getId();
-            PdfBuilder pdf = new PdfBuilder(path);
+            PdfBuilder pdf = this.pdfBuilder(path);
             this.addHead(pdf);
             pdf.barCode(budget.getId());
             pdf.paragraphEmphasized("BUDGET");
@@ -183,35 +220,35 @@ public class PdfService {
                         shopping.getShoppingTotal().setScale(2, RoundingMode.HALF_UP) + "€",state);
             }
             table.tableColspanRight(total + "€").build();
-            return pdf.build();
+            return this.build(pdf);
         });
     }
 
     public Mono<byte[]> generateVoucher(Mono<Voucher> voucherReact) {
-        return voucherReact.map(voucher -> {
+        return this.pdfRenderer.render(voucherReact, voucher -> {
             final String path = "/tpv-pdfs/vouchers/voucher-" + voucher.getId();
-            PdfBuilder pdf = new PdfBuilder(path);
+            PdfBuilder pdf = this.pdfBuilder(path);
             this.addHead(pdf);
             pdf.qrCode(voucher.getId());
             pdf.paragraphEmphasized(voucher.getCreationDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
 
             this.addVoucherValue(pdf, voucher);
             this.addFootVoucher(pdf);
-            return pdf.build();
+            return this.build(pdf);
         });
     }
 
     public Mono<byte[]> generateInvoice(Mono<Invoice> invoiceReact) {
-        return invoiceReact.map(invoice -> buildInvoicePdf(invoice, invoice.getTicket().getShoppingList()));
+        return this.pdfRenderer.render(invoiceReact, invoice -> buildInvoicePdf(invoice, invoice.getTicket().getShoppingList()));
     }
 
     public Mono<byte[]> generateNegativeInvoice(Mono<Invoice> invoiceReact, Shopping[] returnedShoppings) {
-        return invoiceReact.map(invoice -> buildInvoicePdf(invoice, returnedShoppings));
+        return this.pdfRenderer.render(invoiceReact, invoice -> buildInvoicePdf(invoice, returnedShoppings));
     }
 
     public byte[] buildInvoicePdf(Invoice invoice, Shopping[] shoppings) {
         final String path = "/tpv-pdfs/invoices/invoice-" + invoice.getId();
-        PdfBuilder pdf = new PdfBuilder(path);
+        PdfBuilder pdf = this.pdfBuilder(path);
         this.addHead(pdf);
         this.addCostumerHead(pdf, invoice.getUser());
         pdf.paragraphEmphasized("Invoice Date:" +
@@ -233,7 +270,7 @@ public class PdfService {
         table.tableColspanRight(invoice.getTax().setScale(2, RoundingMode.HALF_UP) + "€");
         table.tableColspanRight("TOTAL");
         table.tableColspanRight(total.setScale(2, RoundingMode.HALF_UP) + "€").build();
-        return pdf.build();
+        return this.build(pdf);
     }
 
     private void addOfferValue(PdfBuilder pdf, Offer offer) {
@@ -242,15 +279,15 @@ public class PdfService {
     }
 
     public Mono<byte[]> generateOffer(Mono<Offer> offerReact) {
-        return offerReact.map(offer -> {
+        return this.pdfRenderer.render(offerReact, offer -> {
             final String path = "/tpv-pdfs/offers/offer-" + offer.getId();
-            PdfBuilder pdf = new PdfBuilder(path);
+            PdfBuilder pdf = this.pdfBuilder(path);
             this.addHead(pdf);
             pdf.qrCode(offer.getId());
             pdf.paragraphEmphasized(offer.getExpirationDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
 
             this.addOfferValue(pdf, offer);
-            return pdf.build();
+            return this.build(pdf);
         });
     }
 
@@ -258,14 +295,12 @@ public class PdfService {
         return fileService.read(System.getProperty(PdfBuilder.USER_HOME) + filepath + PdfBuilder.PDF_FILE_EXT);
     }
 
-    public byte[] getPdfFromTicketId(String ticketId) throws IOException {
-        final String path = "/tpv-pdfs/tickets/ticket-" + ticketId;
-        String filename = System.getProperty(USER_HOME) + path + PDF_FILE_EXT;
-        File file = new File(filename);
-        if(!file.exists()){
-            throw new NotFoundException("File with ticket id " +ticketId+" not found");
-        }
-        return Files.readAllBytes(file.toPath());
+    public Mono<byte[]> readTicketPdf(String ticketId) {
+        final String path = TICKETS_PATH + ticketId;
+        return Mono.fromCallable(() -> {
+            File file = new File(System.getProperty(USER_HOME) + path + PDF_FILE_EXT);
+            return file.exists() ? Files.readAllBytes(file.toPath()) : null;
+        }).subscribeOn(Schedulers.elastic());
     }
 
     private void addTagValue(PdfBuilder pdf, Tag tag){
@@ -273,13 +308,13 @@ public class PdfService {
                 .paragraphEmphasized(" ").line();
     }
     public Mono<byte[]> generateTag(Mono<Tag> tagReact){
-        return tagReact.map(tag -> {
+        return this.pdfRenderer.render(tagReact, tag -> {
             final String path = "/tpv-pdfs/tags/tag-" + tag.getId();
-            PdfBuilder pdf = new PdfBuilder(path);
+            PdfBuilder pdf = this.pdfBuilder(path);
             this.addHead(pdf);
             pdf.qrCode(tag.getDescription());
             this.addTagValue(pdf, tag);
-            return pdf.build();
+            return this.build(pdf);
         });
     }
 }
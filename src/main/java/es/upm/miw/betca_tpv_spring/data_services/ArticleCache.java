@@ -0,0 +1,155 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import es.upm.miw.betca_tpv_spring.documents.Article;
+import es.upm.miw.betca_tpv_spring.dtos.ArticleCacheStatsDto;
+import es.upm.miw.betca_tpv_spring.repositories.ArticleReactRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded near-cache of the article catalogue, a Caffeine cache (concurrent, size evictions by frequency and
+ * recency). Articles are handed out as copies without stock, callers that need the stock must read the repository.
+ * A loaded article is discarded if an invalidation of the same code happened during the load (versions are kept
+ * per stripe of codes).
+ */
+@Service
+public class ArticleCache {
+
+    private static final int VERSION_STRIPES = 64;
+
+    private ArticleReactRepository articleReactRepository;
+    private boolean enabled;
+    private Cache<String, Article> entries;
+    private AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private LongAdder hits = new LongAdder();
+    private LongAdder misses = new LongAdder();
+    private LongAdder evictions = new LongAdder();
+    private LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public ArticleCache(ArticleReactRepository articleReactRepository,
+                        @Value("${miw.article.cache.enabled}") boolean enabled,
+                        @Value("${miw.article.cache.size}") int size,
+                        @Value("${miw.article.cache.ttl.seconds}") long ttlSeconds) {
+        this(articleReactRepository, enabled, size, ttlSeconds, Ticker.systemTicker());
+    }
+
+    ArticleCache(ArticleReactRepository articleReactRepository, boolean enabled, int size, long ttlSeconds,
+                 Ticker ticker) {
+        this.articleReactRepository = articleReactRepository;
+        this.enabled = enabled;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .ticker(ticker)
+                .executor(Runnable::run) // The maintenance is cheap, the stats are exact after each call
+                .removalListener((String code, Article article, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        this.evictions.increment();
+                    }
+                })
+                .build();
+    }
+
+    public Mono<Article> findById(String code) {
+        return Mono.defer(() -> {
+            Article cached = this.get(code);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long version = this.version(code);
+            return this.articleReactRepository.findById(code)
+                    .map(article -> this.put(article, version));
+        });
+    }
+
+    public Flux<Article> findAllById(Collection<String> codes) {
+        return Flux.defer(() -> {
+            List<Article> found = new ArrayList<>();
+            Map<String, Long> missing = new LinkedHashMap<>();
+            for (String code : codes) {
+                Article cached = this.get(code);
+                if (cached != null) {
+                    found.add(cached);
+                } else {
+                    missing.put(code, this.version(code));
+                }
+            }
+            if (missing.isEmpty()) {
+                return Flux.fromIterable(found);
+            }
+            return Flux.fromIterable(found).concatWith(this.articleReactRepository.findAllById(missing.keySet())
+                    .map(article -> this.put(article, missing.get(article.getCode()))));
+        });
+    }
+
+    public void invalidate(String code) {
+        this.versions.incrementAndGet(this.stripe(code));
+        this.entries.invalidate(code);
+        this.invalidations.increment();
+    }
+
+    public void clear() {
+        for (int stripe = 0; stripe < VERSION_STRIPES; stripe++) {
+            this.versions.incrementAndGet(stripe);
+        }
+        this.entries.invalidateAll();
+    }
+
+    public ArticleCacheStatsDto stats() {
+        this.entries.cleanUp();
+        return new ArticleCacheStatsDto(this.enabled, (int) this.entries.estimatedSize(), this.hits.sum(), this.misses.sum(),
+                this.evictions.sum(), this.invalidations.sum());
+    }
+
+    private Article get(String code) {
+        if (!this.enabled) {
+            return null;
+        }
+        Article cached = this.entries.getIfPresent(code);
+        if (cached == null) {
+            this.misses.increment();
+            return null;
+        }
+        this.hits.increment();
+        return cached.withoutStock();
+    }
+
+    private Article put(Article article, long version) {
+        Article cached = article.withoutStock();
+        if (this.enabled) {
+            this.entries.put(article.getCode(), cached);
+            // An invalidation bumps the version before removing, so either it removes this entry or it is seen here
+            if (this.version(article.getCode()) != version) {
+                this.entries.asMap().remove(article.getCode(), cached);
+            }
+        }
+        return cached.withoutStock();
+    }
+
+    private long version(String code) {
+        return this.versions.get(this.stripe(code));
+    }
+
+    private int stripe(String code) {
+        return (code.hashCode() & Integer.MAX_VALUE) % VERSION_STRIPES;
+    }
+
+}
@@ -0,0 +1,286 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.documents.CashierClosure;
+import es.upm.miw.betca_tpv_spring.documents.CashierSales;
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import es.upm.miw.betca_tpv_spring.exceptions.ConflictException;
+import es.upm.miw.betca_tpv_spring.repositories.CashierClosureReactRepository;
+import es.upm.miw.betca_tpv_spring.repositories.TicketReactRepository;
+import org.apache.logging.log4j.LogManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the sales of the open cashier closure in memory (cents) and writes them behind, with $inc,
+ * to its cashierSales document. Tickets are the source of truth: attaching to an open closure,
+ * after a restart or a crash, recomputes its sales from the tickets created since its opening.
+ * Every flush increments the version, and the recomputed sales are written only over the version they were read with.
+ * The close waits for the sales in progress and rejects the later ones, so none falls outside the totals.
+ */
+@Service
+public class CashierSalesService {
+
+    private static final String CARD = "card";
+    private static final String CASH = "cash";
+    private static final String VOUCHERS = "vouchers";
+    private static final String VERSION = "version";
+    private static final String CLOSED = "Can not operate with a closed cashier";
+    private static final Duration CLOSE_WAIT = Duration.ofMillis(10);
+    private static final int CLOSE_WAIT_ROUNDS = 500;
+    private static final int RECONCILE_ROUNDS = 10;
+
+    @Value("${miw.cashier.flush.millis}")
+    private long flushMillis;
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+    private CashierClosureReactRepository cashierClosureReactRepository;
+    private TicketReactRepository ticketReactRepository;
+
+    private AtomicReference<OpenSales> openSales = new AtomicReference<>();
+    private Disposable flusher;
+
+    @Autowired
+    public CashierSalesService(ReactiveMongoOperations reactiveMongoOperations,
+                               CashierClosureReactRepository cashierClosureReactRepository,
+                               TicketReactRepository ticketReactRepository) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.cashierClosureReactRepository = cashierClosureReactRepository;
+        this.ticketReactRepository = ticketReactRepository;
+    }
+
+    @PostConstruct
+    void startFlusher() {
+        this.flusher = Flux.interval(Duration.ofMillis(this.flushMillis))
+                .onBackpressureDrop()
+                .concatMap(tick -> this.flush()
+                        .onErrorResume(exception -> {
+                            LogManager.getLogger(this.getClass()).error("Flushing cashier sales: " + exception);
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stopFlusher() {
+        this.flusher.dispose();
+        try {
+            this.flush().block(Duration.ofSeconds(5));
+        } catch (RuntimeException exception) {
+            LogManager.getLogger(this.getClass()).error("Flushing cashier sales on shutdown: " + exception);
+        }
+    }
+
+    public void opened(CashierClosure cashierClosure) {
+        this.openSales.set(new OpenSales(new CashierSales(cashierClosure.getId())));
+    }
+
+    public Mono<Ticket> sale(Mono<Ticket> ticket) {
+        return this.opened().flatMap(current -> {
+            if (!current.enter()) {
+                return Mono.error(new ConflictException(CLOSED));
+            }
+            return ticket
+                    .doOnNext(saved -> current.add(CashierSales.cents(saved.getCard()),
+                            CashierSales.cents(saved.getCash()), CashierSales.cents(saved.getVoucher())))
+                    .doFinally(signal -> current.exit());
+        });
+    }
+
+    public Mono<CashierSales> sales(CashierClosure cashierClosure) {
+        return Mono.defer(() -> {
+            OpenSales current = this.openSales.get();
+            if (current != null && current.id.equals(cashierClosure.getId())) {
+                return Mono.just(current.snapshot());
+            }
+            return this.attach(cashierClosure).map(OpenSales::snapshot);
+        });
+    }
+
+    public Mono<Void> flush() {
+        return Mono.defer(() -> {
+            OpenSales current = this.openSales.get();
+            return current == null ? Mono.empty() : this.flush(current);
+        });
+    }
+
+    public Mono<CashierSales> close(CashierClosure cashierClosure) {
+        return this.sales(cashierClosure).then(Mono.defer(() -> {
+            OpenSales current = this.openSales.get();
+            if (current == null || !current.id.equals(cashierClosure.getId())) {
+                return this.reconcile(cashierClosure);
+            }
+            current.closed = true;
+            return Mono.fromSupplier(current.pending::get)
+                    .filter(pending -> pending == 0)
+                    .repeatWhenEmpty(CLOSE_WAIT_ROUNDS, rounds -> rounds.delayElements(CLOSE_WAIT))
+                    .onErrorResume(IllegalStateException.class, exception -> {
+                        LogManager.getLogger(this.getClass()).warn("------- Closing cashier " + current.id
+                                + " with " + current.pending.get() + " sales in progress");
+                        return Mono.empty();
+                    })
+                    .then(this.flush(current))
+                    .then(Mono.fromSupplier(current::snapshot));
+        }));
+    }
+
+    public Mono<CashierSales> reconcile(CashierClosure cashierClosure) {
+        Mono<CashierSales> stored = this.reactiveMongoOperations
+                .findById(cashierClosure.getId(), CashierSales.class)
+                .defaultIfEmpty(new CashierSales(cashierClosure.getId()));
+        return stored
+                .zipWhen(read -> this.ticketReactRepository.findByCreationDateGreaterThanEqual(cashierClosure.getOpeningDate())
+                        .reduceWith(() -> new CashierSales(cashierClosure.getId()),
+                                (sales, ticket) -> sales.add(ticket.getCard(), ticket.getCash(), ticket.getVoucher())))
+                .flatMap(tuple -> {
+                    if (tuple.getT2().sameTotals(tuple.getT1())) {
+                        return Mono.just(tuple.getT2());
+                    }
+                    return this.replace(tuple.getT2(), tuple.getT1().getVersion())
+                            .doOnNext(reconciled -> LogManager.getLogger(this.getClass()).warn("------- Reconciled cashier sales "
+                                    + tuple.getT1() + " from tickets: " + reconciled));
+                })
+                .repeatWhenEmpty(RECONCILE_ROUNDS, rounds -> rounds)
+                .onErrorMap(IllegalStateException.class,
+                        exception -> new ConflictException("Cashier sales changing while reconciling"));
+    }
+
+    public void reset() {
+        this.openSales.set(null);
+    }
+
+    private Mono<OpenSales> opened() {
+        return Mono.defer(() -> {
+            OpenSales current = this.openSales.get();
+            if (current != null) {
+                return Mono.just(current);
+            }
+            return this.cashierClosureReactRepository.findFirstByOrderByOpeningDateDesc()
+                    .filter(cashierClosure -> !cashierClosure.isClosed())
+                    .switchIfEmpty(Mono.error(new ConflictException(CLOSED)))
+                    .flatMap(this::attach);
+        });
+    }
+
+    private Mono<OpenSales> attach(CashierClosure cashierClosure) {
+        return this.reconcile(cashierClosure)
+                .map(sales -> this.openSales.updateAndGet(current ->
+                        current != null && current.id.equals(sales.getId()) ? current : new OpenSales(sales)));
+    }
+
+    /**
+     * Empty if a flush changed the version since it was read.
+     */
+    private Mono<CashierSales> replace(CashierSales sales, long version) {
+        Criteria unchanged = Criteria.where("id").is(sales.getId());
+        if (version == 0) {
+            unchanged.and(VERSION).in(0, null);
+        } else {
+            unchanged.and(VERSION).is(version);
+        }
+        return this.reactiveMongoOperations.upsert(new Query(unchanged), new Update().set(CARD, sales.getCard())
+                .set(CASH, sales.getCash()).set(VOUCHERS, sales.getVouchers()).inc(VERSION, 1), CashierSales.class)
+                .map(updateResult -> sales)
+                .onErrorResume(DuplicateKeyException.class, exception -> Mono.empty());
+    }
+
+    /**
+     * Completes when the delta taken, and any other taken before by the flusher, is written.
+     */
+    private Mono<Void> flush(OpenSales current) {
+        return Mono.defer(() -> {
+            current.flushing.incrementAndGet();
+            CashierSales delta = current.takeDelta();
+            Mono<Void> write = delta.isEmpty() ? Mono.empty() : this.reactiveMongoOperations
+                    .upsert(new Query(Criteria.where("id").is(delta.getId())),
+                            new Update().inc(CARD, delta.getCard()).inc(CASH, delta.getCash()).inc(VOUCHERS, delta.getVouchers())
+                                    .inc(VERSION, 1),
+                            CashierSales.class)
+                    .doOnError(exception -> current.restoreDelta(delta))
+                    .then();
+            return write
+                    .doOnTerminate(current.flushing::decrementAndGet)
+                    .doOnCancel(current.flushing::decrementAndGet)
+                    .then(Mono.fromSupplier(current.flushing::get)
+                            .filter(flushing -> flushing == 0)
+                            .repeatWhenEmpty(CLOSE_WAIT_ROUNDS, rounds -> rounds.delayElements(CLOSE_WAIT))
+                            .then());
+        });
+    }
+
+    private static class OpenSales {
+        private final String id;
+        private final LongAdder card = new LongAdder();
+        private final LongAdder cash = new LongAdder();
+        private final LongAdder vouchers = new LongAdder();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger flushing = new AtomicInteger();
+        private volatile boolean closed;
+        private long flushedCard;
+        private long flushedCash;
+        private long flushedVouchers;
+
+        OpenSales(CashierSales flushed) {
+            this.id = flushed.getId();
+            this.add(flushed.getCard(), flushed.getCash(), flushed.getVouchers());
+            this.flushedCard = flushed.getCard();
+            this.flushedCash = flushed.getCash();
+            this.flushedVouchers = flushed.getVouchers();
+        }
+
+        boolean enter() {
+            this.pending.incrementAndGet();
+            if (this.closed) {
+                this.pending.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        void exit() {
+            this.pending.decrementAndGet();
+        }
+
+        void add(long card, long cash, long vouchers) {
+            this.card.add(card);
+            this.cash.add(cash);
+            this.vouchers.add(vouchers);
+        }
+
+        CashierSales snapshot() {
+            return new CashierSales(this.id, this.card.sum(), this.cash.sum(), this.vouchers.sum());
+        }
+
+        synchronized CashierSales takeDelta() {
+            CashierSales total = this.snapshot();
+            CashierSales delta = new CashierSales(this.id, total.getCard() - this.flushedCard,
+                    total.getCash() - this.flushedCash, total.getVouchers() - this.flushedVouchers);
+            this.flushedCard = total.getCard();
+            this.flushedCash = total.getCash();
+            this.flushedVouchers = total.getVouchers();
+            return delta;
+        }
+
+        synchronized void restoreDelta(CashierSales delta) {
+            this.flushedCard -= delta.getCard();
+            this.flushedCash -= delta.getCash();
+            this.flushedVouchers -= delta.getVouchers();
+        }
+    }
+
+}
@@ -49,6 +49,17 @@ public class DatabaseSeederService {
     private StaffRepository staffRepository;
     private StockAlarmRepository stockAlarmRepository;
     private MessagesRepository messagesRepository;
+    private CounterRepository counterRepository;
+    private SequenceService sequenceService;
+    private CashierSalesRepository cashierSalesRepository;
+    private CashierSalesService cashierSalesService;
+    private ArticleCache articleCache;
+    private VatRollupRepository vatRollupRepository;
+    private SalesDailyRepository salesDailyRepository;
+    private SalesDailyService salesDailyService;
+    private StockAlarmIndex stockAlarmIndex;
+    private PendingDeliveryRepository pendingDeliveryRepository;
+    private PendingDeliveryService pendingDeliveryService;
 
     @Autowired
     public DatabaseSeederService(
@@ -72,7 +83,18 @@ public class DatabaseSeederService {
             SendingsRepository sendingsRepository,
             StaffRepository staffRepository,
             StockAlarmRepository stockAlarmRepository,
-            MessagesRepository messagesRepository
+            MessagesRepository messagesRepository,
+            CounterRepository counterRepository,
+            SequenceService sequenceService,
+            CashierSalesRepository cashierSalesRepository,
+            CashierSalesService cashierSalesService,
+            ArticleCache articleCache,
+            VatRollupRepository vatRollupRepository,
+            SalesDailyRepository salesDailyRepository,
+            SalesDailyService salesDailyService,
+            StockAlarmIndex stockAlarmIndex,
+            PendingDeliveryRepository pendingDeliveryRepository,
+            PendingDeliveryService pendingDeliveryService
     ) {
         this.ticketRepository = ticketRepository;
         this.giftTicketRepository = giftTicketRepository;
@@ -95,6 +117,17 @@ public class DatabaseSeederService {
         this.staffRepository = staffRepository;
         this.stockAlarmRepository = stockAlarmRepository;
         this.messagesRepository = messagesRepository;
+        this.counterRepository = counterRepository;
+        this.sequenceService = sequenceService;
+        this.cashierSalesRepository = cashierSalesRepository;
+        this.cashierSalesService = cashierSalesService;
+        this.articleCache = articleCache;
+        this.vatRollupRepository = vatRollupRepository;
+        this.salesDailyRepository = salesDailyRepository;
+        this.salesDailyService = salesDailyService;
+        this.stockAlarmIndex = stockAlarmIndex;
+        this.pendingDeliveryRepository = pendingDeliveryRepository;
+        this.pendingDeliveryService = pendingDeliveryService;
     }
 
     @PostConstruct
@@ -160,6 +193,15 @@ public class DatabaseSeederService {
         this.stockAlarmRepository.deleteAll();
         this.customerPointsRepository.deleteAll();
         this.customerDiscountRepository.deleteAll();
+        this.counterRepository.deleteAll();
+        this.sequenceService.reset();
+        this.cashierSalesRepository.deleteAll();
+        this.cashierSalesService.reset();
+        this.articleCache.clear();
+        this.vatRollupRepository.deleteAll();
+        this.salesDailyRepository.deleteAll();
+        this.stockAlarmIndex.invalidate();
+        this.pendingDeliveryRepository.deleteAll();
         // -------------------------------------------------------------------------
         this.initialize();
     }
@@ -281,6 +323,8 @@ public class DatabaseSeederService {
         tickets[4].setId("201901125");
         tickets[5].setId("201901126");
         this.ticketRepository.saveAll(Arrays.asList(tickets));
+        this.salesDailyRepository.saveAll(this.salesDailyService.rollup(Arrays.asList(tickets)));
+        this.pendingDeliveryRepository.saveAll(this.pendingDeliveryService.pending(Arrays.asList(tickets)));
         LogManager.getLogger(this.getClass()).warn("        ------- tickets");
         GiftTicket[] giftTickets = {
                 new GiftTicket("Este regalo es para ti", tickets[0]),
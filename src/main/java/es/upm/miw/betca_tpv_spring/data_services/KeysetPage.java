@@ -0,0 +1,53 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a collection read in key order. The cursor is opaque to clients: the last key of the page,
+ * encoded; it is null on the last page.
+ */
+public class KeysetPage<T> {
+
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+    public static final String DEFAULT_LIMIT = "100";
+
+    private final List<T> content;
+    private final String next;
+
+    public KeysetPage(List<T> content, String next) {
+        this.content = content;
+        this.next = next;
+    }
+
+    static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException exception) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetPage{" +
+                "content=" + content.size() +
+                ", next='" + next + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,56 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.exceptions.BadRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset pagination over a unique, indexed key (usually _id): each page is one indexed range read,
+ * whatever its depth, and its size is bounded by miw.page.max-limit.
+ */
+@Service
+public class KeysetPager {
+
+    @Value("${miw.page.max-limit}")
+    private int maxLimit;
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+
+    @Autowired
+    public KeysetPager(ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    /**
+     * @param query projection and filters, the key criteria, sort and limit are added
+     */
+    public <T, R> Mono<KeysetPage<R>> page(Query query, Class<T> documentClass, String key, Function<T, String> keyOf,
+                                           Function<T, R> mapper, String cursor, int limit) {
+        if (limit < 1 || limit > this.maxLimit) {
+            return Mono.error(new BadRequestException("Limit out of range [1.." + this.maxLimit + "]: " + limit));
+        }
+        return Mono.fromCallable(() -> {
+            if (cursor != null) {
+                query.addCriteria(Criteria.where(key).gt(KeysetPage.decode(cursor)));
+            }
+            return query.with(Sort.by(Sort.Direction.ASC, key)).limit(limit + 1);
+        })
+                .flatMap(keyset -> this.reactiveMongoOperations.find(keyset, documentClass).collectList())
+                .map(documents -> {
+                    List<T> page = documents.size() > limit ? documents.subList(0, limit) : documents;
+                    String next = documents.size() > limit ? KeysetPage.encode(keyOf.apply(page.get(limit - 1))) : null;
+                    return new KeysetPage<>(page.stream().map(mapper).collect(Collectors.toList()), next);
+                });
+    }
+
+}
@@ -0,0 +1,126 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.documents.PendingDelivery;
+import es.upm.miw.betca_tpv_spring.documents.Shopping;
+import es.upm.miw.betca_tpv_spring.documents.ShoppingState;
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import es.upm.miw.betca_tpv_spring.dtos.TicketOutputDto;
+import es.upm.miw.betca_tpv_spring.exceptions.ConflictException;
+import es.upm.miw.betca_tpv_spring.repositories.TicketReactRepository;
+import org.apache.logging.log4j.LogManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Outstanding NOT_COMMITTED shopping lines, one document per line. Each ticket saved replaces its lines,
+ * rebuild() recomputes the whole collection from the tickets. While it runs the collection is incomplete, so the
+ * tickets are searched in the tickets themselves.
+ */
+@Service
+public class PendingDeliveryService {
+
+    private static final String TICKET_ID = "ticketId";
+    private static final String ARTICLE_ID = "articleId";
+    private static final String USER_MOBILE = "userMobile";
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+
+    private TicketReactRepository ticketReactRepository;
+
+    @Autowired
+    public PendingDeliveryService(ReactiveMongoOperations reactiveMongoOperations,
+                                  TicketReactRepository ticketReactRepository) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.ticketReactRepository = ticketReactRepository;
+    }
+
+    public List<PendingDelivery> pending(Collection<Ticket> tickets) {
+        List<PendingDelivery> pending = new ArrayList<>();
+        for (Ticket ticket : tickets) {
+            if (ticket.getShoppingList() != null) {
+                for (Shopping shopping : ticket.getShoppingList()) {
+                    if (shopping.getShoppingState() == ShoppingState.NOT_COMMITTED) {
+                        pending.add(new PendingDelivery(ticket, shopping));
+                    }
+                }
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * The ticket is already saved: a failed sync is logged, the sale does not fail, and rebuild() repairs it.
+     */
+    public Mono<Void> sync(Ticket ticket) {
+        List<PendingDelivery> pending = this.pending(Collections.singletonList(ticket));
+        return this.reactiveMongoOperations.remove(new Query(Criteria.where(TICKET_ID).is(ticket.getId())), PendingDelivery.class)
+                .thenMany(pending.isEmpty() ? Flux.empty() : this.reactiveMongoOperations.insertAll(pending))
+                .then()
+                .onErrorResume(error -> {
+                    LogManager.getLogger(this.getClass()).warn("------- Pending deliveries of ticket " + ticket.getId()
+                            + " not synchronized, rebuild needed: " + error);
+                    return Mono.empty();
+                });
+    }
+
+    public Mono<Long> updateUserMobile(String userMobile, String newUserMobile) {
+        return this.reactiveMongoOperations.updateMulti(new Query(Criteria.where(USER_MOBILE).is(userMobile)),
+                new Update().set(USER_MOBILE, newUserMobile), PendingDelivery.class)
+                .map(updateResult -> updateResult.getModifiedCount());
+    }
+
+    /**
+     * Tickets owing any of the articles.
+     */
+    public Flux<TicketOutputDto> findTickets(Collection<String> articleIds) {
+        if (articleIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return Flux.defer(() -> {
+            if (this.rebuilding.get()) {
+                return this.ticketReactRepository.searchNotCommitted(articleIds);
+            }
+            Query query = new Query(Criteria.where(ARTICLE_ID).in(articleIds));
+            query.fields().include(TICKET_ID).include("reference");
+            return this.reactiveMongoOperations.find(query, PendingDelivery.class)
+                    .distinct(PendingDelivery::getTicketId)
+                    .map(pendingDelivery -> new TicketOutputDto(pendingDelivery.getTicketId(), pendingDelivery.getReference()));
+        });
+    }
+
+    /**
+     * Replaces the collection with the NOT_COMMITTED lines of every ticket: running it twice gives the same result.
+     * Tickets saved while it runs may be missed and need a later rebuild.
+     */
+    public Mono<Void> rebuild() {
+        return Mono.defer(() -> {
+            if (!this.rebuilding.compareAndSet(false, true)) {
+                return Mono.error(new ConflictException("Pending deliveries rebuild in progress"));
+            }
+            Query tickets = new Query(Criteria.where("shoppingList")
+                    .elemMatch(Criteria.where("shoppingState").is(ShoppingState.NOT_COMMITTED)));
+            return this.reactiveMongoOperations.find(tickets, Ticket.class)
+                    .collectList()
+                    .flatMap(notCommitted -> this.reactiveMongoOperations.remove(new Query(), PendingDelivery.class)
+                            .thenMany(this.reactiveMongoOperations.insertAll(this.pending(notCommitted)))
+                            .then())
+                    .doOnTerminate(() -> this.rebuilding.set(false))
+                    .doOnCancel(() -> this.rebuilding.set(false));
+        });
+    }
+
+}
@@ -0,0 +1,28 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.documents.Role;
+import es.upm.miw.betca_tpv_spring.repositories.UserReactRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+@Profile("reactive")
+@Service
+public class ReactiveUserDetailsServiceImpl implements ReactiveUserDetailsService {
+
+    @Autowired
+    private UserReactRepository userReactRepository;
+
+    @Override
+    public Mono<UserDetails> findByUsername(String mobile) {
+        return this.userReactRepository.findByMobile(mobile)
+                .switchIfEmpty(Mono.error(new UsernameNotFoundException("mobile not found. " + mobile)))
+                .map(user -> UserDetailsServiceImpl.userBuilder(user.getMobile(), user.getPassword(),
+                        new Role[]{Role.AUTHENTICATED}, user.isActive()));
+    }
+
+}
@@ -0,0 +1,232 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.model.RenameCollectionOptions;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import es.upm.miw.betca_tpv_spring.documents.CashierSales;
+import es.upm.miw.betca_tpv_spring.documents.SalesDaily;
+import es.upm.miw.betca_tpv_spring.documents.Shopping;
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import es.upm.miw.betca_tpv_spring.exceptions.ConflictException;
+import org.apache.logging.log4j.LogManager;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Units and revenue (in cents) sold per article and day. Each ticket saved increments its lines,
+ * rebuild() recomputes the whole collection from the tickets. The rebuild replaces the collection, so the increments
+ * of the tickets created since it started are deferred and applied once it ends.
+ */
+@Service
+public class SalesDailyService {
+
+    private static final String ARTICLE_ID = "articleId";
+    private static final String DAY = "day";
+    private static final String UNITS = "units";
+    private static final String REVENUE = "revenue";
+    private static final String INDEX = "articleId_day";
+    private static final String REBUILDING = "_rebuilding";
+    private static final String CREATION_DATE = "creationDate";
+    private static final Duration SETTLE = Duration.ofSeconds(1);
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+    private final AtomicReference<Rebuild> rebuilding = new AtomicReference<>();
+
+    @Autowired
+    public SalesDailyService(ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    public Map<String, SalesDaily> rollup(Ticket ticket) {
+        Map<String, SalesDaily> rollups = new LinkedHashMap<>();
+        this.accumulate(rollups, ticket, false);
+        return rollups;
+    }
+
+    public Collection<SalesDaily> rollup(Collection<Ticket> tickets) {
+        Map<String, SalesDaily> rollups = new HashMap<>();
+        tickets.forEach(ticket -> this.accumulate(rollups, ticket, true));
+        return rollups.values();
+    }
+
+    private void accumulate(Map<String, SalesDaily> rollups, Ticket ticket, boolean byDay) {
+        if (ticket.getShoppingList() == null) {
+            return;
+        }
+        LocalDate day = ticket.getCreationDate().toLocalDate();
+        for (Shopping shopping : ticket.getShoppingList()) {
+            String key = byDay ? shopping.getArticleId() + "/" + day : shopping.getArticleId();
+            rollups.computeIfAbsent(key, k -> new SalesDaily(shopping.getArticleId(), day))
+                    .add(shopping.getAmount(), CashierSales.cents(shopping.getShoppingTotal()));
+        }
+    }
+
+    /**
+     * The ticket is already saved: a failed increment is logged and repaired by a background rebuild, the sale
+     * does not fail.
+     */
+    public Mono<Void> increment(Ticket ticket) {
+        return this.increment(ticket, this.rollup(ticket).values());
+    }
+
+    public Mono<Void> increment(Ticket ticket, Map<String, SalesDaily> previous) {
+        Map<String, SalesDaily> delta = this.rollup(ticket);
+        previous.forEach((articleId, before) -> delta
+                .computeIfAbsent(articleId, k -> new SalesDaily(articleId, before.getDay()))
+                .add(-before.getUnits(), -before.getRevenue()));
+        return this.increment(ticket,
+                delta.values().stream().filter(salesDaily -> !salesDaily.isEmpty()).collect(Collectors.toList()));
+    }
+
+    private Mono<Void> increment(Ticket ticket, Collection<SalesDaily> rollups) {
+        return Mono.defer(() -> {
+            Rebuild rebuild = this.rebuilding.get();
+            if (rebuild != null && rebuild.defer(ticket, rollups)) {
+                return Mono.empty();
+            }
+            return this.apply(ticket, rollups);
+        });
+    }
+
+    private Mono<Void> apply(Ticket ticket, Collection<SalesDaily> rollups) {
+        return Flux.fromIterable(rollups)
+                .concatMap(salesDaily -> this.increment(salesDaily)
+                        .onErrorResume(DuplicateKeyException.class, exception -> this.increment(salesDaily)))
+                .then()
+                .onErrorResume(error -> {
+                    LogManager.getLogger(this.getClass()).warn("------- Sales daily of ticket " + ticket.getId()
+                            + " not incremented, rebuilding: " + error);
+                    this.repair();
+                    return Mono.empty();
+                });
+    }
+
+    private void repair() {
+        this.rebuild()
+                .subscribe(null, error -> {
+                    if (!(error instanceof ConflictException)) {
+                        LogManager.getLogger(this.getClass()).error("------- Sales daily rebuild: " + error);
+                    }
+                });
+    }
+
+    private Mono<Void> increment(SalesDaily salesDaily) {
+        Query query = new Query(Criteria.where(ARTICLE_ID).is(salesDaily.getArticleId()).and(DAY).is(salesDaily.getDay()));
+        return this.reactiveMongoOperations.upsert(query,
+                new Update().inc(UNITS, salesDaily.getUnits()).inc(REVENUE, salesDaily.getRevenue()), SalesDaily.class).then();
+    }
+
+    /**
+     * Units and revenue per article since a day, best sellers first.
+     */
+    public Flux<SalesDaily> bestSellers(LocalDate from, int limit) {
+        return this.reactiveMongoOperations.aggregate(Aggregation.newAggregation(SalesDaily.class,
+                Aggregation.match(Criteria.where(DAY).gte(from)),
+                Aggregation.group(ARTICLE_ID).sum(UNITS).as(UNITS).sum(REVENUE).as(REVENUE),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, UNITS).and(Sort.by(Sort.Direction.ASC, "_id"))),
+                Aggregation.limit(limit),
+                Aggregation.project(UNITS, REVENUE).and(ARTICLE_ID).previousOperation()), SalesDaily.class);
+    }
+
+    /**
+     * Replaces the collection with the rollup of the tickets created before the start, after a pause that lets the
+     * ones being saved land: running it twice gives the same result. The tickets are read by creation date and
+     * grouped one day at a time, the prices are stored as text and cannot be summed by the server. The rollup is
+     * built aside and renamed over the collection, so the readers never see it empty or partial. A ticket created
+     * before the start but saved after the pause, or patched while it runs, may be missed, and needs a later rebuild.
+     */
+    public Mono<Void> rebuild() {
+        return Mono.defer(() -> {
+            Rebuild rebuild = new Rebuild(LocalDateTime.now());
+            if (!this.rebuilding.compareAndSet(null, rebuild)) {
+                return Mono.error(new ConflictException("Sales daily rebuild in progress"));
+            }
+            String collection = this.reactiveMongoOperations.getCollectionName(SalesDaily.class);
+            String aside = collection + REBUILDING;
+            return this.reactiveMongoOperations.dropCollection(aside)
+                    .then(this.reactiveMongoOperations.indexOps(aside).ensureIndex(new Index()
+                            .on(ARTICLE_ID, Sort.Direction.ASC).on(DAY, Sort.Direction.ASC).unique().named(INDEX)))
+                    .then(Mono.delay(SETTLE))
+                    .thenMany(Flux.defer(() -> this.days(rebuild.start)))
+                    .concatMap(day -> day
+                            .reduceWith(HashMap<String, SalesDaily>::new, (rollups, ticket) -> {
+                                this.accumulate(rollups, ticket, true);
+                                return rollups;
+                            })
+                            .filter(rollups -> !rollups.isEmpty())
+                            .flatMapMany(rollups -> this.reactiveMongoOperations.insert(rollups.values(), aside)))
+                    .then(Mono.defer(() -> this.rename(aside, collection)))
+                    .then(Mono.defer(() -> this.finish(rebuild)))
+                    .onErrorResume(error -> this.finish(rebuild).then(Mono.error(error)));
+        });
+    }
+
+    private Flux<Flux<Ticket>> days(LocalDateTime start) {
+        Query tickets = new Query(Criteria.where(CREATION_DATE).lt(start)).with(Sort.by(CREATION_DATE));
+        tickets.fields().include(CREATION_DATE).include("shoppingList");
+        AtomicReference<LocalDate> day = new AtomicReference<>();
+        return this.reactiveMongoOperations.find(tickets, Ticket.class)
+                .windowUntil(ticket -> !ticket.getCreationDate().toLocalDate()
+                        .equals(day.getAndSet(ticket.getCreationDate().toLocalDate())), true);
+    }
+
+    private Mono<Void> finish(Rebuild rebuild) {
+        List<Map.Entry<Ticket, Collection<SalesDaily>>> deferred = rebuild.close();
+        this.rebuilding.compareAndSet(rebuild, null);
+        return Flux.fromIterable(deferred).concatMap(entry -> this.apply(entry.getKey(), entry.getValue())).then();
+    }
+
+    private Mono<Void> rename(String from, String to) {
+        MongoCollection<Document> collection = this.reactiveMongoOperations.getCollection(from);
+        return Mono.from(collection.renameCollection(new MongoNamespace(collection.getNamespace().getDatabaseName(), to),
+                new RenameCollectionOptions().dropTarget(true))).then();
+    }
+
+    private static class Rebuild {
+        private final LocalDateTime start;
+        private List<Map.Entry<Ticket, Collection<SalesDaily>>> deferred = new ArrayList<>();
+
+        Rebuild(LocalDateTime start) {
+            this.start = start;
+        }
+
+        synchronized boolean defer(Ticket ticket, Collection<SalesDaily> rollups) {
+            if (this.deferred == null || ticket.getCreationDate().isBefore(this.start)) {
+                return false;
+            }
+            this.deferred.add(new AbstractMap.SimpleImmutableEntry<>(ticket, rollups));
+            return true;
+        }
+
+        synchronized List<Map.Entry<Ticket, Collection<SalesDaily>>> close() {
+            List<Map.Entry<Ticket, Collection<SalesDaily>>> closed = this.deferred == null ? new ArrayList<>() : this.deferred;
+            this.deferred = null;
+            return closed;
+        }
+    }
+
+}
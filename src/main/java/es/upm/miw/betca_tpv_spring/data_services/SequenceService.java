@@ -0,0 +1,124 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.documents.Counter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids handed out from leases: a block of ids is reserved in the counter document and served from memory. Ids are
+ * unique but not gapless: the unused ids of a lease are lost on restart, and two callers that find the lease
+ * exhausted at the same time each reserve a block, the last renewal wins and the rest of the other block is never
+ * served. A lease of size 1 reserves every id in the document, so it is gapless apart from failed saves, which the
+ * invoices need. Counters with an expiry, as the daily ones of the tickets, are removed by a TTL index.
+ */
+@Service
+public class SequenceService {
+
+    private static final String SEQUENCE = "sequence";
+
+    @Value("${miw.sequence.lease.size}")
+    private int leaseSize;
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+
+    private Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SequenceService(ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    public Mono<Integer> next(String key, Mono<Integer> last) {
+        return this.next(key, this.leaseSize, last);
+    }
+
+    public Mono<Integer> next(String key, Mono<Integer> last, LocalDateTime expireAt) {
+        return this.next(key, this.leaseSize, last, expireAt);
+    }
+
+    public Mono<Integer> next(String key, int size, Mono<Integer> last) {
+        return this.next(key, size, last, null);
+    }
+
+    private Mono<Integer> next(String key, int size, Mono<Integer> last, LocalDateTime expireAt) {
+        return Mono.defer(() -> {
+            Lease lease = this.lease(key, expireAt);
+            long leased = lease.next();
+            if (leased > 0) {
+                return Mono.just((int) leased);
+            }
+            return this.reserve(key, size, last, expireAt)
+                    .map(upper -> (int) lease.renew(upper - size + 1, upper));
+        });
+    }
+
+    private Lease lease(String key, LocalDateTime expireAt) {
+        Lease lease = this.leases.get(key);
+        if (lease != null) {
+            return lease;
+        }
+        // Swept before computeIfAbsent, the map must not be changed from its own mapping function
+        LocalDateTime now = LocalDateTime.now();
+        this.leases.values().removeIf(expired -> expired.expired(now));
+        return this.leases.computeIfAbsent(key, k -> new Lease(expireAt));
+    }
+
+    private Mono<Long> reserve(String key, int size, Mono<Integer> last, LocalDateTime expireAt) {
+        return this.increment(key, size)
+                .switchIfEmpty(Mono.defer(() -> last.defaultIfEmpty(0)
+                        .flatMap(lastValue -> this.reactiveMongoOperations.insert(new Counter(key, lastValue, expireAt)))
+                        .onErrorResume(DuplicateKeyException.class, exception -> Mono.empty())
+                        .then(this.increment(key, size))))
+                .map(Counter::getSequence);
+    }
+
+    private Mono<Counter> increment(String key, int size) {
+        return this.reactiveMongoOperations.findAndModify(new Query(Criteria.where("id").is(key)),
+                new Update().inc(SEQUENCE, size), FindAndModifyOptions.options().returnNew(true), Counter.class);
+    }
+
+    public void reset() {
+        this.leases.clear();
+    }
+
+    private static class Lease {
+        private final LocalDateTime expireAt;
+        private long next;
+        private long limit;
+
+        Lease(LocalDateTime expireAt) {
+            this.expireAt = expireAt;
+        }
+
+        boolean expired(LocalDateTime now) {
+            return this.expireAt != null && this.expireAt.isBefore(now);
+        }
+
+        synchronized long next() {
+            if (this.next == 0 || this.next > this.limit) {
+                return 0;
+            }
+            return this.next++;
+        }
+
+        // A concurrent renewal overwrites this block, its ids after first are skipped
+        synchronized long renew(long first, long limit) {
+            this.next = first + 1;
+            this.limit = limit;
+            return first;
+        }
+    }
+
+}
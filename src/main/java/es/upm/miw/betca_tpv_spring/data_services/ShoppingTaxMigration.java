@@ -0,0 +1,157 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import es.upm.miw.betca_tpv_spring.documents.Article;
+import es.upm.miw.betca_tpv_spring.documents.Budget;
+import es.upm.miw.betca_tpv_spring.documents.Tax;
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import org.apache.logging.log4j.LogManager;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Backfills the tax snapshot of the shopping lines of tickets and budgets saved before it existed.
+ * Documents are streamed in batches: one article query and one unordered bulk write per batch. A line is only
+ * written while still without tax and with the same article, lines whose article no longer exists are marked
+ * taxUnresolved and not scanned again.
+ */
+@Service
+public class ShoppingTaxMigration {
+
+    private static final String SHOPPING_LIST = "shoppingList";
+    private static final String ARTICLE_ID = "articleId";
+    private static final String TAX = "tax";
+    private static final String TAX_RATE = "taxRate";
+    private static final String TAX_UNRESOLVED = "taxUnresolved";
+
+    @Value("${miw.migration.startup}")
+    private boolean onStartup;
+    @Value("${miw.migration.batch}")
+    private int batchSize;
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+    private ArticleCache articleCache;
+    private VatRollupService vatRollupService;
+
+    @Autowired
+    public ShoppingTaxMigration(ReactiveMongoOperations reactiveMongoOperations, ArticleCache articleCache,
+                                VatRollupService vatRollupService) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.articleCache = articleCache;
+        this.vatRollupService = vatRollupService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (this.onStartup) {
+            this.migrate().subscribe(
+                    migrated -> LogManager.getLogger(this.getClass()).info("------- Shopping tax migrated: " + migrated),
+                    error -> LogManager.getLogger(this.getClass()).error("------- Shopping tax migration: " + error));
+        }
+    }
+
+    public Mono<Long> migrate() {
+        return this.migrate(Ticket.class)
+                .concatWith(this.migrate(Budget.class))
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> migrate(Class<?> documentClass) {
+        MongoCollection<Document> collection = this.reactiveMongoOperations
+                .getCollection(this.reactiveMongoOperations.getCollectionName(documentClass));
+        Bson pending = Filters.elemMatch(SHOPPING_LIST, Filters.and(Filters.exists(TAX, false),
+                Filters.exists(TAX_UNRESOLVED, false)));
+        return Flux.from(collection.find(pending)
+                .projection(Projections.include(SHOPPING_LIST + "." + ARTICLE_ID, SHOPPING_LIST + "." + TAX,
+                        SHOPPING_LIST + "." + TAX_UNRESOLVED))
+                .batchSize(this.batchSize))
+                .buffer(this.batchSize)
+                .concatMap(batch -> this.migrateBatch(collection, batch))
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> migrateBatch(MongoCollection<Document> collection, List<Document> batch) {
+        Set<String> codes = batch.stream()
+                .flatMap(document -> shoppingList(document).stream())
+                .map(line -> line.getString(ARTICLE_ID))
+                .collect(Collectors.toSet());
+        return this.articleCache.findAllById(codes)
+                .collectMap(Article::getCode, Article::getTax)
+                .flatMap(taxes -> {
+                    long unresolved = batch.stream()
+                            .flatMap(document -> shoppingList(document).stream())
+                            .filter(line -> pending(line) && !taxes.containsKey(line.getString(ARTICLE_ID)))
+                            .count();
+                    if (unresolved > 0) {
+                        LogManager.getLogger(this.getClass()).warn("------- " + unresolved
+                                + " shopping lines without article to migrate, marked " + TAX_UNRESOLVED);
+                    }
+                    List<WriteModel<Document>> updates = batch.stream()
+                            .map(document -> this.update(document, taxes))
+                            .filter(update -> update != null)
+                            .collect(Collectors.toList());
+                    if (updates.isEmpty()) {
+                        return Mono.just(0L);
+                    }
+                    return Mono.from(collection.bulkWrite(updates, new BulkWriteOptions().ordered(false)))
+                            .map(result -> (long) result.getModifiedCount());
+                });
+    }
+
+    private WriteModel<Document> update(Document document, Map<String, Tax> taxes) {
+        List<Document> lines = shoppingList(document);
+        List<Bson> guards = new ArrayList<>();
+        List<Bson> sets = new ArrayList<>();
+        guards.add(Filters.eq("_id", document.get("_id")));
+        for (int i = 0; i < lines.size(); i++) {
+            if (!pending(lines.get(i))) {
+                continue;
+            }
+            String line = SHOPPING_LIST + "." + i + ".";
+            String code = lines.get(i).getString(ARTICLE_ID);
+            guards.add(Filters.exists(line + TAX, false));
+            guards.add(Filters.eq(line + ARTICLE_ID, code));
+            Tax tax = taxes.get(code);
+            if (tax != null) {
+                sets.add(Updates.set(line + TAX, tax.name()));
+                sets.add(Updates.set(line + TAX_RATE, this.vatRollupService.rate(tax).toString()));
+            } else {
+                sets.add(Updates.set(line + TAX_UNRESOLVED, true));
+            }
+        }
+        if (sets.isEmpty()) {
+            return null;
+        }
+        return new UpdateOneModel<>(Filters.and(guards), Updates.combine(sets));
+    }
+
+    private static boolean pending(Document line) {
+        return !line.containsKey(TAX) && !line.containsKey(TAX_UNRESOLVED);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Document> shoppingList(Document document) {
+        return (List<Document>) document.get(SHOPPING_LIST, List.class);
+    }
+
+}
@@ -0,0 +1,177 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.model.Projections;
+import es.upm.miw.betca_tpv_spring.documents.Article;
+import es.upm.miw.betca_tpv_spring.documents.StockAlarm;
+import es.upm.miw.betca_tpv_spring.dtos.StockAlarmEventDto;
+import es.upm.miw.betca_tpv_spring.dtos.StockAlarmEventDto.Level;
+import org.apache.logging.log4j.LogManager;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.ConnectableFlux;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Warning and critical thresholds by article code, read from the stock alarms, with the last level seen.
+ * Stock changes re-evaluate only the alarmed articles and level changes are published to events().
+ */
+@Service
+public class StockAlarmIndex {
+
+    private static final int EVENTS_BUFFER = 256;
+    private static final String WARNING = "warning";
+    private static final String CRITICAL = "critical";
+    private static final String STOCK_ALARM_ARTICLE = "stockAlarmArticle";
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+    private final AtomicReference<Mono<Map<String, StockAlarmEventDto>>> index = new AtomicReference<>();
+    private final Map<String, Level> levels = new ConcurrentHashMap<>();
+    private final DirectProcessor<StockAlarmEventDto> processor = DirectProcessor.create();
+    private final FluxSink<StockAlarmEventDto> sink = this.processor.sink();
+
+    @Autowired
+    public StockAlarmIndex(ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        this.alarms().subscribe(alarms -> LogManager.getLogger(this.getClass()).info("------- Stock alarm index: " + alarms.size()),
+                error -> LogManager.getLogger(this.getClass()).error("------- Stock alarm index: " + error));
+    }
+
+    public void invalidate() {
+        this.index.set(null);
+    }
+
+    private Mono<Map<String, StockAlarmEventDto>> alarms() {
+        Mono<Map<String, StockAlarmEventDto>> alarms = this.index.get();
+        if (alarms == null) {
+            Mono<Map<String, StockAlarmEventDto>> loading = this.build()
+                    .doOnError(error -> this.index.set(null))
+                    .cache();
+            alarms = this.index.compareAndSet(null, loading) ? loading : this.index.get();
+        }
+        return alarms;
+    }
+
+    private Mono<Map<String, StockAlarmEventDto>> build() {
+        return Flux.from(this.reactiveMongoOperations.getCollection(this.reactiveMongoOperations.getCollectionName(StockAlarm.class))
+                .find().projection(Projections.include(WARNING, CRITICAL, STOCK_ALARM_ARTICLE)))
+                .collect(ConcurrentHashMap<String, StockAlarmEventDto>::new, this::addThresholds)
+                .flatMap(alarms -> this.articles(alarms.keySet())
+                        .doOnNext(article -> this.publishChange(alarms.get(article.getCode()), article))
+                        .then(Mono.fromCallable(() -> {
+                            this.levels.keySet().retainAll(alarms.keySet());
+                            return alarms;
+                        })));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addThresholds(Map<String, StockAlarmEventDto> alarms, Document stockAlarm) {
+        List<Document> lines = stockAlarm.get(STOCK_ALARM_ARTICLE, List.class);
+        if (lines == null) {
+            return;
+        }
+        for (Document line : lines) {
+            if (line.get("article") instanceof DBRef) {
+                String code = ((DBRef) line.get("article")).getId().toString();
+                Integer warning = line.getInteger(WARNING, stockAlarm.getInteger(WARNING, 0));
+                Integer critical = line.getInteger(CRITICAL, stockAlarm.getInteger(CRITICAL, 0));
+                alarms.merge(code, new StockAlarmEventDto(code, warning, critical), (one, other) -> new StockAlarmEventDto(code,
+                        Math.max(one.getWarning(), other.getWarning()), Math.max(one.getCritical(), other.getCritical())));
+            }
+        }
+    }
+
+    private Flux<Article> articles(Collection<String> codes) {
+        if (codes.isEmpty()) {
+            return Flux.empty();
+        }
+        Query query = new Query(Criteria.where("_id").in(codes));
+        query.fields().include("description").include("stock");
+        return this.reactiveMongoOperations.find(query, Article.class);
+    }
+
+    /**
+     * The previous level is the last one seen, kept across rebuilds of the index.
+     */
+    private StockAlarmEventDto publishChange(StockAlarmEventDto alarm, Article article) {
+        StockAlarmEventDto state;
+        Level previous;
+        synchronized (alarm) {
+            alarm.setDescription(article.getDescription());
+            alarm.setStock(article.getStock());
+            alarm.setLevel(alarm.isCritical() ? Level.CRITICAL : alarm.isWarning() ? Level.WARNING : Level.NORMAL);
+            previous = this.levels.put(alarm.getCode(), alarm.getLevel());
+            state = new StockAlarmEventDto(alarm);
+        }
+        if (previous != null && previous != state.getLevel()) {
+            this.sink.next(state);
+        }
+        return state;
+    }
+
+    public Mono<Void> evaluate(Collection<String> codes) {
+        return this.refresh(codes)
+                .then()
+                .onErrorResume(error -> {
+                    LogManager.getLogger(this.getClass()).warn("------- Stock alarm evaluation: " + error);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Current state of every alarmed article, with fresh stock.
+     */
+    public Flux<StockAlarmEventDto> readAll() {
+        return this.alarms().flatMapMany(alarms -> this.refresh(alarms.keySet()));
+    }
+
+    private Flux<StockAlarmEventDto> refresh(Collection<String> codes) {
+        return this.alarms().flatMapMany(alarms -> {
+            List<String> alarmed = codes.stream().filter(alarms::containsKey).distinct().collect(Collectors.toList());
+            return this.articles(alarmed)
+                    .map(article -> this.publishChange(alarms.get(article.getCode()), article));
+        });
+    }
+
+    /**
+     * Alarmed articles out of the normal level, followed by every level change. The changes are listened to before
+     * the snapshot is read and replayed after it, so none is lost; one may repeat a level of the snapshot.
+     */
+    public Flux<StockAlarmEventDto> events() {
+        return Flux.defer(() -> {
+            ConnectableFlux<StockAlarmEventDto> changes = this.processor.replay(EVENTS_BUFFER);
+            Disposable listening = changes.connect();
+            return this.alarms()
+                    .flatMapMany(alarms -> Flux.fromIterable(alarms.values()))
+                    .map(StockAlarmEventDto::new)
+                    .filter(alarm -> alarm.getLevel() != Level.NORMAL)
+                    .concatWith(changes)
+                    .doFinally(signal -> listening.dispose());
+        }).onBackpressureBuffer(EVENTS_BUFFER, dropped ->
+                        LogManager.getLogger(this.getClass()).warn("------- Stock alarm event dropped: " + dropped),
+                BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+}
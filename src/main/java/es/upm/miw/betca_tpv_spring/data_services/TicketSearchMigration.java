@@ -0,0 +1,111 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import com.mongodb.DBRef;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import es.upm.miw.betca_tpv_spring.documents.User;
+import org.apache.logging.log4j.LogManager;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Backfills the searchable user mobile and total items of the tickets saved before they existed, or saved since
+ * without one of them.
+ * Tickets are streamed in batches: one user query and one unordered bulk write per batch.
+ */
+@Service
+public class TicketSearchMigration {
+
+    private static final String SHOPPING_LIST = "shoppingList";
+    private static final String AMOUNT = "amount";
+    private static final String USER = "user";
+    private static final String USER_MOBILE = "userMobile";
+    private static final String TOTAL_ITEMS = "totalItems";
+
+    @Value("${miw.migration.startup}")
+    private boolean onStartup;
+    @Value("${miw.migration.batch}")
+    private int batchSize;
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+
+    @Autowired
+    public TicketSearchMigration(ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (this.onStartup) {
+            this.migrate().subscribe(
+                    migrated -> LogManager.getLogger(this.getClass()).info("------- Ticket search fields migrated: " + migrated),
+                    error -> LogManager.getLogger(this.getClass()).error("------- Ticket search fields migration: " + error));
+        }
+    }
+
+    public Mono<Long> migrate() {
+        MongoCollection<Document> tickets = this.collection(Ticket.class);
+        // A user-less ticket saved by the application has no userMobile, only a referenced user needs it
+        Bson pending = Filters.or(Filters.exists(TOTAL_ITEMS, false),
+                Filters.and(Filters.exists(USER, true), Filters.exists(USER_MOBILE, false)));
+        return Flux.from(tickets.find(pending)
+                .projection(Projections.include(SHOPPING_LIST + "." + AMOUNT, USER))
+                .batchSize(this.batchSize))
+                .buffer(this.batchSize)
+                .concatMap(batch -> this.migrateBatch(tickets, batch))
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> migrateBatch(MongoCollection<Document> tickets, List<Document> batch) {
+        Set<Object> userIds = batch.stream()
+                .map(ticket -> ticket.get(USER, DBRef.class))
+                .filter(Objects::nonNull)
+                .map(DBRef::getId)
+                .collect(Collectors.toSet());
+        Mono<Map<Object, String>> mobiles = userIds.isEmpty() ? Mono.just(new HashMap<>()) :
+                Flux.from(this.collection(User.class).find(Filters.in("_id", userIds)).projection(Projections.include("mobile")))
+                        .collectMap(user -> user.get("_id"), user -> user.getString("mobile"));
+        return mobiles.flatMap(userMobiles -> {
+            List<WriteModel<Document>> updates = batch.stream()
+                    .map(ticket -> new UpdateOneModel<Document>(Filters.eq("_id", ticket.get("_id")), Updates.combine(
+                            Updates.set(TOTAL_ITEMS, totalItems(ticket)),
+                            Updates.set(USER_MOBILE, ticket.get(USER) == null ? null :
+                                    userMobiles.get(ticket.get(USER, DBRef.class).getId())))))
+                    .collect(Collectors.toList());
+            return Mono.from(tickets.bulkWrite(updates, new BulkWriteOptions().ordered(false)))
+                    .map(result -> (long) result.getModifiedCount());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int totalItems(Document ticket) {
+        List<Document> lines = (List<Document>) ticket.get(SHOPPING_LIST, List.class);
+        return lines == null ? 0 : lines.stream().mapToInt(line -> line.getInteger(AMOUNT, 0)).sum();
+    }
+
+    private MongoCollection<Document> collection(Class<?> documentClass) {
+        return this.reactiveMongoOperations.getCollection(this.reactiveMongoOperations.getCollectionName(documentClass));
+    }
+
+}
@@ -28,12 +28,12 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     public UserDetails loadUserByUsername(final String mobile) {
         User user = userRepository.findByMobile(mobile)
                 .orElseThrow(() -> new UsernameNotFoundException("mobile not found. " + mobile));
-        return this.userBuilder(user.getMobile(), user.getPassword(), new Role[]{Role.AUTHENTICATED}, user.isActive());
+        return userBuilder(user.getMobile(), user.getPassword(), new Role[]{Role.AUTHENTICATED}, user.isActive());
 
     }
 
-    private org.springframework.security.core.userdetails.User userBuilder(String mobile, String password, Role[] roles,
-                                                                           boolean active) {
+    static org.springframework.security.core.userdetails.User userBuilder(String mobile, String password, Role[] roles,
+                                                                          boolean active) {
         List<GrantedAuthority> authorities = new ArrayList<>();
         for (Role role : roles) {
             authorities.add(new SimpleGrantedAuthority(role.roleName()));
@@ -0,0 +1,231 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.documents.Invoice;
+import es.upm.miw.betca_tpv_spring.documents.Quarter;
+import es.upm.miw.betca_tpv_spring.documents.Shopping;
+import es.upm.miw.betca_tpv_spring.documents.Tax;
+import es.upm.miw.betca_tpv_spring.documents.VatLine;
+import es.upm.miw.betca_tpv_spring.documents.VatRollup;
+import es.upm.miw.betca_tpv_spring.exceptions.ConflictException;
+import org.apache.logging.log4j.LogManager;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Quarterly VAT rollups by (year, quarter, tax), in 1/10000 of euro. Invoices keep their own VAT lines,
+ * each new invoice increments the rollups and rebuild() recomputes them from the invoices with one aggregation.
+ * The aggregation replaces the collection, so the increments of the invoices created since the rebuild started are
+ * deferred and applied once it ends.
+ */
+@Service
+public class VatRollupService {
+
+    private static final String YEAR = "year";
+    private static final String QUARTER = "quarter";
+    private static final String TAX = "tax";
+    private static final String TAXABLE = "taxable";
+    private static final String VAT = "vat";
+    private static final String VAT_LINES = "vatLines";
+    private static final String CREATION_DATE = "creationDate";
+    private static final Duration SETTLE = Duration.ofSeconds(1);
+
+    @Value("${miw.tax.general}")
+    private Double generalTax;
+    @Value("${miw.tax.reduced}")
+    private Double reducedTax;
+    @Value("${miw.tax.super.reduced}")
+    private Double superReducedTax;
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+    private ArticleCache articleCache;
+    private final AtomicReference<Rebuild> rebuilding = new AtomicReference<>();
+
+    @Autowired
+    public VatRollupService(ReactiveMongoOperations reactiveMongoOperations, ArticleCache articleCache) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+        this.articleCache = articleCache;
+    }
+
+    public BigDecimal rate(Tax tax) {
+        if (tax.equals(Tax.SUPER_REDUCED)) {
+            return BigDecimal.valueOf(this.superReducedTax);
+        } else if (tax.equals(Tax.REDUCED)) {
+            return BigDecimal.valueOf(this.reducedTax);
+        } else if (tax.equals(Tax.GENERAL)) {
+            return BigDecimal.valueOf(this.generalTax);
+        } else return BigDecimal.ZERO;
+    }
+
+    public void snapshotTax(Shopping shopping, Tax tax) {
+        shopping.setTax(tax);
+        shopping.setTaxRate(this.rate(tax));
+    }
+
+    public Mono<Shopping> taxed(Shopping shopping) {
+        if (shopping.getTax() != null) {
+            return Mono.just(shopping);
+        }
+        return this.articleCache.findById(shopping.getArticleId())
+                .map(article -> {
+                    this.snapshotTax(shopping, article.getTax());
+                    return shopping;
+                });
+    }
+
+    public VatLine vatLine(Shopping shopping) {
+        return VatLine.of(shopping.getTax(), shopping.getTaxRate(), shopping.getShoppingTotal());
+    }
+
+    public Mono<Void> increment(Invoice invoice) {
+        return Mono.defer(() -> {
+            Rebuild rebuild = this.rebuilding.get();
+            if (rebuild != null && rebuild.defer(invoice)) {
+                return Mono.empty();
+            }
+            return this.apply(invoice);
+        });
+    }
+
+    private Mono<Void> apply(Invoice invoice) {
+        int year = invoice.getCreationDate().getYear();
+        int quarter = Quarter.fromDate(invoice.getCreationDate()).getNumber();
+        Map<Tax, VatLine> byTax = new EnumMap<>(Tax.class);
+        for (VatLine vatLine : invoice.getVatLines()) {
+            byTax.merge(vatLine.getTax(), vatLine, (one, other) ->
+                    new VatLine(one.getTax(), one.getTaxable() + other.getTaxable(), one.getVat() + other.getVat()));
+        }
+        return Flux.fromIterable(byTax.values())
+                .concatMap(vatLine -> this.increment(year, quarter, vatLine)
+                        .onErrorResume(DuplicateKeyException.class, exception -> this.increment(year, quarter, vatLine)))
+                .then();
+    }
+
+    private Mono<Void> increment(int year, int quarter, VatLine vatLine) {
+        Query query = new Query(Criteria.where(YEAR).is(year).and(QUARTER).is(quarter).and(TAX).is(vatLine.getTax()));
+        return this.reactiveMongoOperations.upsert(query,
+                new Update().inc(TAXABLE, vatLine.getTaxable()).inc(VAT, vatLine.getVat()), VatRollup.class).then();
+    }
+
+    /**
+     * Aggregates the invoices created before the start, after a pause that lets the ones being saved land. The
+     * invoices created later are incremented once the new collection is in place. An invoice created before the
+     * start but saved after the pause may be missed, and needs a later rebuild.
+     */
+    public Mono<Void> rebuild() {
+        return Mono.defer(() -> {
+            Rebuild rebuild = new Rebuild(LocalDateTime.now());
+            if (!this.rebuilding.compareAndSet(null, rebuild)) {
+                return Mono.error(new ConflictException("VAT rollups rebuild in progress"));
+            }
+            return this.backfillVatLines()
+                    .then(Mono.delay(SETTLE))
+                    .then(Mono.defer(() -> Mono.from(this.reactiveMongoOperations
+                            .getCollection(this.reactiveMongoOperations.getCollectionName(Invoice.class))
+                            .aggregate(this.rollupPipeline(rebuild.start))
+                            .toCollection())))
+                    .then(Mono.defer(() -> this.finish(rebuild)))
+                    .onErrorResume(error -> this.finish(rebuild).then(Mono.error(error)));
+        });
+    }
+
+    private Mono<Void> finish(Rebuild rebuild) {
+        List<Invoice> deferred = rebuild.close();
+        this.rebuilding.compareAndSet(rebuild, null);
+        return Flux.fromIterable(deferred).concatMap(this::apply).then();
+    }
+
+    private List<Document> rollupPipeline(LocalDateTime start) {
+        Document creationDate = new Document("date", "$" + CREATION_DATE)
+                .append("timezone", ZoneId.systemDefault().getId());
+        Document quarter = new Document("$ceil", new Document("$divide",
+                Arrays.asList(new Document("$month", creationDate), 3)));
+        return Arrays.asList(
+                new Document("$match", new Document(VAT_LINES, new Document("$exists", true))
+                        .append(CREATION_DATE, new Document("$lt", Date.from(start.atZone(ZoneId.systemDefault()).toInstant())))),
+                new Document("$unwind", "$" + VAT_LINES),
+                new Document("$group", new Document("_id", new Document(YEAR, new Document("$year", creationDate))
+                        .append(QUARTER, quarter)
+                        .append(TAX, "$" + VAT_LINES + "." + TAX))
+                        .append(TAXABLE, new Document("$sum", "$" + VAT_LINES + "." + TAXABLE))
+                        .append(VAT, new Document("$sum", "$" + VAT_LINES + "." + VAT))),
+                new Document("$project", new Document("_id", 0)
+                        .append(YEAR, "$_id." + YEAR)
+                        .append(QUARTER, "$_id." + QUARTER)
+                        .append(TAX, "$_id." + TAX)
+                        .append(TAXABLE, 1)
+                        .append(VAT, 1)),
+                new Document("$out", this.reactiveMongoOperations.getCollectionName(VatRollup.class)));
+    }
+
+    private Mono<Void> backfillVatLines() {
+        LongAdder skipped = new LongAdder();
+        return this.reactiveMongoOperations.find(new Query(Criteria.where(VAT_LINES).exists(false)), Invoice.class)
+                .filter(invoice -> {
+                    if (invoice.getTicket() != null && invoice.getTax().signum() >= 0) {
+                        return true;
+                    }
+                    LogManager.getLogger(this.getClass()).debug("Invoice without VAT lines to rebuild: " + invoice.getId());
+                    skipped.increment();
+                    return false;
+                })
+                .concatMap(invoice -> Flux.fromArray(invoice.getTicket().getShoppingList())
+                        .concatMap(this::taxed)
+                        .map(this::vatLine)
+                        .collectList()
+                        .flatMap(vatLines -> this.reactiveMongoOperations.updateFirst(
+                                new Query(Criteria.where("id").is(invoice.getId())),
+                                new Update().set(VAT_LINES, vatLines), Invoice.class)))
+                .then(Mono.fromRunnable(() -> {
+                    if (skipped.sum() > 0) {
+                        LogManager.getLogger(this.getClass()).warn("------- " + skipped.sum()
+                                + " legacy invoices without ticket or with negative tax, left out of the VAT rollups");
+                    }
+                }));
+    }
+
+    private static class Rebuild {
+        private final LocalDateTime start;
+        private List<Invoice> deferred = new ArrayList<>();
+
+        Rebuild(LocalDateTime start) {
+            this.start = start;
+        }
+
+        synchronized boolean defer(Invoice invoice) {
+            if (this.deferred == null || invoice.getCreationDate().isBefore(this.start)) {
+                return false;
+            }
+            this.deferred.add(invoice);
+            return true;
+        }
+
+        synchronized List<Invoice> close() {
+            List<Invoice> closed = this.deferred == null ? new ArrayList<>() : this.deferred;
+            this.deferred = null;
+            return closed;
+        }
+    }
+
+}
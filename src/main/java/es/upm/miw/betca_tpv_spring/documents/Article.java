@@ -94,6 +94,19 @@ public class Article {
         return registrationDate;
     }
 
+    public Article withoutStock() {
+        Article article = new Article();
+        article.code = this.code;
+        article.registrationDate = this.registrationDate;
+        article.description = this.description;
+        article.retailPrice = this.retailPrice;
+        article.reference = this.reference;
+        article.tax = this.tax;
+        article.discontinued = this.discontinued;
+        article.provider = this.provider;
+        return article;
+    }
+
     @Override
     public int hashCode() {
         return this.code.hashCode();
@@ -58,6 +58,13 @@ public class CashierClosure {
         this.usedVouchers = this.usedVouchers.add(voucher);
     }
 
+    public void sales(BigDecimal card, BigDecimal cash, BigDecimal vouchers) {
+        this.isActionable();
+        this.salesCard = card;
+        this.salesCash = cash;
+        this.usedVouchers = vouchers;
+    }
+
     public void deposit(BigDecimal cash, String comment) {
         this.isActionable();
         this.deposit = this.deposit.add(cash);
@@ -0,0 +1,105 @@
+package es.upm.miw.betca_tpv_spring.documents;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+@Document(collection = "cashierSales")
+public class CashierSales {
+
+    @Id
+    private String id;
+    private long card;
+    private long cash;
+    private long vouchers;
+    private long version;
+
+    public CashierSales() {
+        //empty to the framework
+    }
+
+    public CashierSales(String id) {
+        this.id = id;
+    }
+
+    public CashierSales(String id, long card, long cash, long vouchers) {
+        this.id = id;
+        this.card = card;
+        this.cash = cash;
+        this.vouchers = vouchers;
+    }
+
+    public static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public CashierSales add(BigDecimal card, BigDecimal cash, BigDecimal vouchers) {
+        this.card += cents(card);
+        this.cash += cents(cash);
+        this.vouchers += cents(vouchers);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return this.card == 0 && this.cash == 0 && this.vouchers == 0;
+    }
+
+    public boolean sameTotals(CashierSales other) {
+        return this.card == other.card && this.cash == other.cash && this.vouchers == other.vouchers;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getCard() {
+        return card;
+    }
+
+    public long getCash() {
+        return cash;
+    }
+
+    public long getVouchers() {
+        return vouchers;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public BigDecimal getSalesCard() {
+        return BigDecimal.valueOf(this.card, 2);
+    }
+
+    public BigDecimal getSalesCash() {
+        return BigDecimal.valueOf(this.cash, 2);
+    }
+
+    public BigDecimal getUsedVouchers() {
+        return BigDecimal.valueOf(this.vouchers, 2);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.id.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj != null && getClass() == obj.getClass() && (id.equals(((CashierSales) obj).id));
+    }
+
+    @Override
+    public String toString() {
+        return "CashierSales{" +
+                "id='" + id + '\'' +
+                ", card=" + card +
+                ", cash=" + cash +
+                ", vouchers=" + vouchers +
+                ", version=" + version +
+                '}';
+    }
+}
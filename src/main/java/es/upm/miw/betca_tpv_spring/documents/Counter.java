@@ -0,0 +1,62 @@
+package es.upm.miw.betca_tpv_spring.documents;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "counters")
+public class Counter {
+
+    @Id
+    private String id;
+    private long sequence;
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expireAt;
+
+    public Counter() {
+        //empty to the framework
+    }
+
+    public Counter(String id, long sequence) {
+        this(id, sequence, null);
+    }
+
+    public Counter(String id, long sequence, LocalDateTime expireAt) {
+        this.id = id;
+        this.sequence = sequence;
+        this.expireAt = expireAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public LocalDateTime getExpireAt() {
+        return expireAt;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.id.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj != null && getClass() == obj.getClass() && (id.equals(((Counter) obj).id));
+    }
+
+    @Override
+    public String toString() {
+        return "Counter{" +
+                "id='" + id + '\'' +
+                ", sequence=" + sequence +
+                ", expireAt=" + expireAt +
+                '}';
+    }
+}
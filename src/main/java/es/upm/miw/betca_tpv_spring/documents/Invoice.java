@@ -7,7 +7,9 @@ import org.springframework.data.mongodb.core.mapping.Document;
 import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 @Document
 public class Invoice {
@@ -23,6 +25,7 @@ public class Invoice {
     private Ticket ticket;
     @DBRef
     private User user;
+    private List<VatLine> vatLines;
 
     public void setCreationDate(LocalDateTime creationDate) {
         this.creationDate = creationDate;
@@ -30,6 +33,7 @@ public class Invoice {
 
     public Invoice() {
         creationDate = LocalDateTime.now();
+        vatLines = new ArrayList<>();
     }
     public Invoice(int idOfYear, User user, Ticket ticket) {
         this();
@@ -92,6 +96,18 @@ public class Invoice {
         this.user = user;
     }
 
+    public List<VatLine> getVatLines() {
+        return vatLines;
+    }
+
+    public void setVatLines(List<VatLine> vatLines) {
+        this.vatLines = vatLines;
+    }
+
+    public void addVatLine(VatLine vatLine) {
+        this.vatLines.add(vatLine);
+    }
+
     @Override
     public int hashCode() {
         return this.id.hashCode();
@@ -111,6 +127,7 @@ public class Invoice {
                 ", tax=" + tax +
                 ", ticket=" + ticket +
                 ", user=" + user +
+                ", vatLines=" + vatLines +
                 '}';
     }
 }
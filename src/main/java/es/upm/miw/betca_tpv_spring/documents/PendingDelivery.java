@@ -0,0 +1,87 @@
+package es.upm.miw.betca_tpv_spring.documents;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "pendingDelivery")
+public class PendingDelivery {
+
+    @Id
+    private String id;
+    @Indexed
+    private String ticketId;
+    private String reference;
+    @Indexed
+    private String articleId;
+    private int amount;
+    @Indexed(sparse = true)
+    private String userMobile;
+    private LocalDateTime creationDate;
+
+    public PendingDelivery() {
+        //empty for framework
+    }
+
+    public PendingDelivery(Ticket ticket, Shopping shopping) {
+        this.ticketId = ticket.getId();
+        this.reference = ticket.getReference();
+        this.articleId = shopping.getArticleId();
+        this.amount = shopping.getAmount();
+        this.userMobile = ticket.getUserMobile();
+        this.creationDate = ticket.getCreationDate();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public String getArticleId() {
+        return articleId;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public String getUserMobile() {
+        return userMobile;
+    }
+
+    public LocalDateTime getCreationDate() {
+        return creationDate;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.id.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj != null && getClass() == obj.getClass() && (id.equals(((PendingDelivery) obj).id));
+    }
+
+    @Override
+    public String toString() {
+        return "PendingDelivery{" +
+                "id='" + id + '\'' +
+                ", ticketId='" + ticketId + '\'' +
+                ", reference='" + reference + '\'' +
+                ", articleId='" + articleId + '\'' +
+                ", amount=" + amount +
+                ", userMobile='" + userMobile + '\'' +
+                ", creationDate=" + creationDate +
+                '}';
+    }
+}
@@ -5,8 +5,8 @@ import java.time.LocalDateTime;
 public enum Quarter {
     Q1, Q2, Q3, Q4;
 
-    public Quarter getQuarterFromDate(LocalDateTime date) {
-        int quarter = (date.getMonthValue() / 3) + 1;
+    public static Quarter fromDate(LocalDateTime date) {
+        int quarter = (date.getMonthValue() - 1) / 3 + 1;
         switch (quarter) {
             case 1:
                 return Q1;
@@ -20,5 +20,9 @@ public enum Quarter {
                 return null;
         }
     }
+
+    public int getNumber() {
+        return this.ordinal() + 1;
+    }
 }
 
@@ -0,0 +1,84 @@
+package es.upm.miw.betca_tpv_spring.documents;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Document(collection = "salesDaily")
+@CompoundIndex(name = "articleId_day", def = "{'articleId': 1, 'day': 1}", unique = true)
+public class SalesDaily {
+
+    @Id
+    private String id;
+    private String articleId;
+    private LocalDate day;
+    private int units;
+    private long revenue;
+
+    public SalesDaily() {
+        //empty for framework
+    }
+
+    public SalesDaily(String articleId, LocalDate day) {
+        this.articleId = articleId;
+        this.day = day;
+    }
+
+    public SalesDaily add(int units, long revenue) {
+        this.units += units;
+        this.revenue += revenue;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return this.units == 0 && this.revenue == 0;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getArticleId() {
+        return articleId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public int getUnits() {
+        return units;
+    }
+
+    public long getRevenue() {
+        return revenue;
+    }
+
+    public BigDecimal getRevenueAmount() {
+        return BigDecimal.valueOf(this.revenue, 2);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.id.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj != null && getClass() == obj.getClass() && (id.equals(((SalesDaily) obj).id));
+    }
+
+    @Override
+    public String toString() {
+        return "SalesDaily{" +
+                "id='" + id + '\'' +
+                ", articleId='" + articleId + '\'' +
+                ", day=" + day +
+                ", units=" + units +
+                ", revenue=" + revenue +
+                '}';
+    }
+}
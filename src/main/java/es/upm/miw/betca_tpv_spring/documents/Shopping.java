@@ -11,6 +11,9 @@ public class Shopping {
     private Integer amount;
     private BigDecimal discount;
     private ShoppingState shoppingState;
+    private Tax tax;
+    private BigDecimal taxRate;
+    private Boolean taxUnresolved;
 
     public Shopping() {
         //empty to the framework
@@ -77,6 +80,30 @@ public class Shopping {
         this.shoppingState = shoppingState;
     }
 
+    public Tax getTax() {
+        return tax;
+    }
+
+    public void setTax(Tax tax) {
+        this.tax = tax;
+    }
+
+    public BigDecimal getTaxRate() {
+        return taxRate;
+    }
+
+    public void setTaxRate(BigDecimal taxRate) {
+        this.taxRate = taxRate;
+    }
+
+    public Boolean getTaxUnresolved() {
+        return taxUnresolved;
+    }
+
+    public void setTaxUnresolved(Boolean taxUnresolved) {
+        this.taxUnresolved = taxUnresolved;
+    }
+
     public BigDecimal getTotalUnitPrice() {
         return retailPrice.multiply(BigDecimal.ONE.subtract(this.discount.divide(new BigDecimal("100"))));
     }
@@ -94,6 +121,9 @@ public class Shopping {
                 ", amount=" + amount +
                 ", discount=" + discount +
                 ", shoppingState=" + shoppingState +
+                ", tax=" + tax +
+                ", taxRate=" + taxRate +
+                ", taxUnresolved=" + taxUnresolved +
                 '}';
     }
 }
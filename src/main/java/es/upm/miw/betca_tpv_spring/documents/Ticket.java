@@ -1,6 +1,9 @@
 package es.upm.miw.betca_tpv_spring.documents;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -12,21 +15,28 @@ import java.util.Date;
 import java.util.stream.Stream;
 
 @Document
+@CompoundIndexes({
+        @CompoundIndex(name = "userMobile_creationDate", def = "{'userMobile': 1, 'creationDate': -1}"),
+        @CompoundIndex(name = "totalItems_creationDate", def = "{'totalItems': 1, 'creationDate': -1}")
+})
 public class Ticket {
 
     private static final String DATE_FORMAT = "yyyyMMdd";
 
     @Id
     private String id;
+    @Indexed
     private LocalDateTime creationDate;
     private String reference;
     private Shopping[] shoppingList;
+    private int totalItems;
     private BigDecimal cash;
     private BigDecimal card;
     private BigDecimal voucher;
     private String note;
     @DBRef
     private User user;
+    private String userMobile;
     @DBRef
     private CustomerPoints customerPoints;
 
@@ -43,8 +53,8 @@ public class Ticket {
                   User user, String note, CustomerPoints customerPoints) {
         this();
         this.setId(idOfDay);
-        this.shoppingList = shoppingList;
-        this.user = user;
+        this.setShoppingList(shoppingList);
+        this.setUser(user);
         this.addPay(card, cash, voucher);
         this.note = note;
         this.customerPoints = customerPoints;
@@ -95,6 +105,20 @@ public class Ticket {
 
     public void setShoppingList(Shopping[] shoppingList) {
         this.shoppingList = shoppingList;
+        this.updateTotalItems();
+    }
+
+    private void updateTotalItems() {
+        this.totalItems = this.shoppingList == null ? 0 : Stream.of(this.shoppingList).mapToInt(Shopping::getAmount).sum();
+    }
+
+    public void updateSearchFields() {
+        this.updateTotalItems();
+        this.userMobile = this.user == null ? null : this.user.getMobile();
+    }
+
+    public int getTotalItems() {
+        return totalItems;
     }
 
     public User getUser() {
@@ -103,6 +127,11 @@ public class Ticket {
 
     public void setUser(User user) {
         this.user = user;
+        this.userMobile = user == null ? null : user.getMobile();
+    }
+
+    public String getUserMobile() {
+        return userMobile;
     }
 
     public String getReference() {
@@ -167,11 +196,13 @@ public class Ticket {
                 ", creationDate=" + creationDate +
                 ", reference='" + reference + '\'' +
                 ", shoppingList=" + Arrays.toString(shoppingList) +
+                ", totalItems=" + totalItems +
                 ", cash=" + cash +
                 ", card=" + card +
                 ", voucher=" + voucher +
                 ", note='" + note + '\'' +
                 ", user=" + user +
+                ", userMobile='" + userMobile + '\'' +
                 ", customerPoints=" + customerPoints +
                 '}';
     }
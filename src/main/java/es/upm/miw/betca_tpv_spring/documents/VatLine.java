@@ -0,0 +1,61 @@
+package es.upm.miw.betca_tpv_spring.documents;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public class VatLine {
+
+    public static final int SCALE = 4;
+
+    private Tax tax;
+    private long taxable;
+    private long vat;
+
+    public VatLine() {
+        //empty for framework
+    }
+
+    public VatLine(Tax tax, long taxable, long vat) {
+        this.tax = tax;
+        this.taxable = taxable;
+        this.vat = vat;
+    }
+
+    public static VatLine of(Tax tax, BigDecimal rate, BigDecimal total) {
+        BigDecimal taxableAmount = total.divide(BigDecimal.ONE.add(rate), SCALE, RoundingMode.HALF_UP);
+        return new VatLine(tax, units(taxableAmount), units(total.subtract(taxableAmount)));
+    }
+
+    public static long units(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public Tax getTax() {
+        return tax;
+    }
+
+    public long getTaxable() {
+        return taxable;
+    }
+
+    public long getVat() {
+        return vat;
+    }
+
+    public BigDecimal getTaxableAmount() {
+        return BigDecimal.valueOf(this.taxable, SCALE);
+    }
+
+    public BigDecimal getVatAmount() {
+        return BigDecimal.valueOf(this.vat, SCALE);
+    }
+
+    @Override
+    public String toString() {
+        return "VatLine{" +
+                "tax=" + tax +
+                ", taxable=" + taxable +
+                ", vat=" + vat +
+                '}';
+    }
+}
@@ -0,0 +1,68 @@
+package es.upm.miw.betca_tpv_spring.documents;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Document(collection = "vatRollups")
+@CompoundIndex(name = "year_quarter_tax", def = "{'year': 1, 'quarter': 1, 'tax': 1}", unique = true)
+public class VatRollup {
+
+    @Id
+    private String id;
+    private int year;
+    private int quarter;
+    private Tax tax;
+    private long taxable;
+    private long vat;
+
+    public VatRollup() {
+        //empty for framework
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getQuarter() {
+        return quarter;
+    }
+
+    public Tax getTax() {
+        return tax;
+    }
+
+    public long getTaxable() {
+        return taxable;
+    }
+
+    public long getVat() {
+        return vat;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.id.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj != null && getClass() == obj.getClass() && (id.equals(((VatRollup) obj).id));
+    }
+
+    @Override
+    public String toString() {
+        return "VatRollup{" +
+                "id='" + id + '\'' +
+                ", year=" + year +
+                ", quarter=" + quarter +
+                ", tax=" + tax +
+                ", taxable=" + taxable +
+                ", vat=" + vat +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+package es.upm.miw.betca_tpv_spring.dtos;
+
+public class ArticleCacheStatsDto {
+
+    private boolean enabled;
+
+    private int size;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long invalidations;
+
+    public ArticleCacheStatsDto() {
+        // Empty for framework
+    }
+
+    public ArticleCacheStatsDto(boolean enabled, int size, long hits, long misses, long evictions, long invalidations) {
+        this.enabled = enabled;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getInvalidations() {
+        return invalidations;
+    }
+
+    @Override
+    public String toString() {
+        return "ArticleCacheStatsDto{" +
+                "enabled=" + enabled +
+                ", size=" + size +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", invalidations=" + invalidations +
+                '}';
+    }
+}
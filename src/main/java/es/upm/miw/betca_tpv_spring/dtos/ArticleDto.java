@@ -6,6 +6,7 @@ import es.upm.miw.betca_tpv_spring.documents.Article;
 import es.upm.miw.betca_tpv_spring.documents.Provider;
 import es.upm.miw.betca_tpv_spring.documents.Tax;
 import es.upm.miw.betca_tpv_spring.dtos.validations.BigDecimalPositive;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -48,12 +49,17 @@ public class ArticleDto extends ArticleMinimumDto {
         this(article.getCode(), article.getDescription(), article.getReference(), article.getRetailPrice(), article.getStock());
         this.setDiscontinued(article.isDiscontinued());
         this.registrationDate = article.getRegistrationDate();
-        if (article.getProvider() != null) {
-            this.setProvider(article.getProvider().getId());
-        }
+        this.setProvider(providerId(article.getProvider()));
         this.setTax(article.getTax());
     }
 
+    private static String providerId(Provider provider) {
+        if (provider instanceof LazyLoadingProxy) { // The id is in the reference, no need to fetch the provider
+            return String.valueOf(((LazyLoadingProxy) provider).toDBRef().getId());
+        }
+        return provider == null ? null : provider.getId();
+    }
+
     public Tax getTax() {
         return tax;
     }
@@ -0,0 +1,57 @@
+package es.upm.miw.betca_tpv_spring.dtos;
+
+public class PdfRenderStatsDto {
+
+    private int queueDepth;
+
+    private int active;
+
+    private long rendered;
+
+    private long renderMillis;
+
+    private long rejected;
+
+    public PdfRenderStatsDto() {
+        // Empty for framework
+    }
+
+    public PdfRenderStatsDto(int queueDepth, int active, long rendered, long renderMillis, long rejected) {
+        this.queueDepth = queueDepth;
+        this.active = active;
+        this.rendered = rendered;
+        this.renderMillis = renderMillis;
+        this.rejected = rejected;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public long getRendered() {
+        return rendered;
+    }
+
+    public long getRenderMillis() {
+        return renderMillis;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public String toString() {
+        return "PdfRenderStatsDto{" +
+                "queueDepth=" + queueDepth +
+                ", active=" + active +
+                ", rendered=" + rendered +
+                ", renderMillis=" + renderMillis +
+                ", rejected=" + rejected +
+                '}';
+    }
+}
@@ -8,14 +8,20 @@ import java.util.List;
 
 public class QuarterVATDto {
 
+    private int year;
     private Quarter quarter;
     private List<TaxDto> taxes;
 
-    public QuarterVATDto(Quarter quarter, TaxDto general, TaxDto reduced, TaxDto superReduced) {
+    public QuarterVATDto(int year, Quarter quarter, TaxDto general, TaxDto reduced, TaxDto superReduced) {
+        this.year = year;
         this.quarter = quarter;
         taxes = new ArrayList<>(Arrays.asList(general, reduced, superReduced));
     }
 
+    public int getYear() {
+        return year;
+    }
+
     public Quarter getQuarter() {
         return quarter;
     }
@@ -27,7 +33,8 @@ public class QuarterVATDto {
     @Override
     public String toString() {
         return "QuarterVATDto{" +
-                "quarter=" + quarter +
+                "year=" + year +
+                ", quarter=" + quarter +
                 ", taxes=" + taxes +
                 '}';
     }
@@ -0,0 +1,56 @@
+package es.upm.miw.betca_tpv_spring.dtos;
+
+public class StockAlarmEventDto extends StockAlarmSearchDto {
+
+    public enum Level {
+        NORMAL, WARNING, CRITICAL
+    }
+
+    private Level level;
+
+    public StockAlarmEventDto() {
+        this.level = Level.NORMAL;
+    }
+
+    public StockAlarmEventDto(String code, Integer warning, Integer critical) {
+        this();
+        this.setCode(code);
+        this.setWarning(warning);
+        this.setCritical(critical);
+    }
+
+    public StockAlarmEventDto(StockAlarmEventDto stockAlarmEventDto) {
+        this(stockAlarmEventDto.getCode(), stockAlarmEventDto.getWarning(), stockAlarmEventDto.getCritical());
+        this.setDescription(stockAlarmEventDto.getDescription());
+        this.setStock(stockAlarmEventDto.getStock());
+        this.level = stockAlarmEventDto.getLevel();
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public boolean isWarning() {
+        return this.getStock() != null && this.getWarning() != null && this.getStock() < this.getWarning();
+    }
+
+    public boolean isCritical() {
+        return this.getStock() != null && this.getCritical() != null && this.getStock() < this.getCritical();
+    }
+
+    @Override
+    public String toString() {
+        return "StockAlarmEventDto{" +
+                "code=" + getCode() +
+                ", description=" + getDescription() +
+                ", stock=" + getStock() +
+                ", warning=" + getWarning() +
+                ", critical=" + getCritical() +
+                ", level=" + level +
+                '}';
+    }
+}
@@ -1,5 +1,6 @@
 package es.upm.miw.betca_tpv_spring.exceptions;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -8,6 +9,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 
 import javax.servlet.http.HttpServletRequest;
 
+@Profile("!reactive")
 @ControllerAdvice
 public class ApiExceptionHandler {
 
@@ -62,6 +64,15 @@ public class ApiExceptionHandler {
         return new ErrorMessage(exception, request.getRequestURI());
     }
 
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler({
+            ServiceUnavailableException.class
+    })
+    @ResponseBody
+    public ErrorMessage serviceUnavailable(HttpServletRequest request, Exception exception) {
+        return new ErrorMessage(exception, request.getRequestURI());
+    }
+
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler({
             Exception.class
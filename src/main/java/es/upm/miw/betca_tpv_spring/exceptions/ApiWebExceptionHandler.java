@@ -0,0 +1,78 @@
+package es.upm.miw.betca_tpv_spring.exceptions;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebExceptionHandler;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link ApiExceptionHandler}, with the same statuses and bodies. As a WebExceptionHandler
+ * ahead of Boot's error handler, it also sees the errors raised before a resource is chosen (e.g. method not allowed).
+ */
+@Profile("reactive")
+@Component
+@Order(-2)
+public class ApiWebExceptionHandler implements WebExceptionHandler {
+
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    public ApiWebExceptionHandler(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable throwable) {
+        ServerHttpResponse response = exchange.getResponse();
+        if (response.isCommitted()) {
+            return Mono.error(throwable);
+        }
+        HttpStatus status = status(throwable);
+        response.setStatusCode(status);
+        if (status == HttpStatus.UNAUTHORIZED) {
+            return response.setComplete();
+        }
+        Exception exception = throwable instanceof Exception ? (Exception) throwable : new Exception(throwable);
+        ErrorMessage errorMessage = new ErrorMessage(exception, exchange.getRequest().getPath().value());
+        try {
+            byte[] body = this.objectMapper.writeValueAsBytes(errorMessage);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON_UTF8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        } catch (JsonProcessingException jsonException) {
+            return response.setComplete();
+        }
+    }
+
+    private static HttpStatus status(Throwable throwable) {
+        if (throwable instanceof UnauthorizedException
+                || throwable instanceof org.springframework.security.access.AccessDeniedException) {
+            return HttpStatus.UNAUTHORIZED;
+        } else if (throwable instanceof NotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        } else if (throwable instanceof BadRequestException
+                || throwable instanceof org.springframework.dao.DuplicateKeyException
+                || throwable instanceof org.springframework.web.server.MethodNotAllowedException
+                || throwable instanceof org.springframework.web.server.ServerWebInputException) {
+            return HttpStatus.BAD_REQUEST;
+        } else if (throwable instanceof ConflictException) {
+            return HttpStatus.CONFLICT;
+        } else if (throwable instanceof ForbiddenException) {
+            return HttpStatus.FORBIDDEN;
+        } else if (throwable instanceof ServiceUnavailableException) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        } else if (throwable instanceof ResponseStatusException) {
+            return ((ResponseStatusException) throwable).getStatus();
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+}
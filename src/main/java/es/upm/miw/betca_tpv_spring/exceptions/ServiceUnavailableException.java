@@ -0,0 +1,10 @@
+package es.upm.miw.betca_tpv_spring.exceptions;
+
+public class ServiceUnavailableException extends RuntimeException {
+    private static final String DESCRIPTION = "Service Unavailable Exception (503)";
+
+    public ServiceUnavailableException(String detail) {
+        super(DESCRIPTION + ". " + detail);
+    }
+
+}
@@ -7,7 +7,7 @@ import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 
-public interface ArticleReactRepository extends ReactiveSortingRepository<Article, String> {
+public interface ArticleReactRepository extends ReactiveSortingRepository<Article, String>, ArticleStockOperations {
     Flux<Article> findByDescriptionLikeOrProvider(String description, String provider);
 
     Flux<Article> findByStockLessThanEqual(Integer stock);
@@ -0,0 +1,15 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import es.upm.miw.betca_tpv_spring.documents.Article;
+import es.upm.miw.betca_tpv_spring.documents.Shopping;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ArticleStockOperations {
+
+    Mono<StockUpdateResult> decrementStock(Shopping[] shoppingList, boolean negativeStockRejected);
+
+    Flux<Article> findStockPage(Integer maximumStock, Collection<String> codes, String afterCode, Integer limit);
+}
@@ -0,0 +1,126 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import es.upm.miw.betca_tpv_spring.documents.Article;
+import es.upm.miw.betca_tpv_spring.documents.Shopping;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class ArticleStockOperationsImpl implements ArticleStockOperations {
+
+    private static final String ID = "_id";
+    private static final String STOCK = "stock";
+    private static final String DESCRIPTION = "description";
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+
+    @Autowired
+    public ArticleStockOperationsImpl(ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    /**
+     * Every line is a conditional $inc, never an upsert, so no stub is written into the catalogue. The lines that
+     * match nothing are told apart with one existence read: a missing article is not found, an existing one has not
+     * enough stock. If any line fails, the lines applied are compensated with the opposite $inc.
+     */
+    @Override
+    public Mono<StockUpdateResult> decrementStock(Shopping[] shoppingList, boolean negativeStockRejected) {
+        return Flux.range(0, shoppingList.length)
+                .flatMap(line -> Mono.from(this.articles().updateOne(this.stockFilter(shoppingList[line], negativeStockRejected),
+                        Updates.inc(STOCK, -shoppingList[line].getAmount())))
+                        .filter(updateResult -> updateResult.getMatchedCount() == 0)
+                        .map(updateResult -> line))
+                .collect(Collectors.toSet())
+                .flatMap(failed -> failed.isEmpty() ? Mono.just(new StockUpdateResult()) :
+                        this.existing(this.articleIds(shoppingList, failed))
+                                .flatMap(existing -> this.compensate(shoppingList, failed, existing)));
+    }
+
+    /**
+     * Code, description and stock of the articles with stock, sorted by code and starting after afterCode.
+     */
+    @Override
+    public Flux<Article> findStockPage(Integer maximumStock, Collection<String> codes, String afterCode, Integer limit) {
+        Criteria stock = Criteria.where(STOCK).ne(null);
+        if (maximumStock != null) {
+            stock.lte(maximumStock);
+        }
+        if (codes != null || afterCode != null) {
+            Criteria code = stock.and(ID);
+            if (codes != null) {
+                code.in(codes);
+            }
+            if (afterCode != null) {
+                code.gt(afterCode);
+            }
+        }
+        Query query = new Query(stock).with(Sort.by(ID));
+        if (limit != null) {
+            query.limit(limit);
+        }
+        query.fields().include(ID).include(DESCRIPTION).include(STOCK);
+        return this.reactiveMongoOperations.find(query, Article.class);
+    }
+
+    private Bson stockFilter(Shopping shopping, boolean negativeStockRejected) {
+        if (negativeStockRejected && shopping.getAmount() > 0) {
+            return Filters.and(Filters.eq(ID, shopping.getArticleId()), Filters.gte(STOCK, shopping.getAmount()));
+        }
+        return Filters.eq(ID, shopping.getArticleId());
+    }
+
+    private Mono<Set<String>> existing(List<String> codes) {
+        Query query = new Query(Criteria.where(ID).in(codes));
+        query.fields().include(ID);
+        return this.reactiveMongoOperations.find(query, Article.class)
+                .map(Article::getCode)
+                .collect(Collectors.toSet());
+    }
+
+    private Mono<StockUpdateResult> compensate(Shopping[] shoppingList, Set<Integer> failed, Set<String> existing) {
+        List<WriteModel<Document>> compensations = new ArrayList<>();
+        for (int i = 0; i < shoppingList.length; i++) {
+            if (!failed.contains(i)) {
+                compensations.add(new UpdateOneModel<>(
+                        Filters.eq(ID, shoppingList[i].getArticleId()), Updates.inc(STOCK, shoppingList[i].getAmount())));
+            }
+        }
+        List<String> failedCodes = this.articleIds(shoppingList, failed);
+        List<String> notFoundCodes = failedCodes.stream().filter(code -> !existing.contains(code))
+                .collect(Collectors.toList());
+        List<String> rejectedCodes = failedCodes.stream().filter(existing::contains)
+                .collect(Collectors.toList());
+        StockUpdateResult stockUpdateResult = new StockUpdateResult(notFoundCodes, rejectedCodes);
+        return compensations.isEmpty() ? Mono.just(stockUpdateResult) :
+                Mono.from(this.articles().bulkWrite(compensations, new BulkWriteOptions().ordered(false)))
+                        .thenReturn(stockUpdateResult);
+    }
+
+    private List<String> articleIds(Shopping[] shoppingList, Set<Integer> lines) {
+        return lines.stream().sorted().map(line -> shoppingList[line].getArticleId()).distinct()
+                .collect(Collectors.toList());
+    }
+
+    private MongoCollection<Document> articles() {
+        return this.reactiveMongoOperations.getCollection(this.reactiveMongoOperations.getCollectionName(Article.class));
+    }
+}
@@ -0,0 +1,7 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import es.upm.miw.betca_tpv_spring.documents.CashierSales;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface CashierSalesRepository extends MongoRepository<CashierSales, String> {
+}
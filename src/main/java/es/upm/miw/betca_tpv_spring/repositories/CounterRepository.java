@@ -0,0 +1,7 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import es.upm.miw.betca_tpv_spring.documents.Counter;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface CounterRepository extends MongoRepository<Counter, String> {
+}
@@ -0,0 +1,12 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import es.upm.miw.betca_tpv_spring.documents.CustomerPoints;
+import es.upm.miw.betca_tpv_spring.documents.User;
+import reactor.core.publisher.Mono;
+
+public interface CustomerPointsOperations {
+
+    Mono<CustomerPoints> incrementPoints(User user, int points);
+
+    Mono<CustomerPoints> setPoints(User user, int points);
+}
@@ -0,0 +1,60 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import es.upm.miw.betca_tpv_spring.documents.CustomerPoints;
+import es.upm.miw.betca_tpv_spring.documents.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+public class CustomerPointsOperationsImpl implements CustomerPointsOperations {
+
+    private static final String USER = "user";
+    private static final String POINTS = "points";
+    private static final int FLOOR_ATTEMPTS = 3;
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+
+    @Autowired
+    public CustomerPointsOperationsImpl(ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    @Override
+    public Mono<CustomerPoints> incrementPoints(User user, int points) {
+        if (points >= 0) {
+            return this.modify(this.byUser(user), new Update().inc(POINTS, points));
+        }
+        return this.decrementPoints(user, -points, FLOOR_ATTEMPTS);
+    }
+
+    private Mono<CustomerPoints> decrementPoints(User user, int points, int attempts) {
+        if (attempts == 0) {
+            return Mono.empty();
+        }
+        return this.modify(this.byUser(user).addCriteria(Criteria.where(POINTS).gte(points)),
+                new Update().inc(POINTS, -points))
+                .switchIfEmpty(Mono.defer(() -> this.modify(this.byUser(user).addCriteria(Criteria.where(POINTS).lt(points)),
+                        new Update().set(POINTS, 0))))
+                .switchIfEmpty(Mono.defer(() -> this.decrementPoints(user, points, attempts - 1)));
+    }
+
+    @Override
+    public Mono<CustomerPoints> setPoints(User user, int points) {
+        return this.modify(this.byUser(user), new Update().set(POINTS, Math.max(points, 0)));
+    }
+
+    private Query byUser(User user) {
+        Query query = new Query(Criteria.where(USER).is(user));
+        query.fields().exclude(USER);
+        return query;
+    }
+
+    private Mono<CustomerPoints> modify(Query query, Update update) {
+        return this.reactiveMongoOperations.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), CustomerPoints.class);
+    }
+}
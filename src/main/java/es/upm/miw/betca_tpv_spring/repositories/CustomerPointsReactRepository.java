@@ -5,6 +5,7 @@ import es.upm.miw.betca_tpv_spring.documents.User;
 import org.springframework.data.repository.reactive.ReactiveSortingRepository;
 import reactor.core.publisher.Mono;
 
-public interface CustomerPointsReactRepository extends ReactiveSortingRepository<CustomerPoints, String> {
+public interface CustomerPointsReactRepository extends ReactiveSortingRepository<CustomerPoints, String>, CustomerPointsOperations {
+
     Mono<CustomerPoints> findByUser(Mono<User> user);
 }
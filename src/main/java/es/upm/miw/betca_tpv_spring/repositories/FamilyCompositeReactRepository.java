@@ -6,4 +6,6 @@ import reactor.core.publisher.Mono;
 
 public interface FamilyCompositeReactRepository extends ReactiveSortingRepository<FamilyComposite, String> {
     Mono<FamilyComposite> findByReference(String reference);
+
+    Mono<FamilyComposite> findFirstByDescription(String description);
 }
@@ -0,0 +1,14 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import es.upm.miw.betca_tpv_spring.documents.PendingDelivery;
+import org.springframework.data.repository.reactive.ReactiveSortingRepository;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+public interface PendingDeliveryReactRepository extends ReactiveSortingRepository<PendingDelivery, String> {
+
+    Flux<PendingDelivery> findByArticleIdIn(Collection<String> articleIds);
+
+    Flux<PendingDelivery> findByTicketId(String ticketId);
+}
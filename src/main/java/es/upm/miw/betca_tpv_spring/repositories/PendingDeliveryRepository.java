@@ -0,0 +1,7 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import es.upm.miw.betca_tpv_spring.documents.PendingDelivery;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface PendingDeliveryRepository extends MongoRepository<PendingDelivery, String> {
+}
@@ -0,0 +1,12 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import es.upm.miw.betca_tpv_spring.documents.SalesDaily;
+import org.springframework.data.repository.reactive.ReactiveSortingRepository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+public interface SalesDailyReactRepository extends ReactiveSortingRepository<SalesDaily, String> {
+
+    Flux<SalesDaily> findByArticleIdAndDayGreaterThanEqualOrderByDay(String articleId, LocalDate day);
+}
@@ -0,0 +1,39 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class StockUpdateResult {
+
+    private List<String> notFound;
+    private List<String> rejected;
+
+    public StockUpdateResult() {
+        this(new ArrayList<>(), new ArrayList<>());
+    }
+
+    public StockUpdateResult(List<String> notFound, List<String> rejected) {
+        this.notFound = notFound;
+        this.rejected = rejected;
+    }
+
+    public List<String> getNotFound() {
+        return notFound;
+    }
+
+    public List<String> getRejected() {
+        return rejected;
+    }
+
+    public boolean isCompleted() {
+        return this.notFound.isEmpty() && this.rejected.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "StockUpdateResult{" +
+                "notFound=" + notFound +
+                ", rejected=" + rejected +
+                '}';
+    }
+}
@@ -9,7 +9,8 @@ import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 
-public interface TicketReactRepository extends ReactiveSortingRepository<Ticket, String> {
+public interface TicketReactRepository extends ReactiveSortingRepository<Ticket, String>, TicketSalesOperations,
+        TicketSearchOperations {
 
     Mono<Ticket> findFirstByOrderByCreationDateDescIdDesc();
 
@@ -22,6 +23,8 @@ public interface TicketReactRepository extends ReactiveSortingRepository<Ticket,
 
     Flux<Ticket> findByCreationDateLessThanEqual(LocalDateTime end);
 
+    Flux<Ticket> findByCreationDateGreaterThanEqual(LocalDateTime init);
+
     Mono<Ticket> findById(String id);
 
     @Query(value = "{'shoppingList': {  $elemMatch: { 'articleId' : ?0, 'shoppingState' : 'NOT_COMMITTED' } }}")
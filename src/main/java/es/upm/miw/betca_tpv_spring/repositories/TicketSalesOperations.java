@@ -0,0 +1,11 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public interface TicketSalesOperations {
+
+    Mono<Map<String, Integer>> soldUnits(LocalDateTime initDate, LocalDateTime endDate);
+}
@@ -0,0 +1,52 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class TicketSalesOperationsImpl implements TicketSalesOperations {
+
+    private static final String CREATION_DATE = "creationDate";
+    private static final String SHOPPING_LIST = "shoppingList";
+    private static final String ARTICLE_ID = SHOPPING_LIST + ".articleId";
+    private static final String AMOUNT = SHOPPING_LIST + ".amount";
+    private static final String SOLD_UNITS = "soldUnits";
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+
+    @Autowired
+    public TicketSalesOperationsImpl(ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    /**
+     * Units sold by article code, grouped by the server. Dates keep the bounds of the derived queries:
+     * up to endDate inclusive without initDate, otherwise strictly between initDate and endDate (or now).
+     * Without dates, the whole collection is grouped in one pass, to be joined to every article of a stock page.
+     */
+    @Override
+    public Mono<Map<String, Integer>> soldUnits(LocalDateTime initDate, LocalDateTime endDate) {
+        List<AggregationOperation> operations = new ArrayList<>();
+        if (initDate == null && endDate != null) {
+            operations.add(Aggregation.match(Criteria.where(CREATION_DATE).lte(endDate)));
+        } else if (initDate != null) {
+            operations.add(Aggregation.match(Criteria.where(CREATION_DATE).gt(initDate)
+                    .lt(endDate != null ? endDate : LocalDateTime.now())));
+        }
+        operations.add(Aggregation.unwind(SHOPPING_LIST));
+        operations.add(Aggregation.group(ARTICLE_ID).sum(AMOUNT).as(SOLD_UNITS));
+        return this.reactiveMongoOperations.aggregate(Aggregation.newAggregation(Ticket.class, operations), Document.class)
+                .collectMap(document -> document.getString("_id"),
+                        document -> ((Number) document.get(SOLD_UNITS)).intValue());
+    }
+}
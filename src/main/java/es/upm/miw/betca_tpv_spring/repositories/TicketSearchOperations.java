@@ -0,0 +1,17 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import es.upm.miw.betca_tpv_spring.dtos.TicketOutputDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface TicketSearchOperations {
+
+    Flux<TicketOutputDto> search(String userMobile, LocalDateTime initDate, LocalDateTime endDate, Integer totalItems);
+
+    Flux<TicketOutputDto> searchNotCommitted(Collection<String> articleIds);
+
+    Mono<Long> updateUserMobile(String userMobile, String newUserMobile);
+}
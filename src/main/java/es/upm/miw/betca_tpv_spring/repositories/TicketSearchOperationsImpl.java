@@ -0,0 +1,100 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import es.upm.miw.betca_tpv_spring.documents.ShoppingState;
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import es.upm.miw.betca_tpv_spring.dtos.TicketOutputDto;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public class TicketSearchOperationsImpl implements TicketSearchOperations {
+
+    static final String USER_MOBILE = "userMobile";
+    static final String CREATION_DATE = "creationDate";
+    static final String TOTAL_ITEMS = "totalItems";
+    static final String SHOPPING_LIST = "shoppingList";
+    private static final String ARTICLE_ID = "articleId";
+    private static final String SHOPPING_STATE = "shoppingState";
+    private static final String REFERENCE = "reference";
+
+    private ReactiveMongoOperations reactiveMongoOperations;
+
+    @Autowired
+    public TicketSearchOperationsImpl(ReactiveMongoOperations reactiveMongoOperations) {
+        this.reactiveMongoOperations = reactiveMongoOperations;
+    }
+
+    static Bson searchFilter(String userMobile, LocalDateTime initDate, LocalDateTime endDate, Integer totalItems) {
+        List<Bson> filters = new ArrayList<>();
+        if (userMobile != null) {
+            filters.add(Filters.eq(USER_MOBILE, userMobile));
+        }
+        if (initDate != null) {
+            filters.add(Filters.gt(CREATION_DATE, date(initDate)));
+        }
+        if (endDate != null) {
+            filters.add(Filters.lt(CREATION_DATE, date(endDate)));
+        }
+        if (totalItems != null) {
+            filters.add(Filters.eq(TOTAL_ITEMS, totalItems));
+        }
+        return filters.isEmpty() ? new Document() : Filters.and(filters);
+    }
+
+    static Bson notCommittedFilter(Collection<String> articleIds) {
+        return Filters.elemMatch(SHOPPING_LIST, Filters.and(
+                Filters.in(ARTICLE_ID, articleIds),
+                Filters.eq(SHOPPING_STATE, ShoppingState.NOT_COMMITTED.name())));
+    }
+
+    private static Date date(LocalDateTime localDateTime) {
+        return Date.from(localDateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    @Override
+    public Flux<TicketOutputDto> search(String userMobile, LocalDateTime initDate, LocalDateTime endDate, Integer totalItems) {
+        return this.findOutputs(searchFilter(userMobile, initDate, endDate, totalItems));
+    }
+
+    /**
+     * Scans the tickets, without index: only the fallback of the pending deliveries while they are rebuilt.
+     */
+    @Override
+    public Flux<TicketOutputDto> searchNotCommitted(Collection<String> articleIds) {
+        if (articleIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return this.findOutputs(notCommittedFilter(articleIds));
+    }
+
+    private Flux<TicketOutputDto> findOutputs(Bson filter) {
+        return Flux.from(this.tickets()
+                .find(filter)
+                .projection(Projections.include(REFERENCE)))
+                .map(document -> new TicketOutputDto(document.getString("_id"), document.getString(REFERENCE)));
+    }
+
+    @Override
+    public Mono<Long> updateUserMobile(String userMobile, String newUserMobile) {
+        return Mono.from(this.tickets().updateMany(Filters.eq(USER_MOBILE, userMobile), Updates.set(USER_MOBILE, newUserMobile)))
+                .map(updateResult -> updateResult.getModifiedCount());
+    }
+
+    private MongoCollection<Document> tickets() {
+        return this.reactiveMongoOperations.getCollection(this.reactiveMongoOperations.getCollectionName(Ticket.class));
+    }
+}
@@ -0,0 +1,10 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import es.upm.miw.betca_tpv_spring.documents.VatRollup;
+import org.springframework.data.repository.reactive.ReactiveSortingRepository;
+import reactor.core.publisher.Flux;
+
+public interface VatRollupReactRepository extends ReactiveSortingRepository<VatRollup, String> {
+
+    Flux<VatRollup> findByYearAndQuarter(int year, int quarter);
+}
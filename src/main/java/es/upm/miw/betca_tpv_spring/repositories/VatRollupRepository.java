@@ -0,0 +1,7 @@
+package es.upm.miw.betca_tpv_spring.repositories;
+
+import es.upm.miw.betca_tpv_spring.documents.VatRollup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface VatRollupRepository extends MongoRepository<VatRollup, String> {
+}
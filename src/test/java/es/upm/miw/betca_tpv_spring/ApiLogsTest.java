@@ -0,0 +1,48 @@
+package es.upm.miw.betca_tpv_spring;
+
+import es.upm.miw.betca_tpv_spring.api_rest_controllers.ArticleResource;
+import es.upm.miw.betca_tpv_spring.api_rest_controllers.UserResource;
+import es.upm.miw.betca_tpv_spring.documents.Role;
+import es.upm.miw.betca_tpv_spring.dtos.UserDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ApiLogsTest {
+
+    @Test
+    void testValueKeepsSimpleValues() {
+        assertEquals("8400000000017", ApiLogs.value("8400000000017", true));
+        assertEquals("10.5", ApiLogs.value(new BigDecimal("10.5"), false));
+        assertEquals("true", ApiLogs.value(true, false));
+        assertEquals("ADMIN", ApiLogs.value(Role.ADMIN, false));
+        assertEquals("2020-01-31", ApiLogs.value(LocalDate.of(2020, 1, 31), false));
+        assertEquals("null", ApiLogs.value(null, false));
+    }
+
+    @Test
+    void testValueRedactsObjects() {
+        UserDto userDto = new UserDto();
+        userDto.setDni("12345678Z");
+        assertEquals("UserDto", ApiLogs.value(userDto, true));
+        assertEquals("MonoJust", ApiLogs.value(Mono.just(userDto), true));
+    }
+
+    @Test
+    void testLoggableOnlyListedTexts() throws NoSuchMethodException {
+        Method method = UserResource.class.getMethod("read", String.class, Authentication.class);
+        assertArrayEquals(new boolean[]{false, false}, ApiLogs.loggable(method, Collections.singleton("code")));
+        assertEquals("***", ApiLogs.value("666666000", false));
+        method = ArticleResource.class.getMethod("readArticle", String.class);
+        assertArrayEquals(new boolean[]{true}, ApiLogs.loggable(method, Collections.singleton("code")));
+    }
+
+}
@@ -0,0 +1,55 @@
+package es.upm.miw.betca_tpv_spring;
+
+import io.netty.util.concurrent.FastThreadLocalThread;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import reactor.blockhound.BlockHound;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fails the test during which a blocking call ran on a non-blocking thread: Reactor's and Netty's, where the
+ * reactive Mongo driver calls back with miw.mongo.netty. The call is recorded, with its stack, and let run: thrown
+ * inside the driver the error may be swallowed and the test would hang instead of failing.
+ * Loaded by the ServiceLoader only with extensions autodetection: mvn -P blockhound verify
+ */
+public class BlockHoundExtension implements BeforeAllCallback, AfterEachCallback {
+
+    private static final AtomicBoolean INSTALLED = new AtomicBoolean();
+    private static final Queue<AssertionError> BLOCKING_CALLS = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        if (INSTALLED.compareAndSet(false, true)) {
+            BlockHound.install(builder -> builder
+                    .nonBlockingThreadPredicate(current -> current.or(FastThreadLocalThread.class::isInstance))
+                    // Spring Data MongoDB resolves the DBRefs of reactive reads through the blocking driver
+                    .allowBlockingCallsInside("org.springframework.data.mongodb.core.convert.DefaultDbRefResolver", "fetch")
+                    .allowBlockingCallsInside("org.springframework.data.mongodb.core.convert.DefaultDbRefResolver", "bulkFetch")
+                    // UUIDs and salts, read from /dev/urandom, which does not block
+                    .allowBlockingCallsInside("java.security.SecureRandom", "nextBytes")
+                    .blockingMethodCallback(method -> BLOCKING_CALLS.add(
+                            new AssertionError("Blocking call " + method + " in " + Thread.currentThread().getName()))));
+        }
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        List<AssertionError> blockingCalls = new ArrayList<>();
+        for (AssertionError blockingCall = BLOCKING_CALLS.poll(); blockingCall != null; blockingCall = BLOCKING_CALLS.poll()) {
+            blockingCalls.add(blockingCall);
+        }
+        if (blockingCalls.isEmpty()) {
+            return;
+        }
+        AssertionError assertionError = new AssertionError(blockingCalls.size() + " blocking call(s) on a non-blocking thread");
+        blockingCalls.forEach(assertionError::addSuppressed);
+        throw assertionError;
+    }
+
+}
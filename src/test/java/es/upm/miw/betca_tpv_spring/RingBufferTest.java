@@ -0,0 +1,72 @@
+package es.upm.miw.betca_tpv_spring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferTest {
+
+    @Test
+    void testOfferAndPollInOrder() {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(4);
+        for (int round = 0; round < 3; round++) {
+            assertTrue(ringBuffer.offer(1));
+            assertTrue(ringBuffer.offer(2));
+            assertEquals(1, ringBuffer.poll().intValue());
+            assertEquals(2, ringBuffer.poll().intValue());
+            assertNull(ringBuffer.poll());
+        }
+    }
+
+    @Test
+    void testOfferRefusedWhenFull() {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(2);
+        assertTrue(ringBuffer.offer(1));
+        assertTrue(ringBuffer.offer(2));
+        assertFalse(ringBuffer.offer(3));
+        assertEquals(1, ringBuffer.poll().intValue());
+        assertTrue(ringBuffer.offer(3));
+    }
+
+    @Test
+    void testCapacityNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(3));
+    }
+
+    @Test
+    void testConcurrentProducers() throws InterruptedException {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(1024);
+        int producers = 4;
+        int offers = 10000;
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int producer = 0; producer < producers; producer++) {
+            new Thread(() -> {
+                for (int offer = 0; offer < offers; offer++) {
+                    if (ringBuffer.offer(offer)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        int polled = 0;
+        while (done.getCount() > 0) {
+            if (ringBuffer.poll() != null) {
+                polled++;
+            }
+        }
+        while (ringBuffer.poll() != null) {
+            polled++;
+        }
+        assertEquals(accepted.get(), polled);
+    }
+
+}
@@ -0,0 +1,58 @@
+package es.upm.miw.betca_tpv_spring.api_rest_controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static es.upm.miw.betca_tpv_spring.api_rest_controllers.UserResource.USERS;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ApiTestConfig
+class MetricsIT {
+
+    private static final String PROMETHEUS = "/actuator/prometheus";
+
+    @Autowired
+    private RestService restService;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Value("${server.servlet.context-path}")
+    private String contextPath;
+
+    @Test
+    void testReadPrometheus() {
+        this.restService.loginAdmin(this.webTestClient)
+                .get().uri(contextPath + USERS + UserResource.MOBILE_ID, this.restService.getAdminMobile())
+                .exchange()
+                .expectStatus().isOk();
+        this.restService.loginAdmin(this.webTestClient)
+                .get().uri(contextPath + PROMETHEUS)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .value(metrics -> {
+                    assertTrue(metrics.contains("miw_controller_seconds_count{class=\"UserController\",exception=\"None\",method=\"readUser\",outcome=\"SUCCESS\",}"));
+                    assertTrue(metrics.contains("miw_repository_seconds_bucket{class=\"UserReactRepository\""));
+                });
+    }
+
+    @Test
+    void testReadPrometheusWithoutAdmin() {
+        this.restService.loginOperator(this.webTestClient)
+                .get().uri(contextPath + PROMETHEUS)
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void testReadPrometheusWithoutToken() {
+        this.webTestClient
+                .get().uri(contextPath + PROMETHEUS)
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+}
@@ -0,0 +1,138 @@
+package es.upm.miw.betca_tpv_spring.api_rest_controllers;
+
+import es.upm.miw.betca_tpv_spring.documents.User;
+import es.upm.miw.betca_tpv_spring.dtos.UserDto;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import static es.upm.miw.betca_tpv_spring.api_rest_controllers.UserResource.USERS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@TestPropertySource(locations = "classpath:test.properties")
+@ActiveProfiles({"dev", "reactive"})
+class ReactiveRuntimeIT {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private RestService restService;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Value("${server.servlet.context-path}")
+    private String contextPath;
+
+    @Test
+    void testReactiveContext() {
+        assertTrue(this.applicationContext instanceof ReactiveWebApplicationContext);
+    }
+
+    @Test
+    void testLoginAndRead() {
+        this.restService.loginAdmin(this.webTestClient)
+                .get().uri(contextPath + USERS + UserResource.MOBILE_ID, this.restService.getAdminMobile())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(UserDto.class)
+                .value(Assertions::assertNotNull)
+                .value(user -> assertEquals(this.restService.getAdminMobile(), user.getMobile()));
+    }
+
+    @Test
+    void testReadWithoutToken() {
+        this.webTestClient
+                .get().uri(contextPath + USERS + UserResource.MOBILE_ID, this.restService.getAdminMobile())
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void testReadWithWrongToken() {
+        this.webTestClient
+                .get().uri(contextPath + USERS + UserResource.MOBILE_ID, this.restService.getAdminMobile())
+                .header("Authorization", "Bearer aaa.bbb.ccc")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void testReadWithoutRole() {
+        this.restService.loginOperator(this.webTestClient)
+                .get().uri(contextPath + AdminResource.ADMINS + AdminResource.PDF_RENDER)
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void testReadMetricsWithoutRole() {
+        this.restService.loginOperator(this.webTestClient)
+                .get().uri(contextPath + "/actuator/prometheus")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void testReadMetrics() {
+        this.restService.loginAdmin(this.webTestClient)
+                .get().uri(contextPath + "/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .value(metrics -> assertTrue(metrics.contains("miw_controller_seconds")));
+    }
+
+    @Test
+    void testReadForbidden() {
+        this.restService.loginOperator(this.webTestClient)
+                .get().uri(contextPath + USERS + UserResource.MOBILE_ID, "666666003")
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void testCreateUserBadNumber() {
+        this.restService.loginAdmin(this.webTestClient)
+                .post().uri(contextPath + USERS)
+                .body(BodyInserters.fromObject(new UserDto(User.builder().mobile("7").username("m001").build())))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("WebExchangeBindException")
+                .jsonPath("$.path").isEqualTo(contextPath + USERS);
+    }
+
+    @Test
+    void testMethodNotAllowed() {
+        this.webTestClient
+                .post().uri(contextPath + SystemResource.SYSTEM + SystemResource.VERSION_BADGE)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testOutOfContextPath() {
+        this.webTestClient
+                .get().uri(SystemResource.SYSTEM + SystemResource.APP_INFO)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+}
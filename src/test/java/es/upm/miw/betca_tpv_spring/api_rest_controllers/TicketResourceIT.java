@@ -1,19 +1,24 @@
 package es.upm.miw.betca_tpv_spring.api_rest_controllers;
 
 import es.upm.miw.betca_tpv_spring.data_services.DatabaseSeederService;
+import es.upm.miw.betca_tpv_spring.data_services.KeysetPage;
 import es.upm.miw.betca_tpv_spring.documents.ShoppingState;
 import es.upm.miw.betca_tpv_spring.dtos.*;
 import es.upm.miw.betca_tpv_spring.repositories.OrderRepository;
+import es.upm.miw.betca_tpv_spring.repositories.TicketRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.BodyInserters;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -37,6 +42,9 @@ class TicketResourceIT {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private TicketRepository ticketRepository;
+
     @Autowired
     private DatabaseSeederService databaseSeederService;
 
@@ -211,6 +219,52 @@ class TicketResourceIT {
         assertNotEquals(tickets.size(),0);
     }
 
+    @Test
+    void testReadAllByPages() {
+        List<TicketOutputDto> tickets = new ArrayList<>();
+        String cursor = null;
+        do {
+            EntityExchangeResult<List<TicketOutputDto>> page = this.restService.loginAdmin(webTestClient)
+                    .get().uri(contextPath + TICKETS + "?limit=4" + (cursor == null ? "" : "&cursor=" + cursor))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBodyList(TicketOutputDto.class)
+                    .returnResult();
+            assertNotNull(page.getResponseBody());
+            assertTrue(page.getResponseBody().size() <= 4);
+            tickets.addAll(page.getResponseBody());
+            cursor = page.getResponseHeaders().getFirst(KeysetPage.NEXT_CURSOR);
+        } while (cursor != null);
+        assertEquals(6, tickets.size());
+        assertEquals(6, tickets.stream().map(TicketOutputDto::getId).distinct().count());
+    }
+
+    @Test
+    void testReadAllInvalidCursorOrLimit() {
+        this.restService.loginAdmin(webTestClient)
+                .get().uri(contextPath + TICKETS + "?cursor=%25%25")
+                .exchange()
+                .expectStatus().isBadRequest();
+        this.restService.loginAdmin(webTestClient)
+                .get().uri(contextPath + TICKETS + "?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testReadAllStream() {
+        List<TicketOutputDto> tickets = this.restService.loginAdmin(webTestClient)
+                .get().uri(contextPath + TICKETS + STREAM)
+                .accept(MediaType.APPLICATION_STREAM_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(TicketOutputDto.class)
+                .getResponseBody()
+                .collectList().block();
+        assertNotNull(tickets);
+        assertEquals(6, tickets.size());
+    }
+
     @Test
     void testGetTicket() {
         TicketOutputDto ticket = this.restService.loginAdmin(webTestClient)
@@ -231,6 +285,36 @@ class TicketResourceIT {
                 .expectStatus().isNotFound();
     }
 
+    @Test
+    void testCreateTicketAndGetPdf() {
+        this.restService.loginAdmin(webTestClient)
+                .post().uri(contextPath + CASHIER_CLOSURES)
+                .exchange()
+                .expectStatus().isOk();
+        ShoppingDto shoppingDto =
+                new ShoppingDto("1", "prueba", new BigDecimal("100.00"), 1, BigDecimal.ZERO,
+                        new BigDecimal("100.00"), true);
+        TicketCreationInputDto ticketCreationInputDto = new TicketCreationInputDto(null, new BigDecimal("100.00")
+                , BigDecimal.ZERO, BigDecimal.ZERO, Collections.singletonList(shoppingDto), "Reprint");
+        this.restService.loginAdmin(webTestClient)
+                .post().uri(contextPath + TicketResource.TICKETS)
+                .body(BodyInserters.fromObject(ticketCreationInputDto))
+                .exchange()
+                .expectStatus().isOk();
+        String id = this.ticketRepository.findFirstByOrderByCreationDateDescIdDesc().getId();
+        this.restService.loginAdmin(webTestClient)
+                .get().uri(contextPath + TICKETS + TICKET_ID + PDF, id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class)
+                .value(bytes -> assertTrue(new String(bytes, 0, 4).startsWith("%PDF")));
+        this.restService.loginAdmin(webTestClient)
+                .patch().uri(contextPath + CASHIER_CLOSURES + CashierClosureResource.LAST)
+                .body(BodyInserters.fromObject(new CashierClosureInputDto(BigDecimal.ZERO, BigDecimal.ZERO, "")))
+                .exchange()
+                .expectStatus().isOk();
+    }
+
     @Test
     void testGetPdfNotFound() {
         this.restService.loginAdmin(webTestClient)
@@ -0,0 +1,41 @@
+package es.upm.miw.betca_tpv_spring.benchmarks;
+
+import es.upm.miw.betca_tpv_spring.documents.Shopping;
+import es.upm.miw.betca_tpv_spring.documents.ShoppingState;
+import es.upm.miw.betca_tpv_spring.documents.Tax;
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+
+import java.math.BigDecimal;
+
+/**
+ * Tickets like the POS ones: a few units per line, some discounts, a quarter of the lines not committed and the
+ * taxes of every kind already snapshotted.
+ */
+final class BenchmarkTickets {
+
+    private static final Tax[] TAXES = Tax.values();
+
+    private BenchmarkTickets() {
+        // static class
+    }
+
+    static Shopping[] shoppingList(int lines) {
+        Shopping[] shoppingList = new Shopping[lines];
+        for (int line = 0; line < lines; line++) {
+            Shopping shopping = new Shopping(line % 3 + 1, line % 2 == 0 ? BigDecimal.ZERO : new BigDecimal("10.5"),
+                    line % 4 == 0 ? ShoppingState.NOT_COMMITTED : ShoppingState.COMMITTED,
+                    String.valueOf(8400000000017L + line), "Article " + line, new BigDecimal("19.99"));
+            Tax tax = TAXES[line % TAXES.length];
+            shopping.setTax(tax);
+            shopping.setTaxRate(tax.getRate().movePointLeft(2));
+            shoppingList[line] = shopping;
+        }
+        return shoppingList;
+    }
+
+    static Ticket ticket(int lines) {
+        return new Ticket(1, BigDecimal.ZERO, new BigDecimal("100"), BigDecimal.ZERO, shoppingList(lines),
+                null, "Benchmark", null);
+    }
+
+}
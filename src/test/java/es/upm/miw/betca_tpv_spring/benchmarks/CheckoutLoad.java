@@ -0,0 +1,262 @@
+package es.upm.miw.betca_tpv_spring.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.upm.miw.betca_tpv_spring.Application;
+import es.upm.miw.betca_tpv_spring.api_rest_controllers.ArticleResource;
+import es.upm.miw.betca_tpv_spring.api_rest_controllers.InvoiceResource;
+import es.upm.miw.betca_tpv_spring.api_rest_controllers.StockResource;
+import es.upm.miw.betca_tpv_spring.api_rest_controllers.TicketResource;
+import es.upm.miw.betca_tpv_spring.business_controllers.CashierClosureController;
+import es.upm.miw.betca_tpv_spring.business_services.Barcode;
+import es.upm.miw.betca_tpv_spring.documents.Article;
+import es.upm.miw.betca_tpv_spring.documents.Provider;
+import es.upm.miw.betca_tpv_spring.documents.Role;
+import es.upm.miw.betca_tpv_spring.documents.Tax;
+import es.upm.miw.betca_tpv_spring.documents.User;
+import es.upm.miw.betca_tpv_spring.dtos.ShoppingDto;
+import es.upm.miw.betca_tpv_spring.dtos.TicketCreationInputDto;
+import es.upm.miw.betca_tpv_spring.dtos.TokenOutputDto;
+import es.upm.miw.betca_tpv_spring.repositories.ArticleRepository;
+import es.upm.miw.betca_tpv_spring.repositories.ProviderRepository;
+import es.upm.miw.betca_tpv_spring.repositories.UserRepository;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end checkout load: the application is started in this JVM on the embedded Mongo (dev profile, so the
+ * database is wiped and seeded), a catalogue and a customer base of the given sizes are added and N tills serve
+ * customers in a loop, without think time: 1 to 10 articles scanned, checkout with the ticket PDF and, for some
+ * customers, the invoice, a reprint of one of their tickets or a page of the stock report. Throughput, latency
+ * percentiles and errors are reported per call. The tills share the CPU with the server, for hardware sizing run
+ * PosClientsLoad from another host too. Extra --spring.properties are passed to the application:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dstart-class=es.upm.miw.betca_tpv_spring.benchmarks.CheckoutLoad
+ * -Dexec.args="[tills=50] [seconds=60] [articles=5000] [customers=1000] [profiles=dev|dev,reactive] [--x=y ...]"
+ */
+public class CheckoutLoad {
+
+    private static final int MAX_LINES = 10;
+    private static final int MAX_AMOUNT = 3;
+    private static final double INVOICE_RATE = 0.2;
+    private static final double REPRINT_RATE = 0.1;
+    private static final double STOCK_REPORT_RATE = 0.05;
+    private static final int STOCK_REPORT_LIMIT = 100;
+    private static final int STOCK = 10000000;
+    private static final long FIRST_CODE = 840000500000L;
+    private static final long FIRST_MOBILE = 700000000L;
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final String SCAN = "scan";
+    private static final String CHECKOUT = "checkout";
+    private static final String INVOICE = "invoice";
+    private static final String TICKET_SEARCH = "ticket-search";
+    private static final String REPRINT = "reprint";
+    private static final String STOCK_REPORT = "stock-report";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private final List<Article> catalogue = new ArrayList<>();
+    private final List<String> customers = new ArrayList<>();
+
+    private CheckoutLoad() {
+        Stream.of(SCAN, CHECKOUT, INVOICE, TICKET_SEARCH, REPRINT, STOCK_REPORT)
+                .forEach(name -> this.operations.put(name, new Operation()));
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> positional = Arrays.stream(args).filter(arg -> !arg.startsWith("--")).collect(Collectors.toList());
+        int tills = positional.size() > 0 ? Integer.parseInt(positional.get(0)) : 50;
+        int seconds = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 60;
+        int articles = positional.size() > 2 ? Integer.parseInt(positional.get(2)) : 5000;
+        int customers = positional.size() > 3 ? Integer.parseInt(positional.get(3)) : 1000;
+        String profiles = positional.size() > 4 ? positional.get(4) : "dev";
+        String[] springArgs = Stream.concat(
+                Stream.of("--server.port=0", "--spring.profiles.active=" + profiles, "--miw.api.logs.sampling=0"),
+                Arrays.stream(args).filter(arg -> arg.startsWith("--"))).toArray(String[]::new);
+        try (ConfigurableApplicationContext context = SpringApplication.run(Application.class, springArgs)) {
+            CheckoutLoad checkoutLoad = new CheckoutLoad();
+            checkoutLoad.seed(context, articles, customers);
+            checkoutLoad.run(context.getEnvironment(), tills, seconds);
+        }
+    }
+
+    private void seed(ConfigurableApplicationContext context, int articles, int customers) {
+        long start = System.nanoTime();
+        Provider provider = context.getBean(ProviderRepository.class).save(Provider.builder("Checkout load").build());
+        Barcode barcode = new Barcode();
+        Tax[] taxes = Tax.values();
+        this.catalogue.addAll(context.getBean(ArticleRepository.class).saveAll(IntStream.range(0, articles)
+                .mapToObj(index -> Article.builder(barcode.generateEan13code(FIRST_CODE + index))
+                        .reference("load-" + index).description("Load article " + index)
+                        .retailPrice(BigDecimal.valueOf(50 + index % 10000, 2)).stock(STOCK)
+                        .tax(taxes[index % taxes.length]).provider(provider).build())
+                .collect(Collectors.toList())));
+        context.getBean(UserRepository.class).saveAll(IntStream.range(0, customers)
+                .mapToObj(index -> User.builder().mobile(String.valueOf(FIRST_MOBILE + index)).username("customer" + index)
+                        .dni(index + "L").address("C/Checkout load, " + index).email("customer" + index + "@load.com")
+                        .roles(Role.CUSTOMER).build())
+                .peek(customer -> this.customers.add(customer.getMobile()))
+                .collect(Collectors.toList()));
+        context.getBean(CashierClosureController.class).createCashierClosureOpened()
+                .onErrorResume(alreadyOpened -> Mono.empty())
+                .block();
+        System.out.printf("seeded articles=%d customers=%d in %.1f s%n", articles, customers,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    private void run(Environment environment, int tills, int seconds) throws IOException {
+        String baseUrl = "http://localhost:" + environment.getProperty("local.server.port")
+                + environment.getProperty("server.servlet.context-path");
+        HttpClient httpClient = HttpClient.create(ConnectionProvider.fixed("tills", tills, 60000)).baseUrl(baseUrl);
+        String authorization = "Bearer " + this.login(httpClient,
+                environment.getProperty("miw.admin.mobile"), environment.getProperty("miw.admin.password"));
+        HttpClient till = httpClient.headers(headers -> headers.add(HttpHeaderNames.AUTHORIZATION, authorization)
+                .add(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON));
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        long start = System.nanoTime();
+        Flux.range(0, tills)
+                .flatMap(number -> Mono.defer(() -> this.customer(till))
+                        .repeat(() -> System.nanoTime() < deadline), tills)
+                .blockLast();
+        this.report(tills, (System.nanoTime() - start) / 1e9);
+    }
+
+    private String login(HttpClient httpClient, String mobile, String password) throws IOException {
+        String basic = "Basic " + Base64.getEncoder()
+                .encodeToString((mobile + ":" + password).getBytes(StandardCharsets.UTF_8));
+        byte[] token = httpClient.headers(headers -> headers.add(HttpHeaderNames.AUTHORIZATION, basic))
+                .post().uri("/users/token")
+                .responseSingle((response, body) -> body.asByteArray())
+                .block();
+        return this.objectMapper.readValue(token, TokenOutputDto.class).getToken();
+    }
+
+    private Mono<Void> customer(HttpClient till) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<ShoppingDto> cart = IntStream.range(0, 1 + random.nextInt(MAX_LINES))
+                .mapToObj(line -> this.catalogue.get(random.nextInt(this.catalogue.size())))
+                .map(article -> {
+                    int amount = 1 + random.nextInt(MAX_AMOUNT);
+                    return new ShoppingDto(article.getCode(), article.getDescription(), article.getRetailPrice(), amount,
+                            BigDecimal.ZERO, article.getRetailPrice().multiply(BigDecimal.valueOf(amount)), true);
+                })
+                .collect(Collectors.toList());
+        BigDecimal cash = cart.stream().map(ShoppingDto::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add)
+                .setScale(0, RoundingMode.UP);
+        String mobile = this.customers.get(random.nextInt(this.customers.size()));
+        TicketCreationInputDto ticket = new TicketCreationInputDto(mobile, BigDecimal.ZERO, cash, BigDecimal.ZERO,
+                cart, "Checkout load");
+        boolean invoice = random.nextDouble() < INVOICE_RATE;
+        boolean reprint = random.nextDouble() < REPRINT_RATE;
+        boolean stockReport = random.nextDouble() < STOCK_REPORT_RATE;
+        String afterCode = this.catalogue.get(random.nextInt(this.catalogue.size())).getCode();
+        return Flux.fromIterable(cart)
+                .concatMap(shopping -> this.exchange(SCAN, till.get().uri(ArticleResource.ARTICLES + "/" + shopping.getCode())))
+                .then(this.exchange(CHECKOUT, till.post().uri(TicketResource.TICKETS).send(this.json(ticket))))
+                .flatMap(pdf -> invoice ? this.exchange(INVOICE, till.post().uri(InvoiceResource.INVOICES)) : Mono.just(pdf))
+                .flatMap(pdf -> reprint ? this.reprint(till, mobile) : Mono.just(pdf))
+                .then(stockReport ? this.exchange(STOCK_REPORT, till.get().uri(StockResource.STOCK
+                        + "?limit=" + STOCK_REPORT_LIMIT + "&afterCode=" + afterCode)) : Mono.empty())
+                .then();
+    }
+
+    private Mono<byte[]> reprint(HttpClient till, String mobile) {
+        return this.exchange(TICKET_SEARCH, till.get().uri(TicketResource.TICKETS + TicketResource.SEARCH + "?mobile=" + mobile))
+                .flatMap(tickets -> Mono.fromCallable(() -> this.objectMapper.readTree(tickets)))
+                .filter(tickets -> tickets.size() > 0)
+                .map(tickets -> tickets.get(tickets.size() - 1))
+                .map(last -> last.path("id").asText())
+                .flatMap(id -> this.exchange(REPRINT, till.get().uri(TicketResource.TICKETS + "/" + id + TicketResource.PDF)));
+    }
+
+    private ByteBufFlux json(Object body) {
+        try {
+            return ByteBufFlux.fromString(Mono.just(this.objectMapper.writeValueAsString(body)));
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private Mono<byte[]> exchange(String name, HttpClient.ResponseReceiver<?> request) {
+        Operation operation = this.operations.get(name);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return request
+                    .responseSingle((response, body) -> body.asByteArray().defaultIfEmpty(EMPTY)
+                            .<byte[]>handle((bytes, sink) -> {
+                                operation.latencies.record(start);
+                                if (response.status().code() == 200) {
+                                    sink.next(bytes);
+                                } else {
+                                    operation.error("HTTP " + response.status().code(),
+                                            new String(bytes, StandardCharsets.UTF_8));
+                                }
+                            }))
+                    .onErrorResume(exception -> {
+                        operation.latencies.record(start);
+                        operation.error(exception.getClass().getSimpleName(), exception.getMessage());
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    private void report(int tills, double seconds) {
+        long total = this.operations.values().stream().mapToLong(operation -> operation.latencies.count()).sum();
+        long failed = this.operations.values().stream().mapToLong(Operation::failed).sum();
+        long checkouts = this.operations.get(CHECKOUT).latencies.count() - this.operations.get(CHECKOUT).failed();
+        System.out.printf("tills=%d seconds=%.1f requests=%d errors=%d (%.2f%%) throughput=%.1f req/s checkouts=%.1f/s%n",
+                tills, seconds, total, failed, total == 0 ? 0 : 100.0 * failed / total, total / seconds, checkouts / seconds);
+        System.out.printf("%-14s %9s %9s %8s %7s %7s %7s %7s%n", "call", "requests", "errors", "req/s",
+                "p50 ms", "p95 ms", "p99 ms", "max ms");
+        this.operations.forEach((name, operation) -> System.out.printf("%-14s %9d %9d %8.1f %7d %7d %7d %7d%n", name,
+                operation.latencies.count(), operation.failed(), operation.latencies.count() / seconds,
+                operation.latencies.percentile(0.50), operation.latencies.percentile(0.95),
+                operation.latencies.percentile(0.99), operation.latencies.percentile(1.0)));
+        this.operations.forEach((name, operation) -> operation.errorSamples.forEach((kind, sample) -> System.out
+                .printf("error %s %s (%d): %s%n", name, kind, operation.errors.get(kind).get(), sample)));
+    }
+
+    private static class Operation {
+
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+        private final Map<String, String> errorSamples = new ConcurrentHashMap<>();
+
+        void error(String kind, String sample) {
+            this.errors.computeIfAbsent(kind, key -> new AtomicLong()).incrementAndGet();
+            this.errorSamples.putIfAbsent(kind, String.valueOf(sample));
+        }
+
+        long failed() {
+            return this.errors.values().stream().mapToLong(AtomicLong::get).sum();
+        }
+    }
+
+}
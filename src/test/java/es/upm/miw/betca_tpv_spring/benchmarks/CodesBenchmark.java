@@ -0,0 +1,42 @@
+package es.upm.miw.betca_tpv_spring.benchmarks;
+
+import es.upm.miw.betca_tpv_spring.business_services.Barcode;
+import es.upm.miw.betca_tpv_spring.documents.Encode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Codes generated per new article (EAN-13) and per new ticket, budget or voucher (URL-safe UUID reference).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodesBenchmark {
+
+    private Barcode barcode = new Barcode();
+    private Encode encode = new Encode();
+    private long code = 840000000001L;
+
+    @Benchmark
+    public String generateEan13code() {
+        return this.barcode.generateEan13code(this.code);
+    }
+
+    @Benchmark
+    public String generateUUIDUrlSafe() {
+        return this.encode.generateUUIDUrlSafe();
+    }
+
+}
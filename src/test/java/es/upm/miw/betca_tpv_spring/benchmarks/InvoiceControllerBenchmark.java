@@ -0,0 +1,64 @@
+package es.upm.miw.betca_tpv_spring.benchmarks;
+
+import es.upm.miw.betca_tpv_spring.business_controllers.InvoiceController;
+import es.upm.miw.betca_tpv_spring.data_services.VatRollupService;
+import es.upm.miw.betca_tpv_spring.documents.Invoice;
+import es.upm.miw.betca_tpv_spring.documents.Shopping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base, tax and VAT lines of a new invoice from its ticket lines, whose taxes are already snapshotted, as the
+ * tickets of the last years are: no article is read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoiceControllerBenchmark {
+
+    @Param({"3", "20"})
+    private int lines;
+
+    private InvoiceController invoiceController;
+    private Method calculateBaseAndTax;
+    private Shopping[] shoppingList;
+
+    @Setup
+    public void setup() {
+        this.invoiceController = new InvoiceController(null, null, null, null, null,
+                new VatRollupService(null, null), null, null);
+        this.calculateBaseAndTax = ReflectionUtils.findMethod(InvoiceController.class, "calculateBaseAndTax",
+                Invoice.class, Shopping[].class);
+        ReflectionUtils.makeAccessible(this.calculateBaseAndTax);
+        this.shoppingList = BenchmarkTickets.shoppingList(this.lines);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Invoice calculateBaseAndTax() {
+        Invoice invoice = new Invoice();
+        invoice.setTax(BigDecimal.ZERO);
+        invoice.setBaseTax(BigDecimal.ZERO);
+        return ((Mono<Invoice>) ReflectionUtils.invokeMethod(this.calculateBaseAndTax, this.invoiceController,
+                invoice, this.shoppingList)).block();
+    }
+
+}
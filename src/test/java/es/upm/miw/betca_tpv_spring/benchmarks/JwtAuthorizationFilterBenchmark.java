@@ -0,0 +1,64 @@
+package es.upm.miw.betca_tpv_spring.benchmarks;
+
+import es.upm.miw.betca_tpv_spring.JwtAuthorizationFilter;
+import es.upm.miw.betca_tpv_spring.business_services.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authorization of one request with a bearer token: cacheSize 0 verifies the signature on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthorizationFilterBenchmark {
+
+    @Param({"0", "10000"})
+    private int cacheSize;
+
+    private JwtAuthorizationFilter filter;
+    private String authorization;
+    private MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setup() {
+        JwtService jwtService = new JwtService(this.cacheSize);
+        this.filter = new JwtAuthorizationFilter(authentication -> authentication);
+        ReflectionTestUtils.setField(this.filter, "jwtService", jwtService);
+        this.authorization = "Bearer " + jwtService.createToken("666666000", "all-roles",
+                new String[]{"ADMIN", "MANAGER", "OPERATOR", "CUSTOMER"});
+    }
+
+    @Benchmark
+    public void doFilter(Blackhole blackhole) throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v0/articles");
+        request.addHeader("Authorization", this.authorization);
+        FilterChain chain = (filteredRequest, filteredResponse) ->
+                blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        this.filter.doFilter(request, this.response, chain);
+        SecurityContextHolder.clearContext();
+    }
+
+}
@@ -0,0 +1,53 @@
+package es.upm.miw.betca_tpv_spring.benchmarks;
+
+import es.upm.miw.betca_tpv_spring.business_services.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token creation at login and claims of a bearer token per request: cacheSize 0 verifies the signature each time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String[] ROLES = {"ADMIN", "MANAGER", "OPERATOR", "CUSTOMER"};
+
+    @Param({"0", "10000"})
+    private int cacheSize;
+
+    private JwtService jwtService;
+    private String authorization;
+
+    @Setup
+    public void setup() {
+        this.jwtService = new JwtService(this.cacheSize);
+        this.authorization = "Bearer " + this.jwtService.createToken("666666000", "all-roles", ROLES);
+    }
+
+    @Benchmark
+    public String createToken() {
+        return this.jwtService.createToken("666666000", "all-roles", ROLES);
+    }
+
+    @Benchmark
+    public JwtService.Claims verify() {
+        return this.jwtService.claims(this.authorization);
+    }
+
+}
@@ -0,0 +1,38 @@
+package es.upm.miw.betca_tpv_spring.benchmarks;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latencies in 1 ms buckets up to 10 s, recorded lock-free by the client threads.
+ */
+class LatencyHistogram {
+
+    private static final int MAX_MILLIS = 10000;
+
+    private final AtomicLongArray latencies = new AtomicLongArray(MAX_MILLIS + 1);
+    private final AtomicLong count = new AtomicLong();
+
+    void record(long startNanos) {
+        long millis = (System.nanoTime() - startNanos) / 1000000;
+        this.latencies.incrementAndGet((int) Math.min(millis, MAX_MILLIS));
+        this.count.incrementAndGet();
+    }
+
+    long count() {
+        return this.count.get();
+    }
+
+    int percentile(double percentile) {
+        long target = (long) Math.ceil(this.count.get() * percentile);
+        long accumulated = 0;
+        for (int millis = 0; millis <= MAX_MILLIS; millis++) {
+            accumulated += this.latencies.get(millis);
+            if (accumulated >= target && accumulated > 0) {
+                return millis;
+            }
+        }
+        return MAX_MILLIS;
+    }
+
+}
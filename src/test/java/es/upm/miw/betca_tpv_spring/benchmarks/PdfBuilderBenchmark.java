@@ -0,0 +1,73 @@
+package es.upm.miw.betca_tpv_spring.benchmarks;
+
+import es.upm.miw.betca_tpv_spring.business_services.PdfBuilder;
+import es.upm.miw.betca_tpv_spring.business_services.PdfTableBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticket of 20 lines written to a file versus built in a pooled buffer. Head template added to a document, parsed
+ * each time (a copy of the bytes) versus kept parsed per thread. The bytes allocated per operation are reported
+ * with the GC profiler: -Djmh.includes="PdfBuilderBenchmark -prof gc".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PdfBuilderBenchmark {
+
+    private static final String PATH = "/tpv-pdfs/test/benchmark";
+
+    private byte[] template;
+
+    @Setup
+    public void buildTemplate() {
+        PdfBuilder pdf = PdfBuilder.template();
+        pdf.image("logo-upm.png").paragraphEmphasized("Company").paragraphEmphasized("Tfn: 123456789")
+                .paragraph("NIF: 12345678Z   -   Street 1").paragraph("Email: company@example.com").line();
+        this.template = pdf.buildTemplate();
+    }
+
+    @Benchmark
+    public byte[] file() {
+        return this.ticket(new PdfBuilder(PATH));
+    }
+
+    @Benchmark
+    public byte[] inMemory() {
+        return this.ticket(PdfBuilder.inMemory(PATH));
+    }
+
+    @Benchmark
+    public byte[] templateParsed() {
+        return PdfBuilder.inMemory(PATH).template(this.template.clone()).build();
+    }
+
+    @Benchmark
+    public byte[] templateKept() {
+        return PdfBuilder.inMemory(PATH).template(this.template).build();
+    }
+
+    private byte[] ticket(PdfBuilder pdf) {
+        pdf.paragraphEmphasized("TICKET").barCode("201901121").line();
+        PdfTableBuilder table = pdf.table(15, 90, 15, 25, 35, 15).tableColumnsHeader(" ", "Desc.", "Ud.", "Dto.%", "€", "E.");
+        for (int i = 0; i < 20; i++) {
+            table.tableCell(String.valueOf(i + 1), "Zarzuela - Falda T2", "1", "", "20.00€", "");
+        }
+        table.tableColspanRight("400.00€").build();
+        return pdf.build();
+    }
+
+}
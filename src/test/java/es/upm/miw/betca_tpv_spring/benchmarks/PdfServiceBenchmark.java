@@ -0,0 +1,65 @@
+package es.upm.miw.betca_tpv_spring.benchmarks;
+
+import es.upm.miw.betca_tpv_spring.business_services.FileService;
+import es.upm.miw.betca_tpv_spring.business_services.PdfRenderer;
+import es.upm.miw.betca_tpv_spring.business_services.PdfService;
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticket PDF of 20 lines rendered in memory, as at checkout, without the archive copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PdfServiceBenchmark {
+
+    private PdfRenderer pdfRenderer;
+    private PdfService pdfService;
+    private Ticket ticket;
+
+    @Setup
+    public void setup() {
+        this.pdfRenderer = new PdfRenderer(1, 1, 1, 1);
+        this.pdfService = new PdfService(new FileService(), this.pdfRenderer);
+        ReflectionTestUtils.setField(this.pdfService, "inMemory", true);
+        ReflectionTestUtils.setField(this.pdfService, "archive", false);
+        ReflectionTestUtils.setField(this.pdfService, "logo", "logo-upm.png");
+        ReflectionTestUtils.setField(this.pdfService, "name", "Master en Ingenieria Web. BETCA");
+        ReflectionTestUtils.setField(this.pdfService, "nif", "Q2818015F");
+        ReflectionTestUtils.setField(this.pdfService, "phone", "+34 913366000");
+        ReflectionTestUtils.setField(this.pdfService, "address", "Calle Alan Turing s/n, 28031 Madrid");
+        ReflectionTestUtils.setField(this.pdfService, "email", "miw.etsisi@upm.es");
+        ReflectionTestUtils.setField(this.pdfService, "web", "miw.etsisi.upm.es");
+        this.pdfService.buildHeadTemplate();
+        this.ticket = BenchmarkTickets.ticket(20);
+    }
+
+    @Benchmark
+    public byte[] generateTicket() {
+        return this.pdfService.generateTicket(Mono.just(this.ticket)).block();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.pdfRenderer.shutdown();
+    }
+
+}
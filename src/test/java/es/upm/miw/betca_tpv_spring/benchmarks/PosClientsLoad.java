@@ -0,0 +1,120 @@
+package es.upm.miw.betca_tpv_spring.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.upm.miw.betca_tpv_spring.dtos.TokenOutputDto;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load of N concurrent POS clients, each one with its own keep-alive connection, scanning an article (or reading
+ * the given path) in a loop. Run it against the servlet (dev) and the reactive (dev,reactive) runtimes to compare
+ * them; with the server pid (same host, "-" for none) the server threads are sampled too:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dstart-class=es.upm.miw.betca_tpv_spring.benchmarks.PosClientsLoad
+ * -Dexec.args="http://localhost:8080/api/v0 2000 60 [pid|-] [path]"
+ */
+public class PosClientsLoad {
+
+    private static final String SCAN = "/articles/8400000000017";
+
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    private final Map<String, String> errorSamples = new ConcurrentHashMap<>();
+    private final AtomicInteger maxServerThreads = new AtomicInteger();
+
+    public static void main(String[] args) throws IOException {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080/api/v0";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        String pid = args.length > 3 && !"-".equals(args[3]) ? args[3] : null;
+        String path = args.length > 4 ? args[4] : SCAN;
+        new PosClientsLoad().run(baseUrl, clients, seconds, pid, path);
+    }
+
+    private void run(String baseUrl, int clients, int seconds, String pid, String path) throws IOException {
+        HttpClient httpClient = HttpClient.create(ConnectionProvider.fixed("pos", clients, 60000)).baseUrl(baseUrl);
+        String authorization = "Bearer " + this.login(httpClient);
+        HttpClient posClient = httpClient.headers(headers -> headers.add(HttpHeaderNames.AUTHORIZATION, authorization));
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        Disposable sampler = Flux.interval(Duration.ofSeconds(1)).subscribe(tick -> this.sampleServerThreads(pid));
+        long start = System.nanoTime();
+        Flux.range(0, clients)
+                .flatMap(client -> Mono.defer(() -> this.request(posClient, path))
+                        .repeat(() -> System.nanoTime() < deadline), clients)
+                .blockLast();
+        sampler.dispose();
+        this.report(clients, (System.nanoTime() - start) / 1e9);
+    }
+
+    private String login(HttpClient httpClient) throws IOException {
+        String basic = "Basic " + Base64.getEncoder().encodeToString("6:6".getBytes(StandardCharsets.UTF_8));
+        byte[] token = httpClient.headers(headers -> headers.add(HttpHeaderNames.AUTHORIZATION, basic))
+                .post().uri("/users/token")
+                .responseSingle((response, body) -> body.asByteArray())
+                .block();
+        return new ObjectMapper().readValue(token, TokenOutputDto.class).getToken();
+    }
+
+    private Mono<String> request(HttpClient posClient, String path) {
+        long start = System.nanoTime();
+        return posClient.get().uri(path)
+                .responseSingle((response, body) -> body.asString().defaultIfEmpty("")
+                        .doOnNext(text -> {
+                            if (response.status().code() != 200) {
+                                this.error("HTTP " + response.status().code(), text);
+                            }
+                            this.latencies.record(start);
+                        }))
+                .onErrorResume(exception -> {
+                    this.error(exception.getClass().getSimpleName(), exception.getMessage());
+                    this.latencies.record(start);
+                    return Mono.empty();
+                });
+    }
+
+    private void error(String kind, String sample) {
+        this.errors.computeIfAbsent(kind, key -> new AtomicLong()).incrementAndGet();
+        this.errorSamples.putIfAbsent(kind, String.valueOf(sample));
+    }
+
+    private void sampleServerThreads(String pid) {
+        if (pid == null) {
+            return;
+        }
+        try {
+            Files.readAllLines(Paths.get("/proc", pid, "status")).stream()
+                    .filter(line -> line.startsWith("Threads:"))
+                    .mapToInt(line -> Integer.parseInt(line.substring("Threads:".length()).trim()))
+                    .forEach(threads -> this.maxServerThreads.accumulateAndGet(threads, Math::max));
+        } catch (IOException exception) {
+            System.err.println("Server threads not available: " + exception.getMessage());
+        }
+    }
+
+    private void report(int clients, double seconds) {
+        long total = this.latencies.count();
+        long failed = this.errors.values().stream().mapToLong(AtomicLong::get).sum();
+        System.out.printf("clients=%d requests=%d errors=%d (%.2f%%) %s throughput=%.1f req/s%n", clients, total,
+                failed, total == 0 ? 0 : 100.0 * failed / total, this.errors, total / seconds);
+        System.out.printf("latency ms p50=%d p95=%d p99=%d max=%d%n", this.latencies.percentile(0.50),
+                this.latencies.percentile(0.95), this.latencies.percentile(0.99), this.latencies.percentile(1.0));
+        this.errorSamples.forEach((kind, sample) -> System.out.printf("error %s: %s%n", kind, sample));
+        System.out.printf("server threads (max)=%s%n", this.maxServerThreads.get() == 0 ? "-" : this.maxServerThreads.get());
+    }
+
+}
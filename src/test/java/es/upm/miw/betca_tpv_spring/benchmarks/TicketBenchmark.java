@@ -0,0 +1,58 @@
+package es.upm.miw.betca_tpv_spring.benchmarks;
+
+import es.upm.miw.betca_tpv_spring.documents.Shopping;
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticket totals, computed on every read of a ticket, and the line total they add up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketBenchmark {
+
+    @Param({"3", "20"})
+    private int lines;
+
+    private Ticket ticket;
+    private Shopping shopping;
+
+    @Setup
+    public void setup() {
+        this.ticket = BenchmarkTickets.ticket(this.lines);
+        this.shopping = this.ticket.getShoppingList()[this.lines - 1];
+    }
+
+    @Benchmark
+    public BigDecimal getTotal() {
+        return this.ticket.getTotal();
+    }
+
+    @Benchmark
+    public BigDecimal getTotalCommitted() {
+        return this.ticket.getTotalCommitted();
+    }
+
+    @Benchmark
+    public BigDecimal getShoppingTotal() {
+        return this.shopping.getShoppingTotal();
+    }
+
+}
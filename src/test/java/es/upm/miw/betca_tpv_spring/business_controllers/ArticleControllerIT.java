@@ -97,13 +97,15 @@ class ArticleControllerIT {
 
     @Test
     void testUpdateArticle() {
+        String provider0 = this.providerRepository.findAll().get(0).getId();
+        String provider1 = this.providerRepository.findAll().get(1).getId();
         ArticleDto articleDto = new ArticleDto("8400000000017", "articulo editado", "referencia editada", BigDecimal.valueOf(34.5), 15);
-        articleDto.setProvider(this.providerRepository.findAll().get(1));
+        articleDto.setProvider(provider1);
         articleDto.setTax(Tax.FREE);
         articleDto.setDiscontinued(false);
 
         ArticleDto articleDto2 = new ArticleDto("8400000000017", "Zarzuela - Falda T2", "Zz Falda T2", BigDecimal.valueOf(20), 10);
-        articleDto2.setProvider(this.providerRepository.findAll().get(0));
+        articleDto2.setProvider(provider0);
         articleDto2.setTax(Tax.GENERAL);
         articleDto2.setDiscontinued(false);
         StepVerifier
@@ -116,7 +118,7 @@ class ArticleControllerIT {
                 .create(this.articleController.readArticle("8400000000017"))
                 .expectNextMatches(articleDto1 -> {
                             assertTrue("articulo editado".equals(articleDto1.getDescription()));
-                            assertTrue(this.providerRepository.findAll().get(1).getId().equals(articleDto1.getProvider()));
+                            assertTrue(provider1.equals(articleDto1.getProvider()));
                             return true;
                         }
                 )
@@ -127,7 +129,7 @@ class ArticleControllerIT {
                 .create(this.articleController.updateArticle("8400000000017", articleDto2))
                 .expectNextMatches(articleDto1 -> {
                             assertTrue("Zarzuela - Falda T2".equals(articleDto1.getDescription()));
-                            assertTrue(this.providerRepository.findAll().get(0).getId().equals(articleDto1.getProvider()));
+                            assertTrue(provider0.equals(articleDto1.getProvider()));
                             return true;
                         }
                 )
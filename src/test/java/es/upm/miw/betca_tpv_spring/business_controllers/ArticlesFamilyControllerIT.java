@@ -47,11 +47,11 @@ class ArticlesFamilyControllerIT {
 
     @Test
     void testReadFamilyCompositeArticlesList() {
-        assertNotNull(articlesFamilyController.readFamilyCompositeArticlesList("root"));
-        assertEquals("varios", articlesFamilyController.readFamilyCompositeArticlesList("root").get(1).getDescription());
-        assertEquals(FamilyType.values()[1], articlesFamilyController.readFamilyCompositeArticlesList("root").get(0).getFamilyType());
-        assertNotEquals("algo", articlesFamilyController.readFamilyCompositeArticlesList("varios").get(1).getDescription());
-        assertEquals(FamilyType.values()[0], articlesFamilyController.readFamilyCompositeArticlesList("varios").get(0).getFamilyType());
+        assertNotNull(articlesFamilyController.readFamilyCompositeArticlesList("root").block());
+        assertEquals("varios", articlesFamilyController.readFamilyCompositeArticlesList("root").block().get(1).getDescription());
+        assertEquals(FamilyType.values()[1], articlesFamilyController.readFamilyCompositeArticlesList("root").block().get(0).getFamilyType());
+        assertNotEquals("algo", articlesFamilyController.readFamilyCompositeArticlesList("varios").block().get(1).getDescription());
+        assertEquals(FamilyType.values()[0], articlesFamilyController.readFamilyCompositeArticlesList("varios").block().get(0).getFamilyType());
     }
 
     @Test
@@ -4,7 +4,9 @@ import es.upm.miw.betca_tpv_spring.TestConfig;
 import es.upm.miw.betca_tpv_spring.data_services.DatabaseSeederService;
 import es.upm.miw.betca_tpv_spring.documents.*;
 import es.upm.miw.betca_tpv_spring.dtos.InvoiceNegativeCreationInputDto;
+import es.upm.miw.betca_tpv_spring.dtos.QuarterVATDto;
 import es.upm.miw.betca_tpv_spring.dtos.ShoppingDto;
+import es.upm.miw.betca_tpv_spring.dtos.TaxDto;
 import es.upm.miw.betca_tpv_spring.repositories.InvoiceReactRepository;
 import es.upm.miw.betca_tpv_spring.repositories.TicketRepository;
 import org.junit.jupiter.api.AfterEach;
@@ -14,6 +16,7 @@ import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -290,4 +293,33 @@ public class InvoiceControllerIT {
                 .verify();
     }
 
+    @Test
+    void testVatRollupIncrementedAndRebuilt() {
+        int year = LocalDate.now().getYear();
+        Quarter quarter = Quarter.fromDate(LocalDateTime.now());
+        StepVerifier
+                .create(this.invoiceController.createAndPdf())
+                .expectNextCount(1)
+                .expectComplete()
+                .verify();
+        QuarterVATDto incremented = this.invoiceController.readQuarterlyVat(year, quarter).block();
+        assertEquals(year, incremented.getYear());
+        assertTrue(this.totalVat(incremented).signum() > 0);
+        StepVerifier
+                .create(this.invoiceController.rebuildVatRollups())
+                .expectComplete()
+                .verify();
+        QuarterVATDto rebuilt = this.invoiceController.readQuarterlyVat(year, quarter).block();
+        assertTrue(this.totalVat(rebuilt).compareTo(this.totalVat(incremented)) >= 0);
+        StepVerifier
+                .create(this.invoiceController.readQuarterlyVat(year - 1, quarter))
+                .expectNextMatches(quarterVATDto -> this.totalVat(quarterVATDto).signum() == 0)
+                .expectComplete()
+                .verify();
+    }
+
+    private BigDecimal totalVat(QuarterVATDto quarterVATDto) {
+        return quarterVATDto.getTaxes().stream().map(TaxDto::getVat).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
 }
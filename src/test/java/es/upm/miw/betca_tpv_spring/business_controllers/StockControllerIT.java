@@ -1,6 +1,8 @@
 package es.upm.miw.betca_tpv_spring.business_controllers;
 
 import es.upm.miw.betca_tpv_spring.TestConfig;
+import es.upm.miw.betca_tpv_spring.dtos.ArticleStockDto;
+import es.upm.miw.betca_tpv_spring.dtos.ShoppingDto;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import reactor.test.StepVerifier;
@@ -8,7 +10,14 @@ import reactor.test.StepVerifier;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 @TestConfig
@@ -136,4 +145,53 @@ class StockControllerIT {
                 .thenCancel()
                 .verify();
     }
+
+    @Test
+    void testReadAllParityWithShoppingLines() {
+        this.assertParity(null, null, null);
+        this.assertParity(5, null, null);
+        this.assertParity(null, LocalDateTime.now().minusMonths(1), LocalDateTime.now());
+        this.assertParity(5, LocalDateTime.now().minusMonths(1), null);
+        this.assertParity(null, null, LocalDateTime.now().minusMonths(1));
+    }
+
+    private void assertParity(Integer minimumStock, LocalDateTime initDate, LocalDateTime endDate) {
+        Map<String, Integer> soldUnits = this.stockController.getShopping(initDate, endDate)
+                .collect(Collectors.groupingBy(ShoppingDto::getCode, Collectors.summingInt(ShoppingDto::getAmount)))
+                .block();
+        boolean filterDate = initDate != null || endDate != null;
+        Map<String, String> expected = this.stockController.getArticleInfo(minimumStock)
+                .filter(article -> article.getStock() != null)
+                .map(article -> {
+                    article.setSoldUnits(soldUnits.getOrDefault(article.getCode(), 0));
+                    return article;
+                })
+                .filter(article -> !filterDate || article.getSoldUnits() > 0)
+                .collectMap(ArticleStockDto::getCode, ArticleStockDto::toString)
+                .block();
+        Map<String, String> actual = this.stockController.readAll(minimumStock, initDate, endDate)
+                .collectMap(ArticleStockDto::getCode, ArticleStockDto::toString)
+                .block();
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testReadAllKeysetPages() {
+        List<String> all = this.stockController.readAll(null, null, null)
+                .map(ArticleStockDto::getCode)
+                .collectList().block();
+        List<String> paged = new ArrayList<>();
+        String afterCode = null;
+        List<String> page;
+        do {
+            page = this.stockController.readAll(null, null, null, afterCode, 3)
+                    .map(ArticleStockDto::getCode)
+                    .collectList().block();
+            assertTrue(page.size() <= 3);
+            paged.addAll(page);
+            afterCode = page.isEmpty() ? afterCode : page.get(page.size() - 1);
+        } while (page.size() == 3);
+        assertEquals(all.stream().sorted().collect(Collectors.toList()), all);
+        assertEquals(all, paged);
+    }
 }
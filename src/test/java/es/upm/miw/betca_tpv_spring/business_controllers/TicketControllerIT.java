@@ -1,20 +1,34 @@
 package es.upm.miw.betca_tpv_spring.business_controllers;
 
 import es.upm.miw.betca_tpv_spring.TestConfig;
+import es.upm.miw.betca_tpv_spring.business_services.PdfRenderer;
+import es.upm.miw.betca_tpv_spring.business_services.PdfService;
 import es.upm.miw.betca_tpv_spring.data_services.DatabaseSeederService;
+import es.upm.miw.betca_tpv_spring.documents.Article;
+import es.upm.miw.betca_tpv_spring.documents.Tag;
 import es.upm.miw.betca_tpv_spring.documents.ShoppingState;
 import es.upm.miw.betca_tpv_spring.dtos.*;
+import es.upm.miw.betca_tpv_spring.exceptions.BadRequestException;
+import es.upm.miw.betca_tpv_spring.exceptions.ConflictException;
+import es.upm.miw.betca_tpv_spring.exceptions.ServiceUnavailableException;
 import es.upm.miw.betca_tpv_spring.repositories.ArticleRepository;
+import es.upm.miw.betca_tpv_spring.repositories.CustomerPointsRepository;
 import es.upm.miw.betca_tpv_spring.repositories.OrderRepository;
 import es.upm.miw.betca_tpv_spring.repositories.TicketRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -33,12 +47,27 @@ public class TicketControllerIT {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private CustomerPointsRepository customerPointsRepository;
+
     @Autowired
     private CashierClosureController cashierClosureController;
 
     @Autowired
     private DatabaseSeederService databaseSeederService;
 
+    @Autowired
+    private PdfService pdfService;
+
+    @Autowired
+    private PdfRenderer pdfRenderer;
+
+    @Value("${miw.pdf.render.threads}")
+    private int pdfRenderThreads;
+
+    @Value("${miw.pdf.render.queue}")
+    private int pdfRenderQueue;
+
     @AfterEach
     void initialize() {
         databaseSeederService.deleteAllAndInitializeAndSeedDataBase();
@@ -71,6 +100,97 @@ public class TicketControllerIT {
                 .create(this.cashierClosureController.close(new CashierClosureInputDto())).expectComplete().verify();
     }
 
+    @Test
+    void testCreateTicketWhenPdfQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(this.pdfRenderThreads);
+        for (int i = 0; i < this.pdfRenderThreads; i++) {
+            this.pdfRenderer.render(Mono.just("busy"), document -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return document.getBytes();
+            }).subscribe();
+        }
+        started.await();
+        Tag tag = new Tag("tag", new Article[0]);
+        for (int i = 0; i < this.pdfRenderQueue; i++) {
+            this.pdfService.generateTag(Mono.just(tag)).subscribe();
+        }
+        StepVerifier
+                .create(this.pdfService.generateTag(Mono.just(tag)))
+                .expectError(ServiceUnavailableException.class)
+                .verify();
+        StepVerifier
+                .create(this.cashierClosureController.createCashierClosureOpened()).expectComplete().verify();
+        TicketCreationInputDto ticketCreationInputDto = new TicketCreationInputDto(null, BigDecimal.TEN,
+                BigDecimal.ZERO, BigDecimal.ZERO, Collections.singletonList(new ShoppingDto("1", "prueba",
+                BigDecimal.TEN, 1, BigDecimal.ZERO, BigDecimal.TEN, true)), "Nota del ticket...");
+        StepVerifier
+                .create(this.ticketController.createTicketAndPdf(ticketCreationInputDto))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify();
+        release.countDown();
+        StepVerifier
+                .create(this.cashierClosureController.close(new CashierClosureInputDto())).expectComplete().verify();
+    }
+
+    @Test
+    void testCreateTicketInvalidCartRejectedBeforeAnyWrite() {
+        Article article = this.articleRepository.findById("1").get();
+        article.setDiscontinued(true);
+        this.articleRepository.save(article);
+        int stock = this.articleRepository.findById("8400000000017").get().getStock();
+        long tickets = this.ticketRepository.count();
+        TicketCreationInputDto ticketCreationInputDto = new TicketCreationInputDto(null, BigDecimal.TEN,
+                BigDecimal.ZERO, BigDecimal.ZERO, Arrays.asList(
+                new ShoppingDto("8400000000017", null, null, 1, BigDecimal.ZERO, null, true),
+                new ShoppingDto("1", "prueba", BigDecimal.TEN, 1, BigDecimal.ZERO, BigDecimal.TEN, true),
+                new ShoppingDto("unknown", "prueba", BigDecimal.TEN, 1, BigDecimal.ZERO, BigDecimal.TEN, true)),
+                "Nota del ticket...");
+        StepVerifier
+                .create(this.ticketController.createTicket(ticketCreationInputDto))
+                .expectErrorMatches(error -> error instanceof BadRequestException
+                        && error.getMessage().contains("(1) discontinued")
+                        && error.getMessage().contains("(unknown) not found"))
+                .verify();
+        assertEquals(new Integer(stock), this.articleRepository.findById("8400000000017").get().getStock());
+        assertEquals(tickets, this.ticketRepository.count());
+    }
+
+    @Test
+    void testCreateTicketStockShortKeepsCustomerPoints() {
+        Object target = AopTestUtils.getUltimateTargetObject(this.ticketController);
+        ReflectionTestUtils.setField(target, "negativeStockRejected", true);
+        int points = this.customerPointsRepository.findById("cp1").get().getPoints();
+        int stock = this.articleRepository.findById("1").get().getStock();
+        long tickets = this.ticketRepository.count();
+        StepVerifier
+                .create(this.cashierClosureController.createCashierClosureOpened()).expectComplete().verify();
+        TicketCreationInputDto ticketCreationInputDto = new TicketCreationInputDto("666666000", BigDecimal.TEN,
+                BigDecimal.ZERO, BigDecimal.ZERO, Arrays.asList(
+                new ShoppingDto("1", "prueba", BigDecimal.TEN, 1, BigDecimal.ZERO, BigDecimal.TEN, true),
+                new ShoppingDto("8400000000024", "prueba", BigDecimal.TEN, 6, BigDecimal.ZERO, BigDecimal.TEN, false)),
+                "Nota del ticket...");
+        try {
+            StepVerifier
+                    .create(this.ticketController.createTicket(ticketCreationInputDto))
+                    .expectError(ConflictException.class)
+                    .verify();
+        } finally {
+            ReflectionTestUtils.setField(target, "negativeStockRejected", false);
+        }
+        assertEquals(points, this.customerPointsRepository.findById("cp1").get().getPoints());
+        assertEquals(new Integer(stock), this.articleRepository.findById("1").get().getStock());
+        assertEquals(tickets, this.ticketRepository.count());
+        StepVerifier
+                .create(this.cashierClosureController.close(new CashierClosureInputDto())).expectComplete().verify();
+    }
+
     @Test
     void testSearchOnlyByMobile() {
         String mobile = "666666004";
@@ -5,6 +5,10 @@ import es.upm.miw.betca_tpv_spring.exceptions.JwtException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @TestConfig
@@ -23,4 +27,21 @@ class JwtServiceIT {
         assertThrows(JwtException.class, () -> this.jwtService.user("Bearer error.error.error"));
     }
 
+    @Test
+    void testClaimsVerifiedOnce() {
+        String authorization = "Bearer " + this.jwtService.createToken("666666000", "all-roles", new String[]{"ADMIN", "MANAGER"});
+        JwtService.Claims claims = this.jwtService.claims(authorization);
+        assertEquals("666666000", claims.getUser());
+        assertEquals(Arrays.asList("ADMIN", "MANAGER"), claims.getRoles());
+        assertSame(claims, this.jwtService.claims(authorization));
+        assertEquals("666666000", this.jwtService.user(authorization));
+    }
+
+    @Test
+    void testJwtExceptionTamperedToken() {
+        String token = this.jwtService.createToken("666666000", "all-roles", new String[]{"ADMIN"});
+        this.jwtService.claims("Bearer " + token);
+        assertThrows(JwtException.class, () -> this.jwtService.claims("Bearer " + token.substring(0, token.length() - 2) + "xx"));
+    }
+
 }
@@ -4,7 +4,7 @@ import es.upm.miw.betca_tpv_spring.TestConfig;
 import es.upm.miw.betca_tpv_spring.exceptions.PdfException;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 
 @TestConfig
 class PdfBuilderIT {
@@ -13,4 +13,31 @@ class PdfBuilderIT {
     void testPdfBuilder() {
         assertThrows(PdfException.class, () -> new PdfBuilder("&-InvalidName"));
     }
+
+    @Test
+    void testPdfBuilderInMemory() {
+        PdfBuilder pdf = PdfBuilder.inMemory("/tpv-pdfs/test/in-memory");
+        assertTrue(pdf.isInMemory());
+        byte[] bytes = this.ticket(pdf);
+        assertTrue(new String(bytes, 0, 4).startsWith("%PDF"));
+        assertTrue(new String(this.ticket(PdfBuilder.inMemory("/tpv-pdfs/test/in-memory"))).startsWith("%PDF"));
+    }
+
+    @Test
+    void testPdfBuilderTemplate() {
+        byte[] template = PdfBuilder.template().image("logo-upm.png").paragraphEmphasized("Head").line().buildTemplate();
+        assertTrue(new String(template, 0, 4).startsWith("%PDF"));
+        byte[] bytes = this.ticket(PdfBuilder.inMemory("/tpv-pdfs/test/template").template(template));
+        assertTrue(bytes.length > template.length);
+    }
+
+    private byte[] ticket(PdfBuilder pdf) {
+        pdf.paragraphEmphasized("TICKET").barCode("201901121").line();
+        PdfTableBuilder table = pdf.table(15, 90, 15, 25, 35, 15).tableColumnsHeader(" ", "Desc.", "Ud.", "Dto.%", "€", "E.");
+        for (int i = 0; i < 20; i++) {
+            table.tableCell(String.valueOf(i + 1), "Zarzuela - Falda T2", "1", "", "20.00€", "");
+        }
+        table.tableColspanRight("400.00€").build();
+        return pdf.build();
+    }
 }
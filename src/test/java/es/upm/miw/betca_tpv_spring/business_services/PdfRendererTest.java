@@ -0,0 +1,109 @@
+package es.upm.miw.betca_tpv_spring.business_services;
+
+import es.upm.miw.betca_tpv_spring.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PdfRendererTest {
+
+    @Test
+    void testRender() {
+        PdfRenderer pdfRenderer = new PdfRenderer(1, 1, 1, 1);
+        StepVerifier
+                .create(pdfRenderer.render(Mono.just("pdf"), String::getBytes))
+                .expectNextMatches(bytes -> {
+                    assertTrue(Thread.currentThread().getName().startsWith("pdf-render-"));
+                    return "pdf".equals(new String(bytes));
+                })
+                .expectComplete()
+                .verify();
+        assertEquals(1, pdfRenderer.getRendered());
+        pdfRenderer.shutdown();
+    }
+
+    @Test
+    void testRenderRejectedWhenQueueIsFull() throws InterruptedException {
+        PdfRenderer pdfRenderer = new PdfRenderer(1, 1, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        pdfRenderer.render(Mono.just("busy"), document -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return document.getBytes();
+        }).subscribe();
+        started.await();
+        pdfRenderer.render(Mono.just("queued"), String::getBytes).subscribe();
+        assertEquals(1, pdfRenderer.getQueueDepth());
+        StepVerifier
+                .create(pdfRenderer.render(Mono.just("rejected"), String::getBytes))
+                .expectError(ServiceUnavailableException.class)
+                .verify();
+        assertEquals(1, pdfRenderer.getRejected());
+        release.countDown();
+        pdfRenderer.shutdown();
+    }
+
+    @Test
+    void testRenderReservedWhenQueueIsFull() throws InterruptedException {
+        PdfRenderer pdfRenderer = new PdfRenderer(1, 1, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        pdfRenderer.render(Mono.just("busy"), document -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return document.getBytes();
+        }).subscribe();
+        started.await();
+        pdfRenderer.render(Mono.just("queued"), String::getBytes).subscribe();
+        StepVerifier
+                .create(pdfRenderer.renderReserved(Mono.just("ticket"), String::getBytes))
+                .expectNextMatches(bytes -> {
+                    assertTrue(Thread.currentThread().getName().startsWith("pdf-render-reserved-"));
+                    return "ticket".equals(new String(bytes));
+                })
+                .expectComplete()
+                .verify();
+        assertEquals(0, pdfRenderer.getRejected());
+        release.countDown();
+        pdfRenderer.shutdown();
+    }
+
+    @Test
+    void testRenderReservedRejectedWhenReservedQueueIsFull() throws InterruptedException {
+        PdfRenderer pdfRenderer = new PdfRenderer(1, 1, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        pdfRenderer.renderReserved(Mono.just("busy"), document -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return document.getBytes();
+        }).subscribe();
+        started.await();
+        pdfRenderer.renderReserved(Mono.just("queued"), String::getBytes).subscribe();
+        StepVerifier
+                .create(pdfRenderer.renderReserved(Mono.just("rejected"), String::getBytes))
+                .expectError(ServiceUnavailableException.class)
+                .verify();
+        assertEquals(1, pdfRenderer.getRejected());
+        release.countDown();
+        pdfRenderer.shutdown();
+    }
+}
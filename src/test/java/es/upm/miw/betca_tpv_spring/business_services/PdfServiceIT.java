@@ -9,6 +9,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import reactor.test.StepVerifier;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -38,6 +43,26 @@ class PdfServiceIT {
                 .verify();
     }
 
+    @Test
+    void testPdfGenerateTicketArchived() throws IOException {
+        Files.deleteIfExists(Paths.get(System.getProperty(PdfService.USER_HOME), "tpv-pdfs", "tickets", "ticket-201901121.pdf"));
+        StepVerifier
+                .create(this.pdfService.generateTicket(this.ticketReactRepository.findById("201901121"))
+                        .then(this.pdfService.readTicketPdf("201901121")
+                                .repeatWhenEmpty(50, retries -> retries.delayElements(Duration.ofMillis(100)))))
+                .expectNextMatches(bytes -> new String(bytes, 0, 4).startsWith("%PDF"))
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void testReadTicketPdfNotArchived() {
+        StepVerifier
+                .create(this.pdfService.readTicketPdf("99999999"))
+                .expectComplete()
+                .verify();
+    }
+
     @Test
     void testPdfGenerateGiftTicket() {
         StepVerifier
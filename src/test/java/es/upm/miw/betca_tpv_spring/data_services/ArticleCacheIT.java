@@ -0,0 +1,60 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.business_controllers.ArticleController;
+import es.upm.miw.betca_tpv_spring.documents.Article;
+import es.upm.miw.betca_tpv_spring.dtos.ArticleCacheStatsDto;
+import es.upm.miw.betca_tpv_spring.dtos.ArticleDto;
+import es.upm.miw.betca_tpv_spring.repositories.ArticleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = "miw.article.cache.enabled=true")
+@TestPropertySource(locations = "classpath:test.properties")
+@ActiveProfiles("dev")
+class ArticleCacheIT {
+
+    private static final String CODE = "8400000000017";
+
+    @Autowired
+    private ArticleCache articleCache;
+
+    @Autowired
+    private ArticleController articleController;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Test
+    void testHitAndInvalidateOnUpdate() {
+        this.articleCache.clear();
+        ArticleCacheStatsDto before = this.articleCache.stats();
+        Article article = this.articleRepository.findById(CODE).get();
+        StepVerifier
+                .create(this.articleCache.findById(CODE).concatWith(this.articleCache.findById(CODE)))
+                .expectNextMatches(cached -> article.getDescription().equals(cached.getDescription()))
+                .expectNextMatches(cached -> article.getDescription().equals(cached.getDescription()))
+                .expectComplete()
+                .verify();
+        assertTrue(this.articleCache.stats().getHits() > before.getHits());
+        ArticleDto articleDto = new ArticleDto(article);
+        articleDto.setDescription("cache updated");
+        try {
+            this.articleController.updateArticle(CODE, articleDto).block();
+            assertEquals("cache updated", this.articleCache.findById(CODE).block().getDescription());
+        } finally {
+            this.articleRepository.save(article);
+            this.articleCache.invalidate(CODE);
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.documents.Article;
+import es.upm.miw.betca_tpv_spring.repositories.ArticleReactRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ArticleCacheTest {
+
+    private ArticleReactRepository articleReactRepository;
+
+    @BeforeEach
+    void mockRepository() {
+        this.articleReactRepository = mock(ArticleReactRepository.class);
+        when(this.articleReactRepository.findById(anyString())).thenAnswer(invocation ->
+                Mono.just(Article.builder(invocation.getArgument(0)).description("cached").stock(5).build()));
+        when(this.articleReactRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Iterable<String> codes = invocation.getArgument(0);
+            return Flux.fromIterable(codes).map(code -> Article.builder(code).stock(5).build());
+        });
+    }
+
+    @Test
+    void testFindByIdHitWithoutStock() {
+        ArticleCache articleCache = new ArticleCache(this.articleReactRepository, true, 10, 60);
+        StepVerifier
+                .create(articleCache.findById("1").concatWith(articleCache.findById("1")))
+                .expectNextMatches(article -> article.getStock() == null && "cached".equals(article.getDescription()))
+                .expectNextMatches(article -> article.getStock() == null && "cached".equals(article.getDescription()))
+                .expectComplete()
+                .verify();
+        verify(this.articleReactRepository, times(1)).findById("1");
+        assertEquals(1, articleCache.stats().getHits());
+        assertEquals(1, articleCache.stats().getMisses());
+    }
+
+    @Test
+    void testCachedArticleIsNotShared() {
+        ArticleCache articleCache = new ArticleCache(this.articleReactRepository, true, 10, 60);
+        articleCache.findById("1").block().setDescription("changed");
+        assertEquals("cached", articleCache.findById("1").block().getDescription());
+    }
+
+    @Test
+    void testInvalidate() {
+        ArticleCache articleCache = new ArticleCache(this.articleReactRepository, true, 10, 60);
+        articleCache.findById("1").block();
+        articleCache.invalidate("1");
+        articleCache.findById("1").block();
+        verify(this.articleReactRepository, times(2)).findById("1");
+        assertEquals(1, articleCache.stats().getInvalidations());
+    }
+
+    @Test
+    void testInvalidateDuringLoad() {
+        ArticleCache articleCache = new ArticleCache(this.articleReactRepository, true, 10, 60);
+        when(this.articleReactRepository.findById("1")).thenReturn(Mono.fromCallable(() -> {
+            articleCache.invalidate("1");
+            return Article.builder("1").description("stale").build();
+        })).thenReturn(Mono.just(Article.builder("1").description("fresh").build()));
+        assertEquals("stale", articleCache.findById("1").block().getDescription());
+        assertEquals("fresh", articleCache.findById("1").block().getDescription());
+        assertEquals("fresh", articleCache.findById("1").block().getDescription());
+        verify(this.articleReactRepository, times(2)).findById("1");
+    }
+
+    @Test
+    void testEviction() {
+        ArticleCache articleCache = new ArticleCache(this.articleReactRepository, true, 2, 60);
+        articleCache.findAllById(Arrays.asList("1", "2", "3")).blockLast();
+        assertEquals(2, articleCache.stats().getSize());
+        assertEquals(1, articleCache.stats().getEvictions());
+    }
+
+    @Test
+    void testTtl() {
+        AtomicLong nanos = new AtomicLong();
+        ArticleCache articleCache = new ArticleCache(this.articleReactRepository, true, 10, 60, nanos::get);
+        articleCache.findById("1").block();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        articleCache.findById("1").block();
+        verify(this.articleReactRepository, times(1)).findById("1");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        articleCache.findById("1").block();
+        verify(this.articleReactRepository, times(2)).findById("1");
+        assertEquals(0, articleCache.stats().getEvictions());
+    }
+
+    @Test
+    void testConcurrentHits() {
+        ArticleCache articleCache = new ArticleCache(this.articleReactRepository, true, 100, 60);
+        Flux.range(0, 50).map(String::valueOf).flatMap(articleCache::findById).blockLast();
+        Flux.range(0, 8000).parallel(8).runOn(Schedulers.parallel())
+                .flatMap(index -> articleCache.findById(String.valueOf(index % 50)))
+                .sequential().blockLast();
+        verify(this.articleReactRepository, times(50)).findById(anyString());
+        assertEquals(8000, articleCache.stats().getHits());
+        assertEquals(50, articleCache.stats().getSize());
+    }
+
+    @Test
+    void testFindAllByIdLoadsOnlyMisses() {
+        ArticleCache articleCache = new ArticleCache(this.articleReactRepository, true, 10, 60);
+        articleCache.findById("1").block();
+        StepVerifier
+                .create(articleCache.findAllById(Arrays.asList("1", "2")))
+                .expectNextCount(2)
+                .expectComplete()
+                .verify();
+        verify(this.articleReactRepository).findAllById(Collections.singleton("2"));
+    }
+
+    @Test
+    void testDisabled() {
+        ArticleCache articleCache = new ArticleCache(this.articleReactRepository, false, 10, 60);
+        articleCache.findById("1").block();
+        articleCache.findById("1").block();
+        verify(this.articleReactRepository, times(2)).findById("1");
+        assertEquals(0, articleCache.stats().getSize());
+    }
+
+}
@@ -0,0 +1,171 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.TestConfig;
+import es.upm.miw.betca_tpv_spring.business_controllers.CashierClosureController;
+import es.upm.miw.betca_tpv_spring.documents.CashierClosure;
+import es.upm.miw.betca_tpv_spring.documents.CashierSales;
+import es.upm.miw.betca_tpv_spring.documents.Shopping;
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import es.upm.miw.betca_tpv_spring.dtos.CashMovementInputDto;
+import es.upm.miw.betca_tpv_spring.exceptions.ConflictException;
+import es.upm.miw.betca_tpv_spring.repositories.CashierClosureRepository;
+import es.upm.miw.betca_tpv_spring.repositories.CashierSalesRepository;
+import es.upm.miw.betca_tpv_spring.repositories.TicketRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@TestConfig
+class CashierSalesServiceIT {
+
+    private static final int SALES = 200;
+
+    @Autowired
+    private CashierSalesService cashierSalesService;
+
+    @Autowired
+    private CashierClosureController cashierClosureController;
+
+    @Autowired
+    private CashierClosureRepository cashierClosureRepository;
+
+    @Autowired
+    private CashierSalesRepository cashierSalesRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private DatabaseSeederService databaseSeederService;
+
+    private CashierClosure cashierClosure;
+
+    @BeforeEach
+    void open() {
+        StepVerifier
+                .create(this.cashierClosureController.createCashierClosureOpened()).expectComplete().verify();
+        this.cashierClosure = this.cashierClosureRepository.findFirstByOrderByOpeningDateDesc();
+    }
+
+    @AfterEach
+    void clean() {
+        this.databaseSeederService.deleteAllAndInitializeAndSeedDataBase();
+    }
+
+    private static Ticket ticket(String card, String cash, String vouchers) {
+        return new Ticket(1, new BigDecimal(card), new BigDecimal(cash), new BigDecimal(vouchers),
+                new Shopping[0], null, "", null);
+    }
+
+    @Test
+    void testSaleConcurrentlyAndFlush() {
+        String id = this.cashierClosure.getId();
+        Flux.range(0, SALES)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> this.cashierSalesService.sale(Mono.just(ticket("1.10", "1", "0"))))
+                .sequential()
+                .blockLast();
+        StepVerifier
+                .create(this.cashierSalesService.sales(this.cashierClosure))
+                .expectNextMatches(sales -> sales.getCard() == SALES * 110 && sales.getCash() == SALES * 100)
+                .expectComplete()
+                .verify();
+        StepVerifier
+                .create(this.cashierSalesService.flush()).expectComplete().verify();
+        CashierSales flushed = this.cashierSalesRepository.findById(id).get();
+        assertEquals(SALES * 110, flushed.getCard());
+        assertEquals(SALES * 100, flushed.getCash());
+        assertEquals(0, flushed.getVouchers());
+    }
+
+    @Test
+    void testReconcileFromTicketsAfterLosingUnflushedSales() {
+        String id = this.cashierClosure.getId();
+        Ticket ticket = this.ticketRepository.save(ticket("2.50", "10", "1"));
+        StepVerifier
+                .create(this.cashierSalesService.sale(Mono.just(ticket)))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify();
+        this.cashierSalesService.reset();
+        StepVerifier
+                .create(this.cashierSalesService.sales(this.cashierClosure))
+                .expectNextMatches(sales -> sales.getCard() == 250 && sales.getCash() == 1000 && sales.getVouchers() == 100)
+                .expectComplete()
+                .verify();
+        assertEquals(250, this.cashierSalesRepository.findById(id).get().getCard());
+    }
+
+    @Test
+    void testReconcileWritesOverTheReadVersionOnly() {
+        String id = this.cashierClosure.getId();
+        this.ticketRepository.save(ticket("2.50", "10", "1"));
+        this.cashierSalesRepository.save(new CashierSales(id, 1, 1, 1));
+        this.cashierSalesService.reset();
+        StepVerifier
+                .create(this.cashierSalesService.sales(this.cashierClosure))
+                .expectNextMatches(sales -> sales.getCard() == 250 && sales.getCash() == 1000 && sales.getVouchers() == 100)
+                .expectComplete()
+                .verify();
+        CashierSales reconciled = this.cashierSalesRepository.findById(id).get();
+        assertEquals(250, reconciled.getCard());
+        assertEquals(1, reconciled.getVersion());
+        StepVerifier
+                .create(this.cashierSalesService.sale(Mono.just(ticket("1", "0", "0")))
+                        .then(this.cashierSalesService.flush()))
+                .expectComplete()
+                .verify();
+        CashierSales flushed = this.cashierSalesRepository.findById(id).get();
+        assertEquals(350, flushed.getCard());
+        assertEquals(2, flushed.getVersion());
+    }
+
+    @Test
+    void testCloseWaitsForSaleInProgressAndRejectsLaterSales() {
+        MonoProcessor<Ticket> saving = MonoProcessor.create();
+        Mono<Ticket> sale = this.cashierSalesService.sale(saving).cache();
+        sale.subscribe();
+        Mono<CashierSales> close = this.cashierSalesService.close(this.cashierClosure).cache();
+        close.subscribe();
+        saving.onNext(ticket("3", "4", "0"));
+        StepVerifier
+                .create(close)
+                .expectNextMatches(sales -> sales.getCard() == 300 && sales.getCash() == 400)
+                .expectComplete()
+                .verify();
+        StepVerifier
+                .create(this.cashierSalesService.sale(Mono.just(ticket("1", "1", "0"))))
+                .expectError(ConflictException.class)
+                .verify();
+        assertEquals(300, this.cashierSalesRepository.findById(this.cashierClosure.getId()).get().getCard());
+    }
+
+    @Test
+    void testDepositStoresFlushedSales() {
+        StepVerifier
+                .create(this.cashierSalesService.sale(Mono.just(ticket("5", "6", "0"))))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify();
+        StepVerifier
+                .create(this.cashierClosureController.deposit(new CashMovementInputDto(BigDecimal.ONE, "deposit")))
+                .expectComplete()
+                .verify();
+        CashierClosure stored = this.cashierClosureRepository.findById(this.cashierClosure.getId()).get();
+        assertEquals(0, new BigDecimal("5").compareTo(stored.getSalesCard()));
+        assertEquals(0, new BigDecimal("6").compareTo(stored.getSalesCash()));
+        assertEquals(500, this.cashierSalesRepository.findById(this.cashierClosure.getId()).get().getCard());
+    }
+
+}
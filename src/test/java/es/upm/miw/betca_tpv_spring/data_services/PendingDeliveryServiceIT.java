@@ -0,0 +1,95 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.TestConfig;
+import es.upm.miw.betca_tpv_spring.business_controllers.TicketController;
+import es.upm.miw.betca_tpv_spring.documents.PendingDelivery;
+import es.upm.miw.betca_tpv_spring.documents.ShoppingState;
+import es.upm.miw.betca_tpv_spring.dtos.ShoppingPatchDto;
+import es.upm.miw.betca_tpv_spring.dtos.TicketPatchDto;
+import es.upm.miw.betca_tpv_spring.repositories.PendingDeliveryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.test.StepVerifier;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestConfig
+class PendingDeliveryServiceIT {
+
+    private static final String TICKET = "201901121";
+    private static final String ARTICLE = "8400000000024";
+
+    @Autowired
+    private PendingDeliveryService pendingDeliveryService;
+
+    @Autowired
+    private PendingDeliveryRepository pendingDeliveryRepository;
+
+    @Autowired
+    private TicketController ticketController;
+
+    @Autowired
+    private DatabaseSeederService databaseSeederService;
+
+    @Test
+    void testFindTickets() {
+        StepVerifier
+                .create(this.pendingDeliveryService.findTickets(Collections.singletonList(ARTICLE)))
+                .expectNextMatches(ticket -> TICKET.equals(ticket.getId()) && ticket.getReference() != null)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void testFindTicketsWhileRebuilding() {
+        StepVerifier
+                .create(this.pendingDeliveryService.rebuild()
+                        .and(this.pendingDeliveryService.findTickets(Collections.singletonList(ARTICLE)).collectList()
+                                .doOnNext(tickets -> assertEquals(TICKET, tickets.get(0).getId())))
+                        .then(this.pendingDeliveryService.rebuild()))
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void testPatchedTicketSyncsAndRebuildIsIdempotent() {
+        List<PendingDelivery> seeded = this.pendingDeliveryRepository.findAll();
+        assertEquals(1, seeded.size());
+        assertEquals(3, seeded.get(0).getAmount());
+        assertEquals("666666004", seeded.get(0).getUserMobile());
+        TicketPatchDto ticketPatchDto = new TicketPatchDto();
+        ticketPatchDto.getShoppingPatchDtoList().add(new ShoppingPatchDto(ARTICLE, 2, ShoppingState.NOT_COMMITTED));
+        ticketPatchDto.getShoppingPatchDtoList().add(new ShoppingPatchDto("8400000000017", 1, ShoppingState.NOT_COMMITTED));
+        StepVerifier
+                .create(this.ticketController.updateShoppingTicket(TICKET, ticketPatchDto))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify();
+        Set<String> synced = this.lines();
+        assertEquals(2, synced.size());
+        assertTrue(synced.contains(TICKET + "/" + ARTICLE + "/2"));
+        StepVerifier.create(this.pendingDeliveryService.rebuild()).expectComplete().verify();
+        assertEquals(synced, this.lines());
+        StepVerifier.create(this.pendingDeliveryService.rebuild()).expectComplete().verify();
+        assertEquals(synced, this.lines());
+    }
+
+    private Set<String> lines() {
+        return this.pendingDeliveryRepository.findAll().stream()
+                .map(line -> line.getTicketId() + "/" + line.getArticleId() + "/" + line.getAmount())
+                .collect(Collectors.toSet());
+    }
+
+    @AfterEach
+    void clean() {
+        this.databaseSeederService.deleteAllAndInitializeAndSeedDataBase();
+    }
+
+}
@@ -0,0 +1,132 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.TestConfig;
+import es.upm.miw.betca_tpv_spring.business_controllers.TicketController;
+import es.upm.miw.betca_tpv_spring.documents.SalesDaily;
+import es.upm.miw.betca_tpv_spring.documents.Shopping;
+import es.upm.miw.betca_tpv_spring.documents.ShoppingState;
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import es.upm.miw.betca_tpv_spring.dtos.ShoppingPatchDto;
+import es.upm.miw.betca_tpv_spring.dtos.TicketPatchDto;
+import es.upm.miw.betca_tpv_spring.exceptions.ConflictException;
+import es.upm.miw.betca_tpv_spring.repositories.SalesDailyRepository;
+import es.upm.miw.betca_tpv_spring.repositories.TicketRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestConfig
+class SalesDailyServiceIT {
+
+    private static final String ARTICLE = "8400000000024";
+
+    @Autowired
+    private SalesDailyService salesDailyService;
+
+    @Autowired
+    private SalesDailyRepository salesDailyRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private TicketController ticketController;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DatabaseSeederService databaseSeederService;
+
+    @Test
+    void testPatchedTicketIncrementsDeltaAndRebuildIsIdempotent() {
+        assertEquals(3, this.today(ARTICLE).getUnits());
+        TicketPatchDto ticketPatchDto = new TicketPatchDto();
+        ticketPatchDto.getShoppingPatchDtoList().add(new ShoppingPatchDto(ARTICLE, 1, ShoppingState.NOT_COMMITTED));
+        StepVerifier
+                .create(this.ticketController.updateShoppingTicket("201901121", ticketPatchDto))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify();
+        assertEquals(1, this.today(ARTICLE).getUnits());
+        assertEquals(1390, this.today(ARTICLE).getRevenue());
+        Map<String, String> incremented = this.rollups();
+        StepVerifier.create(this.salesDailyService.rebuild()).expectComplete().verify();
+        assertEquals(incremented, this.rollups());
+        StepVerifier.create(this.salesDailyService.rebuild()).expectComplete().verify();
+        assertEquals(incremented, this.rollups());
+    }
+
+    @Test
+    void testRebuildReplacesCollectionWithIndex() {
+        Map<String, String> seeded = this.rollups();
+        StepVerifier.create(this.salesDailyService.rebuild()).expectComplete().verify();
+        assertEquals(seeded, this.rollups());
+        assertTrue(this.mongoTemplate.indexOps(SalesDaily.class).getIndexInfo().stream()
+                .anyMatch(index -> "articleId_day".equals(index.getName()) && index.isUnique()));
+        assertFalse(this.mongoTemplate.collectionExists("salesDaily_rebuilding"));
+    }
+
+    @Test
+    void testTicketCreatedDuringRebuildCountedOnce() {
+        SalesDaily before = this.today(ARTICLE);
+        Mono<Void> rebuild = this.salesDailyService.rebuild().cache();
+        rebuild.subscribe();
+        StepVerifier
+                .create(this.salesDailyService.rebuild())
+                .expectError(ConflictException.class)
+                .verify();
+        Ticket ticket = new Ticket(99, BigDecimal.TEN, BigDecimal.ZERO, BigDecimal.ZERO, new Shopping[]{
+                new Shopping(2, BigDecimal.ZERO, ShoppingState.COMMITTED, ARTICLE, "", BigDecimal.TEN)},
+                null, "", null);
+        this.ticketRepository.save(ticket);
+        StepVerifier.create(this.salesDailyService.increment(ticket)).expectComplete().verify();
+        StepVerifier.create(rebuild).expectComplete().verify();
+        SalesDaily after = this.today(ARTICLE);
+        assertEquals(before.getUnits() + 2, after.getUnits());
+        assertEquals(before.getRevenue() + 2000, after.getRevenue());
+        StepVerifier.create(this.salesDailyService.rebuild()).expectComplete().verify();
+        assertEquals(after.getUnits(), this.today(ARTICLE).getUnits());
+    }
+
+    @Test
+    void testBestSellers() {
+        StepVerifier
+                .create(this.salesDailyService.bestSellers(LocalDate.now(), 2))
+                .expectNextMatches(salesDaily -> salesDaily.getUnits() == 12)
+                .expectNextMatches(salesDaily -> salesDaily.getUnits() == 12)
+                .expectComplete()
+                .verify();
+    }
+
+    private SalesDaily today(String articleId) {
+        return this.salesDailyRepository.findAll().stream()
+                .filter(salesDaily -> articleId.equals(salesDaily.getArticleId()) && LocalDate.now().equals(salesDaily.getDay()))
+                .findFirst().orElseThrow(AssertionError::new);
+    }
+
+    private Map<String, String> rollups() {
+        List<SalesDaily> all = this.salesDailyRepository.findAll();
+        return all.stream().collect(Collectors.toMap(salesDaily -> salesDaily.getArticleId() + "/" + salesDaily.getDay(),
+                salesDaily -> salesDaily.getUnits() + "/" + salesDaily.getRevenue()));
+    }
+
+    @AfterEach
+    void clean() {
+        this.databaseSeederService.deleteAllAndInitializeAndSeedDataBase();
+    }
+
+}
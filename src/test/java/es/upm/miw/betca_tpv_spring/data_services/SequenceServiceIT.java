@@ -0,0 +1,129 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.TestConfig;
+import es.upm.miw.betca_tpv_spring.documents.Counter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.ReactiveMongoOperations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@TestConfig
+class SequenceServiceIT {
+
+    private static final int CALLERS = 500;
+
+    @Autowired
+    private SequenceService sequenceService;
+
+    @Autowired
+    private ReactiveMongoOperations reactiveMongoOperations;
+
+    @Test
+    void testNextStartingFromLast() {
+        StepVerifier
+                .create(this.sequenceService.next("test-last", Mono.just(41)))
+                .expectNext(42)
+                .expectComplete()
+                .verify();
+        StepVerifier
+                .create(this.sequenceService.next("test-last", Mono.just(41)))
+                .expectNext(43)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void testNextWithoutLast() {
+        StepVerifier
+                .create(this.sequenceService.next("test-empty", 1, Mono.empty()))
+                .expectNext(1)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void testNextParallelCallersWithoutDuplicates() {
+        List<Integer> ids = Flux.range(0, CALLERS)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> this.sequenceService.next("test-parallel", Mono.empty()))
+                .sequential()
+                .collectList()
+                .block();
+        assertEquals(CALLERS, ids.size());
+        assertEquals(CALLERS, new HashSet<>(ids).size());
+    }
+
+    @Test
+    void testNextParallelGaplessCallers() {
+        List<Integer> ids = Flux.range(0, CALLERS)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> this.sequenceService.next("test-gapless", 1, Mono.empty()))
+                .sequential()
+                .collectList()
+                .block();
+        assertEquals(CALLERS, new HashSet<>(ids).size());
+        assertEquals(CALLERS, ids.stream().mapToInt(Integer::intValue).max().getAsInt());
+    }
+
+    @Test
+    void testNextExpiringStoresExpiry() {
+        LocalDateTime expireAt = LocalDateTime.now().plusDays(2).truncatedTo(ChronoUnit.SECONDS);
+        StepVerifier
+                .create(this.sequenceService.next("test-expiring", Mono.empty(), expireAt))
+                .expectNext(1)
+                .expectComplete()
+                .verify();
+        StepVerifier
+                .create(this.reactiveMongoOperations.findById("test-expiring", Counter.class))
+                .expectNextMatches(counter -> expireAt.equals(counter.getExpireAt()))
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void testNextExpiredLeaseReserved() {
+        StepVerifier
+                .create(this.sequenceService.next("test-expired", Mono.empty(), LocalDateTime.now().minusDays(1)))
+                .expectNext(1)
+                .expectComplete()
+                .verify();
+        StepVerifier
+                .create(this.sequenceService.next("test-expired-new", Mono.empty(), null))
+                .expectNext(1)
+                .expectComplete()
+                .verify();
+        StepVerifier
+                .create(this.sequenceService.next("test-expired", Mono.empty(), LocalDateTime.now().minusDays(1)))
+                .expectNext(11)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void testNextParallelKeysWhileLeasesExpire() {
+        LocalDateTime expired = LocalDateTime.now().minusDays(1);
+        List<String> ids = Flux.range(0, CALLERS)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> this.sequenceService.next("test-sweep-" + i % 50, Mono.empty(), expired)
+                        .map(id -> i % 50 + "-" + id))
+                .sequential()
+                .collectList()
+                .block();
+        assertEquals(CALLERS, ids.size());
+        assertEquals(CALLERS, new HashSet<>(ids).size());
+    }
+
+}
@@ -0,0 +1,97 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.TestConfig;
+import es.upm.miw.betca_tpv_spring.documents.Shopping;
+import es.upm.miw.betca_tpv_spring.documents.ShoppingState;
+import es.upm.miw.betca_tpv_spring.documents.Tax;
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import es.upm.miw.betca_tpv_spring.repositories.TicketRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@TestConfig
+class ShoppingTaxMigrationIT {
+
+    @Autowired
+    private ShoppingTaxMigration shoppingTaxMigration;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DatabaseSeederService databaseSeederService;
+
+    @Test
+    void testMigrateIsIdempotent() {
+        StepVerifier
+                .create(this.shoppingTaxMigration.migrate())
+                .expectNextMatches(migrated -> migrated > 0)
+                .expectComplete()
+                .verify();
+        for (Ticket ticket : this.ticketRepository.findAll()) {
+            for (Shopping shopping : ticket.getShoppingList()) {
+                assertNotNull(shopping.getTax());
+                assertNotNull(shopping.getTaxRate());
+            }
+        }
+        Shopping free = this.ticketRepository.findAll().stream()
+                .flatMap(ticket -> Arrays.stream(ticket.getShoppingList()))
+                .filter(shopping -> "8400000000031".equals(shopping.getArticleId()))
+                .findFirst().orElseThrow(AssertionError::new);
+        assertEquals(Tax.FREE, free.getTax());
+        assertEquals(0, BigDecimal.ZERO.compareTo(free.getTaxRate()));
+        StepVerifier
+                .create(this.shoppingTaxMigration.migrate())
+                .expectNext(0L)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void testMigrateMarksLinesWithoutArticleOnce() {
+        Ticket ticket = new Ticket(1, BigDecimal.ZERO, BigDecimal.TEN, BigDecimal.ZERO, new Shopping[]{
+                new Shopping(1, BigDecimal.ZERO, ShoppingState.COMMITTED, "no-article", "removed", BigDecimal.TEN),
+                new Shopping(1, BigDecimal.ZERO, ShoppingState.COMMITTED, "8400000000031", "free", BigDecimal.TEN)},
+                null, "", null);
+        ticket.setId("migration-it");
+        this.ticketRepository.save(ticket);
+        StepVerifier
+                .create(this.shoppingTaxMigration.migrate())
+                .expectNextMatches(migrated -> migrated > 0)
+                .expectComplete()
+                .verify();
+        Document migrated = this.mongoTemplate.findById("migration-it", Document.class,
+                this.mongoTemplate.getCollectionName(Ticket.class));
+        List<?> lines = migrated.get("shoppingList", List.class);
+        assertEquals(true, ((Document) lines.get(0)).get("taxUnresolved"));
+        assertNull(((Document) lines.get(0)).get("tax"));
+        assertEquals(Tax.FREE.name(), ((Document) lines.get(1)).get("tax"));
+        this.ticketRepository.save(this.ticketRepository.findById("migration-it").get());
+        StepVerifier
+                .create(this.shoppingTaxMigration.migrate())
+                .expectNext(0L)
+                .expectComplete()
+                .verify();
+    }
+
+    @AfterEach
+    void clean() {
+        this.databaseSeederService.deleteAllAndInitializeAndSeedDataBase();
+    }
+
+}
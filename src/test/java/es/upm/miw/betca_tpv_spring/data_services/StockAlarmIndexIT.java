@@ -0,0 +1,81 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.TestConfig;
+import es.upm.miw.betca_tpv_spring.documents.Article;
+import es.upm.miw.betca_tpv_spring.dtos.StockAlarmEventDto.Level;
+import es.upm.miw.betca_tpv_spring.repositories.ArticleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+@TestConfig
+class StockAlarmIndexIT {
+
+    private static final String ALARMED = "8400000000017";
+
+    @Autowired
+    private StockAlarmIndex stockAlarmIndex;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private DatabaseSeederService databaseSeederService;
+
+    @BeforeEach
+    void synchronize() {
+        this.databaseSeederService.deleteAllAndInitializeAndSeedDataBase();
+        this.stockAlarmIndex.invalidate();
+        this.stockAlarmIndex.evaluate(Arrays.asList(ALARMED, "8400000000024")).block();
+    }
+
+    @Test
+    void testEventsSnapshotAndCrossing() {
+        StepVerifier
+                .create(this.stockAlarmIndex.events())
+                .expectNextMatches(event -> event.getLevel() == Level.CRITICAL)
+                .expectNextMatches(event -> event.getLevel() == Level.CRITICAL)
+                .then(() -> {
+                    Article article = this.articleRepository.findById(ALARMED).get();
+                    article.setStock(2000);
+                    this.articleRepository.save(article);
+                    this.stockAlarmIndex.evaluate(Arrays.asList(ALARMED, "8400000000024")).block();
+                })
+                .expectNextMatches(event -> ALARMED.equals(event.getCode()) && event.getLevel() == Level.NORMAL
+                        && event.getStock() == 2000)
+                .then(() -> this.stockAlarmIndex.evaluate(Collections.singletonList(ALARMED)).block())
+                .expectNoEvent(Duration.ofMillis(200))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testInvalidateKeepsLastLevels() {
+        StepVerifier
+                .create(this.stockAlarmIndex.events())
+                .expectNextCount(2)
+                .then(() -> {
+                    Article article = this.articleRepository.findById(ALARMED).get();
+                    article.setStock(2000);
+                    this.articleRepository.save(article);
+                    this.stockAlarmIndex.invalidate();
+                    this.stockAlarmIndex.evaluate(Collections.singletonList(ALARMED)).block();
+                })
+                .expectNextMatches(event -> ALARMED.equals(event.getCode()) && event.getLevel() == Level.NORMAL)
+                .expectNoEvent(Duration.ofMillis(200))
+                .thenCancel()
+                .verify();
+    }
+
+    @AfterEach
+    void clean() {
+        this.databaseSeederService.deleteAllAndInitializeAndSeedDataBase();
+    }
+
+}
@@ -0,0 +1,78 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.TestConfig;
+import es.upm.miw.betca_tpv_spring.business_controllers.TicketController;
+import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import es.upm.miw.betca_tpv_spring.dtos.TicketPatchDto;
+import es.upm.miw.betca_tpv_spring.repositories.TicketRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@TestConfig
+class TicketSearchMigrationIT {
+
+    @Autowired
+    private TicketSearchMigration ticketSearchMigration;
+
+    @Autowired
+    private TicketController ticketController;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DatabaseSeederService databaseSeederService;
+
+    private Ticket legacy;
+
+    @BeforeEach
+    void unsetUserMobile() {
+        this.legacy = this.ticketRepository.findAll().stream()
+                .filter(ticket -> ticket.getUser() != null)
+                .findFirst().orElseThrow(AssertionError::new);
+        this.mongoTemplate.updateFirst(new Query(Criteria.where("id").is(this.legacy.getId())),
+                new Update().unset("userMobile"), Ticket.class);
+        assertNull(this.ticketRepository.findById(this.legacy.getId()).get().getUserMobile());
+    }
+
+    @AfterEach
+    void clean() {
+        this.databaseSeederService.deleteAllAndInitializeAndSeedDataBase();
+    }
+
+    @Test
+    void testMigrateTicketWithTotalItemsWithoutUserMobile() {
+        StepVerifier
+                .create(this.ticketSearchMigration.migrate())
+                .expectNextMatches(migrated -> migrated >= 1)
+                .expectComplete()
+                .verify();
+        assertEquals(this.legacy.getUser().getMobile(),
+                this.ticketRepository.findById(this.legacy.getId()).get().getUserMobile());
+    }
+
+    @Test
+    void testUpdateShoppingTicketSetsUserMobile() {
+        StepVerifier
+                .create(this.ticketController.updateShoppingTicket(this.legacy.getId(), new TicketPatchDto()))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify();
+        assertEquals(this.legacy.getUser().getMobile(),
+                this.ticketRepository.findById(this.legacy.getId()).get().getUserMobile());
+    }
+
+}
@@ -0,0 +1,74 @@
+package es.upm.miw.betca_tpv_spring.data_services;
+
+import es.upm.miw.betca_tpv_spring.TestConfig;
+import es.upm.miw.betca_tpv_spring.documents.Invoice;
+import es.upm.miw.betca_tpv_spring.documents.Quarter;
+import es.upm.miw.betca_tpv_spring.documents.Tax;
+import es.upm.miw.betca_tpv_spring.documents.VatLine;
+import es.upm.miw.betca_tpv_spring.documents.VatRollup;
+import es.upm.miw.betca_tpv_spring.exceptions.ConflictException;
+import es.upm.miw.betca_tpv_spring.repositories.InvoiceRepository;
+import es.upm.miw.betca_tpv_spring.repositories.VatRollupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@TestConfig
+class VatRollupServiceIT {
+
+    private static final String INVOICE = "vat-rollup-it";
+
+    @Autowired
+    private VatRollupService vatRollupService;
+
+    @Autowired
+    private VatRollupRepository vatRollupRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @AfterEach
+    void clean() {
+        this.invoiceRepository.deleteById(INVOICE);
+        StepVerifier.create(this.vatRollupService.rebuild()).expectComplete().verify();
+    }
+
+    @Test
+    void testInvoiceCreatedDuringRebuildCountedOnce() {
+        StepVerifier.create(this.vatRollupService.rebuild()).expectComplete().verify();
+        VatRollup before = this.general();
+        Mono<Void> rebuild = this.vatRollupService.rebuild().cache();
+        rebuild.subscribe();
+        StepVerifier
+                .create(this.vatRollupService.rebuild())
+                .expectError(ConflictException.class)
+                .verify();
+        Invoice invoice = new Invoice();
+        invoice.setId(INVOICE);
+        invoice.addVatLine(new VatLine(Tax.GENERAL, 10000, 2100));
+        this.invoiceRepository.save(invoice);
+        StepVerifier.create(this.vatRollupService.increment(invoice)).expectComplete().verify();
+        StepVerifier.create(rebuild).expectComplete().verify();
+        VatRollup after = this.general();
+        assertEquals(before.getTaxable() + 10000, after.getTaxable());
+        assertEquals(before.getVat() + 2100, after.getVat());
+        StepVerifier.create(this.vatRollupService.rebuild()).expectComplete().verify();
+        assertEquals(after.getVat(), this.general().getVat());
+    }
+
+    private VatRollup general() {
+        LocalDateTime now = LocalDateTime.now();
+        return this.vatRollupRepository.findAll().stream()
+                .filter(rollup -> rollup.getYear() == now.getYear()
+                        && rollup.getQuarter() == Quarter.fromDate(now).getNumber() && rollup.getTax() == Tax.GENERAL)
+                .findFirst()
+                .orElse(new VatRollup());
+    }
+
+}
@@ -1,5 +1,6 @@
 package es.upm.miw.betca_tpv_spring.documents;
 
+import es.upm.miw.betca_tpv_spring.exceptions.ConflictException;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
@@ -27,4 +28,14 @@ class CashierClosureTest {
         assertTrue(cashierClosure.isClosed());
     }
 
+    @Test
+    void testSalesAndClose() {
+        CashierClosure cashierClosure = new CashierClosure(BigDecimal.ONE);
+        cashierClosure.sales(new BigDecimal("11"), new BigDecimal("11"), BigDecimal.ONE);
+        cashierClosure.close(BigDecimal.TEN, BigDecimal.TEN, "close");
+        assertEquals(0, BigDecimal.ONE.compareTo(cashierClosure.getLostCard()));
+        assertEquals(0, new BigDecimal("2").compareTo(cashierClosure.getLostCash()));
+        assertThrows(ConflictException.class, () -> cashierClosure.sales(BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE));
+    }
+
 }
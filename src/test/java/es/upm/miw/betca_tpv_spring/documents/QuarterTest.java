@@ -0,0 +1,29 @@
+package es.upm.miw.betca_tpv_spring.documents;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuarterTest {
+
+    @Test
+    void testFromDate() {
+        assertEquals(Quarter.Q1, Quarter.fromDate(LocalDateTime.of(2020, 1, 1, 0, 0)));
+        assertEquals(Quarter.Q1, Quarter.fromDate(LocalDateTime.of(2020, 3, 31, 23, 59)));
+        assertEquals(Quarter.Q2, Quarter.fromDate(LocalDateTime.of(2020, 4, 1, 0, 0)));
+        assertEquals(Quarter.Q3, Quarter.fromDate(LocalDateTime.of(2020, 9, 30, 0, 0)));
+        assertEquals(Quarter.Q4, Quarter.fromDate(LocalDateTime.of(2020, 12, 31, 0, 0)));
+        assertEquals(4, Quarter.Q4.getNumber());
+    }
+
+    @Test
+    void testVatLine() {
+        VatLine vatLine = VatLine.of(Tax.GENERAL, new BigDecimal("0.21"), new BigDecimal("121"));
+        assertEquals(1000000, vatLine.getTaxable());
+        assertEquals(210000, vatLine.getVat());
+    }
+
+}
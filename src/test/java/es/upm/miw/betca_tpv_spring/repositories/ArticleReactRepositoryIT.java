@@ -1,12 +1,18 @@
 package es.upm.miw.betca_tpv_spring.repositories;
 
 import es.upm.miw.betca_tpv_spring.TestConfig;
+import es.upm.miw.betca_tpv_spring.documents.Shopping;
+import es.upm.miw.betca_tpv_spring.documents.ShoppingState;
 import es.upm.miw.betca_tpv_spring.documents.Tax;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
 
 import static es.upm.miw.betca_tpv_spring.data_services.DatabaseSeederService.CUSTOMER_POINTS_NAME;
 import static es.upm.miw.betca_tpv_spring.data_services.DatabaseSeederService.VARIOUS_NAME;
@@ -30,7 +36,7 @@ class ArticleReactRepositoryIT {
                     assertNotNull(article.getRegistrationDate());
                     assertEquals(Tax.GENERAL, article.getTax());
                     assertFalse(article.isDiscontinued());
-                    assertEquals(new Integer(1000), article.getStock());
+                    assertEquals(Integer.valueOf(1000), article.getStock());
                     return true;
                 })
                 .expectNextMatches(article -> {
@@ -41,7 +47,7 @@ class ArticleReactRepositoryIT {
                     assertNotNull(article.getRegistrationDate());
                     assertEquals(Tax.GENERAL, article.getTax());
                     assertFalse(article.isDiscontinued());
-                    assertEquals(new Integer(1), article.getStock());
+                    assertEquals(Integer.valueOf(1), article.getStock());
                     return true;
                 })
                 .thenCancel()
@@ -69,4 +75,90 @@ class ArticleReactRepositoryIT {
                 .verify();
     }
 
+    @Test
+    void testDecrementStock() {
+        Shopping[] shoppingList = {
+                new Shopping(2, BigDecimal.ZERO, ShoppingState.COMMITTED, "8400000000017", "", BigDecimal.TEN),
+                new Shopping(1, BigDecimal.ZERO, ShoppingState.COMMITTED, "8400000000017", "", BigDecimal.TEN),
+                new Shopping(1, BigDecimal.ZERO, ShoppingState.COMMITTED, "8400000000024", "", BigDecimal.TEN)
+        };
+        StepVerifier
+                .create(this.articleReactRepository.decrementStock(shoppingList, true))
+                .expectNextMatches(StockUpdateResult::isCompleted)
+                .expectComplete()
+                .verify();
+        assertEquals(Integer.valueOf(7), this.articleReactRepository.findById("8400000000017").block().getStock());
+        assertEquals(Integer.valueOf(4), this.articleReactRepository.findById("8400000000024").block().getStock());
+        Shopping[] returnedList = {
+                new Shopping(-3, BigDecimal.ZERO, ShoppingState.COMMITTED, "8400000000017", "", BigDecimal.TEN),
+                new Shopping(-1, BigDecimal.ZERO, ShoppingState.COMMITTED, "8400000000024", "", BigDecimal.TEN)
+        };
+        StepVerifier
+                .create(this.articleReactRepository.decrementStock(returnedList, true))
+                .expectNextMatches(StockUpdateResult::isCompleted)
+                .expectComplete()
+                .verify();
+        assertEquals(Integer.valueOf(10), this.articleReactRepository.findById("8400000000017").block().getStock());
+    }
+
+    @Test
+    void testDecrementStockNotFoundAndRejected() {
+        Shopping[] shoppingList = {
+                new Shopping(1, BigDecimal.ZERO, ShoppingState.COMMITTED, "kk", "", BigDecimal.TEN),
+                new Shopping(1, BigDecimal.ZERO, ShoppingState.COMMITTED, "8400000000055", "", BigDecimal.TEN)
+        };
+        StepVerifier
+                .create(this.articleReactRepository.decrementStock(shoppingList, true))
+                .expectNextMatches(stockUpdateResult -> {
+                    assertEquals(Collections.singletonList("kk"), stockUpdateResult.getNotFound());
+                    assertEquals(Collections.singletonList("8400000000055"), stockUpdateResult.getRejected());
+                    return true;
+                })
+                .expectComplete()
+                .verify();
+        assertEquals(Integer.valueOf(0), this.articleReactRepository.findById("8400000000055").block().getStock());
+    }
+
+    @Test
+    void testDecrementStockRejectedLeavesEveryStockUnchanged() {
+        int stock17 = this.articleReactRepository.findById("8400000000017").block().getStock();
+        int stock24 = this.articleReactRepository.findById("8400000000024").block().getStock();
+        long articles = this.articleReactRepository.count().block();
+        Shopping[] shoppingList = {
+                new Shopping(1, BigDecimal.ZERO, ShoppingState.COMMITTED, "8400000000017", "", BigDecimal.TEN),
+                new Shopping(1, BigDecimal.ZERO, ShoppingState.COMMITTED, "8400000000055", "", BigDecimal.TEN),
+                new Shopping(1, BigDecimal.ZERO, ShoppingState.COMMITTED, "kk", "", BigDecimal.TEN),
+                new Shopping(2, BigDecimal.ZERO, ShoppingState.COMMITTED, "8400000000024", "", BigDecimal.TEN)
+        };
+        StepVerifier
+                .create(this.articleReactRepository.decrementStock(shoppingList, true))
+                .expectNextMatches(stockUpdateResult -> {
+                    assertEquals(Collections.singletonList("kk"), stockUpdateResult.getNotFound());
+                    assertEquals(Collections.singletonList("8400000000055"), stockUpdateResult.getRejected());
+                    return true;
+                })
+                .expectComplete()
+                .verify();
+        assertEquals(Integer.valueOf(stock17), this.articleReactRepository.findById("8400000000017").block().getStock());
+        assertEquals(Integer.valueOf(stock24), this.articleReactRepository.findById("8400000000024").block().getStock());
+        assertEquals(Integer.valueOf(0), this.articleReactRepository.findById("8400000000055").block().getStock());
+        assertEquals(articles, this.articleReactRepository.count().block().longValue());
+    }
+
+    @Test
+    void testDecrementStockParallelTillsNeverSeeMissingArticle() {
+        Shopping[] shoppingList = {
+                new Shopping(1, BigDecimal.ZERO, ShoppingState.COMMITTED, "kk", "", BigDecimal.TEN)
+        };
+        List<StockUpdateResult> results = Flux.range(0, 20)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .flatMap(till -> this.articleReactRepository.decrementStock(shoppingList, true))
+                .sequential()
+                .collectList()
+                .block();
+        assertTrue(results.stream().allMatch(result -> result.getNotFound().equals(Collections.singletonList("kk"))));
+        assertFalse(this.articleReactRepository.existsById("kk").block());
+    }
+
 }
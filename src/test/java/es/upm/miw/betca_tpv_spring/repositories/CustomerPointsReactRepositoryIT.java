@@ -1,6 +1,7 @@
 package es.upm.miw.betca_tpv_spring.repositories;
 
 import es.upm.miw.betca_tpv_spring.TestConfig;
+import es.upm.miw.betca_tpv_spring.documents.User;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import reactor.test.StepVerifier;
@@ -40,4 +41,43 @@ public class CustomerPointsReactRepositoryIT {
                 .verify();
     }
 
+    @Test
+    void testIncrementPointsFloorAtZeroAndSetPoints() {
+        User user = this.userReactRepository.findByMobile("666666001").block();
+        StepVerifier
+                .create(this.customerPointsReactRepository.incrementPoints(user, 5))
+                .expectNextMatches(cp -> cp.getPoints() == 25 && cp.getUser() == null)
+                .expectComplete()
+                .verify();
+        StepVerifier
+                .create(this.customerPointsReactRepository.incrementPoints(user, -5))
+                .expectNextMatches(cp -> cp.getPoints() == 20)
+                .expectComplete()
+                .verify();
+        StepVerifier
+                .create(this.customerPointsReactRepository.incrementPoints(user, -100))
+                .expectNextMatches(cp -> cp.getPoints() == 0)
+                .expectComplete()
+                .verify();
+        StepVerifier
+                .create(this.customerPointsReactRepository.setPoints(user, -1))
+                .expectNextMatches(cp -> cp.getPoints() == 0)
+                .expectComplete()
+                .verify();
+        StepVerifier
+                .create(this.customerPointsReactRepository.setPoints(user, 20))
+                .expectNextMatches(cp -> cp.getPoints() == 20)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void testIncrementPointsNotFound() {
+        User user = this.userReactRepository.findByMobile("666666005").block();
+        StepVerifier
+                .create(this.customerPointsReactRepository.incrementPoints(user, -1))
+                .expectComplete()
+                .verify();
+    }
+
 }
@@ -1,14 +1,20 @@
 package es.upm.miw.betca_tpv_spring.repositories;
 
+import com.mongodb.MongoClient;
 import es.upm.miw.betca_tpv_spring.TestConfig;
 import es.upm.miw.betca_tpv_spring.documents.Ticket;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,6 +24,9 @@ class TicketReactRepositoryIT {
     @Autowired
     private TicketReactRepository ticketReactRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Test
     void testFindAllAndDatabaseSeeder() {
         StepVerifier
@@ -104,5 +113,40 @@ class TicketReactRepositoryIT {
                 .expectNextCount(1)
                 .thenCancel().verify();
     }
-}
 
+    @Test
+    void testSearchByMobile() {
+        StepVerifier
+                .create(this.ticketReactRepository.search("666666004", null, null, null))
+                .expectNextMatches(ticket -> ticket.getId() != null && ticket.getReference() != null)
+                .expectNextCount(2)
+                .expectComplete().verify();
+    }
+
+    @Test
+    void testSearchUsesIndexes() {
+        LocalDateTime now = LocalDateTime.now();
+        this.assertIndexScan(TicketSearchOperationsImpl.searchFilter("666666004", null, null, null), "userMobile_creationDate");
+        this.assertIndexScan(TicketSearchOperationsImpl.searchFilter(null, null, null, 3), "totalItems_creationDate");
+        this.assertIndexScan(TicketSearchOperationsImpl.searchFilter(null, now.minusDays(1), now, null), "creationDate");
+        this.assertIndexScan(TicketSearchOperationsImpl.searchFilter("666666004", now.minusDays(1), now, 3), "_creationDate");
+    }
+
+    @Test
+    void testSearchNotCommitted() {
+        StepVerifier
+                .create(this.ticketReactRepository.searchNotCommitted(Arrays.asList("8400000000017", "8400000000024")))
+                .expectNextMatches(ticket -> "201901121".equals(ticket.getId()) && ticket.getReference() != null)
+                .expectComplete().verify();
+    }
+
+    private void assertIndexScan(Bson filter, String index) {
+        BsonDocument bson = filter.toBsonDocument(BsonDocument.class, MongoClient.getDefaultCodecRegistry());
+        Document explain = this.mongoTemplate.getDb().runCommand(new Document("explain",
+                new Document("find", this.mongoTemplate.getCollectionName(Ticket.class)).append("filter", bson)));
+        String winningPlan = ((Document) explain.get("queryPlanner", Document.class).get("winningPlan")).toJson();
+        assertTrue(winningPlan.contains("IXSCAN"), winningPlan);
+        assertTrue(winningPlan.contains(index), winningPlan);
+        assertFalse(winningPlan.contains("COLLSCAN"), winningPlan);
+    }
+}